@@ -0,0 +1,130 @@
+package com.tinyls.urlshortener.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.tinyls.urlshortener.dto.url.UrlDTO;
+import com.tinyls.urlshortener.util.Transactions;
+import com.tinyls.urlshortener.util.UrlHashes;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * In-process cache of the anonymous short URLs of original URLs.
+ * Used by URL creation to answer repeated anonymous shortens of the same
+ * original URL without a duplicate check query.
+ *
+ * Entries are keyed by the url_hash of the original URL (see UrlHashes); a
+ * hit is only used if the cached original URL is equal to the requested one.
+ * The cache is bounded by size and by time since write. Anonymous URLs cannot
+ * be changed, so entries only go stale when the URL is deleted: deletions on
+ * this instance evict the entry, and short codes known to be deleted are never
+ * answered from the cache; deletions elsewhere are picked up once the entry
+ * expires. Click counts in a cached answer are those at the time it was
+ * cached.
+ *
+ * Statistics are published under the cache name "anonymous-links".
+ */
+@Component
+public class AnonymousLinkCache {
+
+    /**
+     * Name under which cache statistics are published.
+     */
+    public static final String CACHE_NAME = "anonymous-links";
+
+    private final boolean enabled;
+    private final Cache<Long, UrlDTO> cache;
+    private final ShortCodeFilter shortCodeFilter;
+
+    /**
+     * Creates the anonymous link cache.
+     *
+     * @param enabled         whether anonymous links are cached
+     * @param maximumSize     the maximum number of cached original URLs
+     * @param ttl             how long an entry stays cached after being written
+     * @param shortCodeFilter the filter that knows deleted short codes
+     * @param meterRegistry   the registry used to publish cache statistics
+     */
+    public AnonymousLinkCache(
+            @Value("${app.urls.anonymous-cache.enabled:true}") boolean enabled,
+            @Value("${app.urls.anonymous-cache.maximum-size:10000}") long maximumSize,
+            @Value("${app.urls.anonymous-cache.ttl:10m}") Duration ttl,
+            ShortCodeFilter shortCodeFilter,
+            MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.shortCodeFilter = shortCodeFilter;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+    }
+
+    /**
+     * Looks up the anonymous short URL of an original URL.
+     *
+     * @param originalUrl the original URL
+     * @return an Optional containing a copy of the cached URL, empty if not
+     *         cached
+     */
+    public Optional<UrlDTO> get(String originalUrl) {
+        if (!enabled) {
+            return Optional.empty();
+        }
+        UrlDTO url = cache.getIfPresent(UrlHashes.hash(originalUrl));
+        if (url == null || !url.getOriginalUrl().equals(originalUrl)
+                || shortCodeFilter.isKnownDeleted(url.getShortCode())) {
+            return Optional.empty();
+        }
+        return Optional.of(copy(url));
+    }
+
+    /**
+     * Caches the anonymous short URL of an original URL. Within a
+     * transaction, the URL is cached once the transaction has committed, so
+     * that a rolled back creation is never answered.
+     *
+     * @param url the anonymous URL
+     */
+    public void put(UrlDTO url) {
+        if (!enabled) {
+            return;
+        }
+        UrlDTO copy = copy(url);
+        Transactions.afterCommit(() -> cache.put(UrlHashes.hash(copy.getOriginalUrl()), copy));
+    }
+
+    /**
+     * Removes the anonymous short URL of an original URL from the cache.
+     *
+     * @param originalUrl the original URL
+     */
+    public void evict(String originalUrl) {
+        cache.invalidate(UrlHashes.hash(originalUrl));
+    }
+
+    /**
+     * Copies a URL, since DTOs are mutable and handed out to callers.
+     */
+    private static UrlDTO copy(UrlDTO url) {
+        return UrlDTO.builder()
+                .id(url.getId())
+                .shortCode(url.getShortCode())
+                .originalUrl(url.getOriginalUrl())
+                .createdAt(url.getCreatedAt())
+                .clicks(url.getClicks())
+                .lastClickedAt(url.getLastClickedAt())
+                .uniqueVisitors(url.getUniqueVisitors())
+                .userId(url.getUserId())
+                .redirectStatus(url.getRedirectStatus())
+                .cacheMaxAge(url.getCacheMaxAge())
+                .exactClicks(url.getExactClicks())
+                .build();
+    }
+}
@@ -0,0 +1,200 @@
+package com.tinyls.urlshortener.cache;
+
+import com.tinyls.urlshortener.dto.url.RedirectTarget;
+import com.tinyls.urlshortener.repository.UrlScanRepository;
+import com.tinyls.urlshortener.util.CountMinSketch;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Tracks the most requested short codes and keeps their redirect targets
+ * resident in memory.
+ *
+ * Every redirect is counted in a Count-Min sketch. Short codes whose estimated
+ * count reaches the current top-K are kept as candidates, and a periodic
+ * refresh ranks the candidates, publishes the top-K and loads the redirect
+ * targets of those above the minimum hit count into the hot-link map. The hot
+ * map is consulted before every other redirect tier and is never evicted by
+ * size or time, so viral links stay in memory however many other links are
+ * requested at the same time.
+ *
+ * The sketch is halved after each refresh, so rankings follow recent traffic.
+ * Hot targets are reloaded from the database on each refresh, so changes made
+ * on other instances are picked up within one refresh interval.
+ */
+@Slf4j
+@Component
+public class HotLinks {
+
+    private static final int SKETCH_WIDTH = 1 << 14;
+    private static final int SKETCH_DEPTH = 4;
+    private static final int CANDIDATES_PER_SLOT = 10;
+
+    private final UrlScanRepository urlScanRepository;
+    private final boolean enabled;
+    private final int size;
+    private final long minHits;
+    private final int maxCandidates;
+    private final CountMinSketch sketch = new CountMinSketch(SKETCH_WIDTH, SKETCH_DEPTH);
+    private final Set<String> candidates = ConcurrentHashMap.newKeySet();
+    private final Set<String> evictedDuringRefresh = ConcurrentHashMap.newKeySet();
+    private final ReentrantLock refreshLock = new ReentrantLock();
+    private final Counter hits;
+
+    private volatile long admissionThreshold;
+    private volatile Map<String, RedirectTarget> hotTargets = new ConcurrentHashMap<>();
+    private volatile List<HeavyHitter> topK = List.of();
+
+    /**
+     * Estimated request count of a short code since the sketch was last aged.
+     *
+     * @param shortCode     the short code
+     * @param estimatedHits the estimated number of recent requests
+     * @param hot           whether the short code is served from the hot map
+     */
+    public record HeavyHitter(String shortCode, long estimatedHits, boolean hot) {
+    }
+
+    /**
+     * Creates the hot-link tracker.
+     *
+     * @param urlScanRepository the repository used to load hot redirect targets
+     * @param enabled           whether redirects are tracked
+     * @param size              the number of top short codes tracked (K)
+     * @param minHits           the estimated hits per refresh interval above
+     *                          which a top short code is kept in memory
+     * @param meterRegistry     the registry used to publish statistics
+     */
+    public HotLinks(
+            UrlScanRepository urlScanRepository,
+            @Value("${app.redirect.hot-links.enabled:true}") boolean enabled,
+            @Value("${app.redirect.hot-links.size:100}") int size,
+            @Value("${app.redirect.hot-links.min-hits:100}") long minHits,
+            MeterRegistry meterRegistry) {
+        this.urlScanRepository = urlScanRepository;
+        this.enabled = enabled;
+        this.size = size;
+        this.minHits = minHits;
+        this.maxCandidates = size * CANDIDATES_PER_SLOT;
+        this.hits = Counter.builder("tinyls.redirect.hot-links.hits")
+                .description("Redirects resolved from the hot-link map")
+                .register(meterRegistry);
+        Gauge.builder("tinyls.redirect.hot-links.size", this, hotLinks -> hotLinks.hotTargets.size())
+                .description("Number of redirect targets held in the hot-link map")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Counts a request for a short code.
+     *
+     * @param shortCode the requested short code
+     */
+    public void record(String shortCode) {
+        if (!enabled) {
+            return;
+        }
+        long estimate = sketch.add(shortCode);
+        if ((estimate > admissionThreshold || candidates.size() < maxCandidates)
+                && !candidates.contains(shortCode)) {
+            candidates.add(shortCode);
+        }
+    }
+
+    /**
+     * Looks up the redirect target of a hot short code.
+     *
+     * @param shortCode the short code to resolve
+     * @return an Optional containing the redirect target if the short code is
+     *         hot, empty otherwise
+     */
+    public Optional<RedirectTarget> get(String shortCode) {
+        RedirectTarget target = hotTargets.get(shortCode);
+        if (target != null) {
+            hits.increment();
+        }
+        return Optional.ofNullable(target);
+    }
+
+    /**
+     * Removes a short code from the hot map until the next refresh.
+     * Must be called whenever the URL or redirect policy behind a short code
+     * changes, or the URL is deleted.
+     *
+     * @param shortCode the short code to evict
+     */
+    public void evict(String shortCode) {
+        evictedDuringRefresh.add(shortCode);
+        hotTargets.remove(shortCode);
+    }
+
+    /**
+     * Returns the top short codes as of the last refresh, most requested first.
+     *
+     * @return the heavy hitters
+     */
+    public List<HeavyHitter> topK() {
+        return topK;
+    }
+
+    /**
+     * Ranks the candidates, reloads the hot map and ages the sketch.
+     */
+    @Scheduled(fixedDelayString = "${app.redirect.hot-links.refresh-interval:10s}")
+    public void refresh() {
+        if (!enabled) {
+            return;
+        }
+        refreshLock.lock();
+        try {
+            evictedDuringRefresh.clear();
+            List<HeavyHitter> ranked = candidates.stream()
+                    .map(shortCode -> new HeavyHitter(shortCode, sketch.estimate(shortCode), false))
+                    .sorted(Comparator.comparingLong(HeavyHitter::estimatedHits).reversed())
+                    .toList();
+            ranked.stream()
+                    .skip(maxCandidates)
+                    .forEach(hitter -> candidates.remove(hitter.shortCode()));
+            ranked.stream()
+                    .filter(hitter -> hitter.estimatedHits() == 0)
+                    .forEach(hitter -> candidates.remove(hitter.shortCode()));
+
+            List<HeavyHitter> top = ranked.subList(0, Math.min(size, ranked.size()));
+            admissionThreshold = top.size() == size ? top.get(size - 1).estimatedHits() : 0L;
+
+            List<String> hotCodes = top.stream()
+                    .filter(hitter -> hitter.estimatedHits() >= minHits)
+                    .map(HeavyHitter::shortCode)
+                    .toList();
+            Map<String, RedirectTarget> newHotTargets = new ConcurrentHashMap<>();
+            if (!hotCodes.isEmpty()) {
+                urlScanRepository.findRedirectTargets(hotCodes)
+                        .forEach(target -> newHotTargets.put(target.getShortCode(), target));
+            }
+            hotTargets = newHotTargets;
+            // Drop targets that were changed locally while they were being loaded
+            newHotTargets.keySet().removeAll(evictedDuringRefresh);
+
+            topK = top.stream()
+                    .map(hitter -> new HeavyHitter(hitter.shortCode(), hitter.estimatedHits(),
+                            newHotTargets.containsKey(hitter.shortCode())))
+                    .toList();
+            sketch.halve();
+            log.debug("Ranked {} hot-link candidates, {} short codes are hot", ranked.size(), newHotTargets.size());
+        } finally {
+            refreshLock.unlock();
+        }
+    }
+}
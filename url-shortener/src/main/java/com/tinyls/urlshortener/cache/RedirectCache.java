@@ -0,0 +1,108 @@
+package com.tinyls.urlshortener.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.tinyls.urlshortener.dto.url.RedirectTarget;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * In-process cache of short code to redirect target resolutions.
+ * Used by the redirect path to avoid a database round trip per click.
+ *
+ * The cache is bounded both by size and by time since write. Admission and
+ * eviction are handled by Caffeine's W-TinyLFU policy, which keeps frequently
+ * used links resident even when a scan over many cold codes (e.g. bots walking
+ * sequential short codes) passes through the cache.
+ *
+ * The most requested short codes are served from {@link HotLinks} before the
+ * cache is consulted, so they stay resident regardless of eviction.
+ * Entries not in the cache are looked up in the {@link RedirectSnapshot}, a
+ * memory-mapped tier that keeps redirects served from memory right after a
+ * restart. Snapshot hits are not copied into the cache.
+ *
+ * Hit, miss and eviction statistics are published to the meter registry under
+ * the cache name "redirects" and are available via the actuator metrics
+ * endpoint (e.g. /actuator/metrics/cache.gets?tag=cache:redirects).
+ */
+@Slf4j
+@Component
+public class RedirectCache {
+
+    /**
+     * Name under which cache statistics are published.
+     */
+    public static final String CACHE_NAME = "redirects";
+
+    private final Cache<String, RedirectTarget> cache;
+    private final HotLinks hotLinks;
+    private final RedirectSnapshot snapshot;
+
+    /**
+     * Creates the redirect cache.
+     *
+     * @param maximumSize   the maximum number of cached short codes
+     * @param ttl           how long an entry stays cached after being written
+     * @param hotLinks      the hot-link tier above the cache
+     * @param snapshot      the snapshot tier below the cache
+     * @param meterRegistry the registry used to publish cache statistics
+     */
+    public RedirectCache(
+            @Value("${app.redirect.cache.maximum-size:100000}") long maximumSize,
+            @Value("${app.redirect.cache.ttl:1h}") Duration ttl,
+            HotLinks hotLinks,
+            RedirectSnapshot snapshot,
+            MeterRegistry meterRegistry) {
+        this.hotLinks = hotLinks;
+        this.snapshot = snapshot;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+        log.info("Redirect cache initialized with maximum size {} and TTL {}", maximumSize, ttl);
+    }
+
+    /**
+     * Looks up the redirect target for a short code.
+     *
+     * @param shortCode the short code to resolve
+     * @return an Optional containing the redirect target if hot, cached or in
+     *         the snapshot, empty otherwise
+     */
+    public Optional<RedirectTarget> get(String shortCode) {
+        return hotLinks.get(shortCode)
+                .or(() -> Optional.ofNullable(cache.getIfPresent(shortCode)))
+                .or(() -> snapshot.get(shortCode));
+    }
+
+    /**
+     * Caches the redirect target of a short code.
+     *
+     * @param target the redirect target to cache
+     */
+    public void put(RedirectTarget target) {
+        cache.put(target.getShortCode(), target);
+    }
+
+    /**
+     * Removes a short code from the cache, the hot-link tier and the snapshot
+     * tier.
+     * Must be called whenever the URL or redirect policy behind a short code
+     * changes, or the URL is deleted.
+     *
+     * @param shortCode the short code to evict
+     */
+    public void evict(String shortCode) {
+        cache.invalidate(shortCode);
+        hotLinks.evict(shortCode);
+        snapshot.evict(shortCode);
+    }
+}
@@ -0,0 +1,289 @@
+package com.tinyls.urlshortener.cache;
+
+import com.tinyls.urlshortener.dto.url.RedirectTarget;
+import com.tinyls.urlshortener.repository.UrlScanRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Read-only tier of redirect targets below the live redirect cache, backed by a
+ * memory-mapped snapshot file.
+ *
+ * The snapshot of all redirect targets is written to a local file periodically
+ * and on shutdown, and mapped at startup without parsing, so a restarted
+ * instance serves redirects from memory right away instead of sending every
+ * first lookup to the database.
+ *
+ * Changes made after a snapshot was taken are applied on top of it by a
+ * periodic catch-up: URLs with an ID above the highest one seen, URLs whose
+ * redirect changed (urls.updated_at) and deleted URLs (url_tombstones) since
+ * the last catch-up are kept in a map that takes precedence over the file.
+ * Deleted and locally changed short codes fall through to the database. The map
+ * is trimmed whenever a new snapshot is mapped.
+ *
+ * Snapshots older than the tombstone retention are discarded at startup, since
+ * deletions they miss can no longer be caught up with.
+ */
+@Slf4j
+@Component
+public class RedirectSnapshot {
+
+    private final UrlScanRepository urlScanRepository;
+    private final boolean enabled;
+    private final Path path;
+    private final Duration maxAge;
+    private final Duration catchUpOverlap;
+    private final Counter hits;
+
+    /**
+     * Changes since the snapshot was taken, keyed by short code. A null target
+     * marks a short code that must be looked up in the database.
+     */
+    private final Map<String, Change> changes = new ConcurrentHashMap<>();
+    private final AtomicLong changeSequence = new AtomicLong();
+
+    private final ReentrantLock catchUpLock = new ReentrantLock();
+    private final ReentrantLock writeLock = new ReentrantLock();
+
+    private volatile RedirectSnapshotFile file;
+    private long catchUpAfterId;
+    private Instant catchUpSince;
+    private boolean caughtUp;
+
+    /**
+     * Creates the redirect snapshot tier.
+     *
+     * @param urlScanRepository the repository used to scan redirect targets
+     * @param enabled           whether snapshots are written and used
+     * @param path              the snapshot file
+     * @param maxAge            the oldest snapshot that is used at startup, which
+     *                          is also how long tombstones are kept
+     * @param catchUpOverlap    how far each catch-up reaches back before the
+     *                          previous one, to pick up transactions that
+     *                          committed late
+     * @param meterRegistry     the registry used to publish statistics
+     */
+    public RedirectSnapshot(
+            UrlScanRepository urlScanRepository,
+            @Value("${app.redirect.snapshot.enabled:true}") boolean enabled,
+            @Value("${app.redirect.snapshot.path:data/redirect-snapshot.bin}") Path path,
+            @Value("${app.redirect.snapshot.max-age:7d}") Duration maxAge,
+            @Value("${app.redirect.snapshot.catch-up-overlap:1m}") Duration catchUpOverlap,
+            MeterRegistry meterRegistry) {
+        this.urlScanRepository = urlScanRepository;
+        this.enabled = enabled;
+        this.path = path;
+        this.maxAge = maxAge;
+        this.catchUpOverlap = catchUpOverlap;
+        this.hits = Counter.builder("tinyls.redirect.snapshot.hits")
+                .description("Redirects resolved from the redirect snapshot")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Maps the snapshot file left by a previous run, if there is a usable one.
+     */
+    @PostConstruct
+    public void load() {
+        if (!enabled || !Files.exists(path)) {
+            return;
+        }
+        long startedAt = System.nanoTime();
+        try {
+            RedirectSnapshotFile snapshot = RedirectSnapshotFile.open(path);
+            if (snapshot.changeMarker().isBefore(Instant.now().minus(maxAge))) {
+                log.warn("Ignoring redirect snapshot {} taken at {}, older than {}",
+                        path, snapshot.changeMarker(), maxAge);
+                return;
+            }
+            catchUpLock.lock();
+            try {
+                file = snapshot;
+                catchUpAfterId = snapshot.lastId();
+                catchUpSince = snapshot.changeMarker();
+            } finally {
+                catchUpLock.unlock();
+            }
+            log.info("Mapped redirect snapshot with {} entries taken at {} in {} ms",
+                    snapshot.entryCount(), snapshot.changeMarker(),
+                    Duration.ofNanos(System.nanoTime() - startedAt).toMillis());
+        } catch (IOException | IllegalArgumentException e) {
+            log.warn("Ignoring unreadable redirect snapshot {}", path, e);
+        }
+    }
+
+    /**
+     * Looks up the redirect target of a short code in the snapshot.
+     *
+     * @param shortCode the short code to resolve
+     * @return an Optional containing the redirect target if the snapshot holds
+     *         an up-to-date one, empty otherwise
+     */
+    public Optional<RedirectTarget> get(String shortCode) {
+        if (!enabled) {
+            return Optional.empty();
+        }
+        Change change = changes.get(shortCode);
+        RedirectTarget target;
+        if (change != null) {
+            target = change.target();
+        } else {
+            RedirectSnapshotFile snapshot = file;
+            target = snapshot != null ? snapshot.get(shortCode) : null;
+        }
+        if (target != null) {
+            hits.increment();
+        }
+        return Optional.ofNullable(target);
+    }
+
+    /**
+     * Marks a short code whose URL was changed or deleted on this instance, so
+     * that it is looked up in the database until the next snapshot.
+     *
+     * @param shortCode the short code to evict
+     */
+    public void evict(String shortCode) {
+        if (enabled) {
+            recordChange(shortCode, null);
+        }
+    }
+
+    /**
+     * Applies URLs created, changed or deleted since the previous catch-up to
+     * the snapshot. Does nothing until a snapshot is mapped.
+     */
+    @Scheduled(fixedDelayString = "${app.redirect.snapshot.catch-up-interval:30s}")
+    public void catchUp() {
+        if (!enabled) {
+            return;
+        }
+        catchUpLock.lock();
+        try {
+            if (catchUpSince == null) {
+                return;
+            }
+            long startedAt = System.nanoTime();
+            Instant since = catchUpSince.minus(catchUpOverlap);
+            long[] highestId = { catchUpAfterId };
+            int[] changed = { 0 };
+            Instant scannedAt = urlScanRepository.scanChangedRedirectTargets(catchUpAfterId, since, target -> {
+                recordChange(target.getShortCode(), target);
+                highestId[0] = Math.max(highestId[0], target.getId());
+                changed[0]++;
+            });
+            List<String> deleted = urlScanRepository.findDeletedShortCodes(since);
+            deleted.forEach(shortCode -> recordChange(shortCode, null));
+            catchUpAfterId = highestId[0];
+            catchUpSince = scannedAt;
+
+            if (!caughtUp) {
+                log.info("Redirect snapshot caught up with {} changed and {} deleted URLs in {} ms",
+                        changed[0], deleted.size(), Duration.ofNanos(System.nanoTime() - startedAt).toMillis());
+                caughtUp = true;
+            }
+        } finally {
+            catchUpLock.unlock();
+        }
+    }
+
+    /**
+     * Writes a new snapshot of all redirect targets and maps it in place of the
+     * current one.
+     */
+    @Scheduled(fixedDelayString = "${app.redirect.snapshot.write-interval:10m}",
+            initialDelayString = "${app.redirect.snapshot.write-interval:10m}")
+    public void write() {
+        if (!enabled) {
+            return;
+        }
+        writeLock.lock();
+        try {
+            long startedAt = System.nanoTime();
+            // Changes recorded before the scan starts are contained in the new snapshot
+            long changeCutoff = changeSequence.get();
+            RedirectSnapshotFile snapshot;
+            try (RedirectSnapshotFile.Writer writer = new RedirectSnapshotFile.Writer(path)) {
+                Instant changeMarker = urlScanRepository.scanRedirectTargets(target -> {
+                    try {
+                        writer.add(target);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+                writer.commit(changeMarker);
+                snapshot = RedirectSnapshotFile.open(path);
+            } catch (IOException | RuntimeException e) {
+                log.error("Failed to write redirect snapshot {}", path, e);
+                return;
+            }
+
+            catchUpLock.lock();
+            try {
+                file = snapshot;
+                changes.values().removeIf(change -> change.sequence() <= changeCutoff);
+                if (catchUpSince == null) {
+                    catchUpAfterId = snapshot.lastId();
+                    catchUpSince = snapshot.changeMarker();
+                }
+            } finally {
+                catchUpLock.unlock();
+            }
+            log.info("Wrote redirect snapshot with {} entries in {} ms", snapshot.entryCount(),
+                    Duration.ofNanos(System.nanoTime() - startedAt).toMillis());
+        } finally {
+            writeLock.unlock();
+        }
+        // Re-apply changes that committed while the snapshot was being written
+        catchUp();
+    }
+
+    /**
+     * Writes a final snapshot for the next start.
+     */
+    @PreDestroy
+    public void writeOnShutdown() {
+        write();
+    }
+
+    /**
+     * Removes tombstones older than the maximum snapshot age.
+     */
+    @Scheduled(fixedDelayString = "${app.redirect.snapshot.tombstone-purge-interval:1h}")
+    public void purgeTombstones() {
+        int purged = urlScanRepository.purgeTombstones(maxAge);
+        if (purged > 0) {
+            log.debug("Purged {} URL tombstones older than {}", purged, maxAge);
+        }
+    }
+
+    private void recordChange(String shortCode, RedirectTarget target) {
+        changes.put(shortCode, new Change(target, changeSequence.incrementAndGet()));
+    }
+
+    /**
+     * A redirect target that changed after the snapshot was taken, or null if
+     * the short code must be looked up in the database.
+     */
+    private record Change(RedirectTarget target, long sequence) {
+    }
+}
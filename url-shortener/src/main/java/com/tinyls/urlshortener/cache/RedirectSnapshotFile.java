@@ -0,0 +1,299 @@
+package com.tinyls.urlshortener.cache;
+
+import com.tinyls.urlshortener.dto.url.RedirectTarget;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+
+/**
+ * Read-only, memory-mapped file of redirect targets keyed by short code.
+ *
+ * Layout (big-endian):
+ * - header: magic, version, entry count, slot count, slot table offset (ints),
+ * highest URL ID and change marker in epoch milliseconds (longs)
+ * - records: ID (long), redirect status (short), cache max age (int), exact
+ * clicks (byte), short code length (byte) and bytes, original URL length
+ * (unsigned short) and bytes
+ * - slot table: an open-addressing hash table of record offsets (ints, 0 for
+ * empty slots) indexed by a hash of the short code, probed linearly
+ *
+ * Opening a snapshot only maps the file and checks the header; records are
+ * decoded on lookup, so the file is usable immediately and its pages are loaded
+ * by the operating system as they are touched. A snapshot is limited to 2 GB.
+ */
+final class RedirectSnapshotFile {
+
+    private static final int MAGIC = 0x544C5352; // "TLSR"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 40;
+    private static final int EMPTY_SLOT = 0;
+    private static final double MAX_LOAD_FACTOR = 0.7;
+
+    private final MappedByteBuffer buffer;
+    private final int entryCount;
+    private final int slotMask;
+    private final int slotTableOffset;
+    private final long lastId;
+    private final Instant changeMarker;
+
+    private RedirectSnapshotFile(MappedByteBuffer buffer) {
+        if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+            throw new IllegalArgumentException("Not a redirect snapshot or unsupported version");
+        }
+        this.buffer = buffer;
+        this.entryCount = buffer.getInt(8);
+        int slotCount = buffer.getInt(12);
+        this.slotTableOffset = buffer.getInt(16);
+        this.lastId = buffer.getLong(24);
+        this.changeMarker = Instant.ofEpochMilli(buffer.getLong(32));
+        if (Integer.bitCount(slotCount) != 1 || (long) slotTableOffset + 4L * slotCount > buffer.capacity()) {
+            throw new IllegalArgumentException("Corrupt redirect snapshot slot table");
+        }
+        this.slotMask = slotCount - 1;
+    }
+
+    /**
+     * Maps a snapshot file.
+     *
+     * @param path the snapshot file
+     * @return the mapped snapshot
+     * @throws IOException              if the file cannot be read
+     * @throws IllegalArgumentException if the file is not a valid snapshot
+     */
+    static RedirectSnapshotFile open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() < HEADER_SIZE || channel.size() > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("Invalid redirect snapshot size: " + channel.size());
+            }
+            // The mapping stays valid after the channel is closed
+            return new RedirectSnapshotFile(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    /**
+     * Looks up the redirect target of a short code.
+     *
+     * @param shortCode the short code
+     * @return the redirect target, or null if the snapshot does not contain it
+     */
+    RedirectTarget get(String shortCode) {
+        byte[] code = shortCode.getBytes(StandardCharsets.UTF_8);
+        int slot = hash(code, 0, code.length) & slotMask;
+        while (true) {
+            int offset = buffer.getInt(slotTableOffset + slot * 4);
+            if (offset == EMPTY_SLOT) {
+                return null;
+            }
+            if (codeEquals(offset, code)) {
+                return decode(offset, shortCode);
+            }
+            slot = (slot + 1) & slotMask;
+        }
+    }
+
+    /**
+     * Returns the number of redirect targets in the snapshot.
+     *
+     * @return the number of entries
+     */
+    int entryCount() {
+        return entryCount;
+    }
+
+    /**
+     * Returns the highest URL ID contained in the snapshot.
+     *
+     * @return the highest ID, or 0 if the snapshot is empty
+     */
+    long lastId() {
+        return lastId;
+    }
+
+    /**
+     * Returns the database time the snapshot reflects.
+     *
+     * @return the change marker
+     */
+    Instant changeMarker() {
+        return changeMarker;
+    }
+
+    private boolean codeEquals(int offset, byte[] code) {
+        int codeLength = buffer.get(offset + 15) & 0xFF;
+        if (codeLength != code.length) {
+            return false;
+        }
+        for (int i = 0; i < codeLength; i++) {
+            if (buffer.get(offset + 16 + i) != code[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private RedirectTarget decode(int offset, String shortCode) {
+        int urlLengthOffset = offset + 16 + (buffer.get(offset + 15) & 0xFF);
+        byte[] url = new byte[buffer.getShort(urlLengthOffset) & 0xFFFF];
+        buffer.get(urlLengthOffset + 2, url);
+        return RedirectTarget.builder()
+                .id(buffer.getLong(offset))
+                .shortCode(shortCode)
+                .originalUrl(new String(url, StandardCharsets.UTF_8))
+                .redirectStatus(buffer.getShort(offset + 8))
+                .cacheMaxAge(buffer.getInt(offset + 10))
+                .exactClicks(buffer.get(offset + 14) != 0)
+                .build();
+    }
+
+    /**
+     * 32-bit FNV-1a hash of a byte range, finalized with a mixing step.
+     */
+    private static int hash(byte[] bytes, int from, int to) {
+        int hash = 0x811c9dc5;
+        for (int i = from; i < to; i++) {
+            hash ^= bytes[i] & 0xFF;
+            hash *= 0x01000193;
+        }
+        hash ^= hash >>> 16;
+        hash *= 0x85ebca6b;
+        hash ^= hash >>> 13;
+        return hash;
+    }
+
+    /**
+     * Writes a snapshot to a temporary file and moves it into place once it is
+     * complete, so readers never see a partial snapshot.
+     */
+    static final class Writer implements AutoCloseable {
+        private final Path path;
+        private final Path tempPath;
+        private final FileChannel channel;
+        private final ByteBuffer writeBuffer = ByteBuffer.allocate(1 << 16);
+        private long position = HEADER_SIZE;
+        private int entryCount;
+        private long lastId;
+        private boolean committed;
+
+        /**
+         * Starts writing a snapshot.
+         *
+         * @param path the final snapshot file
+         * @throws IOException if the temporary file cannot be created
+         */
+        Writer(Path path) throws IOException {
+            this.path = path;
+            this.tempPath = path.resolveSibling(path.getFileName() + ".tmp");
+            if (path.getParent() != null) {
+                Files.createDirectories(path.getParent());
+            }
+            this.channel = FileChannel.open(tempPath, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            this.channel.position(HEADER_SIZE);
+        }
+
+        /**
+         * Appends a redirect target.
+         *
+         * @param target the redirect target
+         * @throws IOException           if writing fails
+         * @throws IllegalStateException if the snapshot would exceed 2 GB
+         */
+        void add(RedirectTarget target) throws IOException {
+            byte[] code = target.getShortCode().getBytes(StandardCharsets.UTF_8);
+            byte[] url = target.getOriginalUrl().getBytes(StandardCharsets.UTF_8);
+            int recordSize = 18 + code.length + url.length;
+            if (position + recordSize > Integer.MAX_VALUE) {
+                throw new IllegalStateException("Redirect snapshot exceeds the maximum size");
+            }
+            if (writeBuffer.remaining() < recordSize) {
+                flush();
+            }
+            writeBuffer.putLong(target.getId())
+                    .putShort((short) target.getRedirectStatus())
+                    .putInt(target.getCacheMaxAge())
+                    .put((byte) (target.isExactClicks() ? 1 : 0))
+                    .put((byte) code.length)
+                    .put(code)
+                    .putShort((short) url.length)
+                    .put(url);
+            position += recordSize;
+            entryCount++;
+            lastId = Math.max(lastId, target.getId());
+        }
+
+        /**
+         * Builds the slot table, writes the header and moves the snapshot into
+         * place.
+         *
+         * @param changeMarker the database time the snapshot reflects
+         * @throws IOException if writing fails
+         */
+        void commit(Instant changeMarker) throws IOException {
+            flush();
+            int dataEnd = (int) position;
+            int slotTableOffset = (dataEnd + 3) & ~3;
+            int minimumSlots = Math.max(2, (int) Math.ceil(entryCount / MAX_LOAD_FACTOR));
+            int slotCount = Integer.highestOneBit(minimumSlots - 1) << 1;
+            long fileSize = slotTableOffset + 4L * slotCount;
+            if (fileSize > Integer.MAX_VALUE) {
+                throw new IllegalStateException("Redirect snapshot exceeds the maximum size");
+            }
+
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_WRITE, 0, fileSize);
+            mapped.putInt(0, MAGIC)
+                    .putInt(4, VERSION)
+                    .putInt(8, entryCount)
+                    .putInt(12, slotCount)
+                    .putInt(16, slotTableOffset)
+                    .putLong(24, lastId)
+                    .putLong(32, changeMarker.toEpochMilli());
+
+            // Index the records in place; newly extended file regions read as zero
+            int slotMask = slotCount - 1;
+            byte[] code = new byte[255];
+            for (int offset = HEADER_SIZE; offset < dataEnd;) {
+                int codeLength = mapped.get(offset + 15) & 0xFF;
+                mapped.get(offset + 16, code, 0, codeLength);
+                int slot = hash(code, 0, codeLength) & slotMask;
+                while (mapped.getInt(slotTableOffset + slot * 4) != EMPTY_SLOT) {
+                    slot = (slot + 1) & slotMask;
+                }
+                mapped.putInt(slotTableOffset + slot * 4, offset);
+                int urlLength = mapped.getShort(offset + 16 + codeLength) & 0xFFFF;
+                offset += 18 + codeLength + urlLength;
+            }
+            mapped.force();
+            channel.close();
+
+            Files.move(tempPath, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            committed = true;
+        }
+
+        private void flush() throws IOException {
+            writeBuffer.flip();
+            while (writeBuffer.hasRemaining()) {
+                channel.write(writeBuffer);
+            }
+            writeBuffer.clear();
+        }
+
+        /**
+         * Discards the temporary file unless the snapshot was committed.
+         */
+        @Override
+        public void close() throws IOException {
+            if (!committed) {
+                channel.close();
+                Files.deleteIfExists(tempPath);
+            }
+        }
+    }
+}
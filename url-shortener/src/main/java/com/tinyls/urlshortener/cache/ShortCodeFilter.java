@@ -0,0 +1,246 @@
+package com.tinyls.urlshortener.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.tinyls.urlshortener.ids.UrlIdAllocator;
+import com.tinyls.urlshortener.repository.UrlScanRepository;
+import com.tinyls.urlshortener.util.Base62;
+import com.tinyls.urlshortener.util.BloomFilter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * Fast reject path for short codes that do not exist.
+ *
+ * A short code is rejected without a database query if:
+ * - it is not a valid Base62 string,
+ * - it was recently looked up and not found (TTL-bounded miss cache), or
+ * - it is absent from a Bloom filter of all issued short codes.
+ *
+ * The Bloom filter is built by scanning the urls table at startup and then kept
+ * up to date by URLs created on this instance and by a periodic catch-up scan
+ * for URLs created on other instances. Since a Bloom filter cannot forget,
+ * deleted codes stay in it and are answered by the miss cache instead.
+ *
+ * A Bloom filter answer is only trusted for generated short codes whose ID is
+ * at or below the "settled" ceiling: the highest ID seen by an earlier catch-up
+ * scan that completed at least one ID lease plus the longest creation
+ * transaction before the latest scan started, and before the latest scan
+ * itself. Instances hand out IDs from leased blocks (see {@link
+ * UrlIdAllocator}), so a URL with an ID below the highest scanned one may
+ * still be taken until its block's lease expires, and its row only becomes
+ * visible once the creating transaction (possibly a bulk insert or a group
+ * commit) has committed. Rows below the ceiling that were not yet committed
+ * at one scan are therefore picked up by a later one, so a code that was just
+ * created on another instance is never rejected.
+ */
+@Slf4j
+@Component
+public class ShortCodeFilter {
+
+    /**
+     * Name under which miss cache statistics are published.
+     */
+    public static final String MISS_CACHE_NAME = "redirect-misses";
+
+    private final UrlScanRepository urlScanRepository;
+    private final BloomFilter issuedCodes;
+    private final long expectedInsertions;
+    private final Cache<String, Boolean> recentMisses;
+    private final Counter rejections;
+    private final long settleDelayNanos;
+    private final Deque<ScanMark> scanMarks = new ArrayDeque<>();
+
+    private volatile boolean ready;
+    private volatile long settledCeiling = -1L;
+    private long highestScannedId;
+    private long scannedCodes;
+
+    /**
+     * Creates the short code filter.
+     *
+     * @param urlScanRepository        the repository used to scan issued codes
+     * @param expectedInsertions       the number of short codes the Bloom filter
+     *                                 is sized for
+     * @param falsePositiveProbability the Bloom filter's false positive
+     *                                 probability at the expected size
+     * @param missCacheMaximumSize     the maximum number of cached misses
+     * @param missCacheTtl             how long a miss stays cached
+     * @param urlIdAllocator           the allocator whose ID leases bound when
+     *                                 a scanned ID range is complete
+     * @param maxTransactionDuration   the longest time between taking an ID
+     *                                 and committing its URL
+     * @param meterRegistry            the registry used to publish statistics
+     */
+    public ShortCodeFilter(
+            UrlScanRepository urlScanRepository,
+            @Value("${app.redirect.known-codes.expected-insertions:10000000}") long expectedInsertions,
+            @Value("${app.redirect.known-codes.false-positive-probability:0.01}") double falsePositiveProbability,
+            @Value("${app.redirect.miss-cache.maximum-size:10000}") long missCacheMaximumSize,
+            @Value("${app.redirect.miss-cache.ttl:1m}") Duration missCacheTtl,
+            UrlIdAllocator urlIdAllocator,
+            @Value("${app.redirect.known-codes.max-transaction-duration:5m}") Duration maxTransactionDuration,
+            MeterRegistry meterRegistry) {
+        this.urlScanRepository = urlScanRepository;
+        this.issuedCodes = new BloomFilter(expectedInsertions, falsePositiveProbability);
+        this.expectedInsertions = expectedInsertions;
+        this.settleDelayNanos = urlIdAllocator.leaseDuration().plus(maxTransactionDuration).toNanos();
+        this.recentMisses = Caffeine.newBuilder()
+                .maximumSize(missCacheMaximumSize)
+                .expireAfterWrite(missCacheTtl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, recentMisses, MISS_CACHE_NAME);
+        this.rejections = Counter.builder("tinyls.redirect.rejections")
+                .description("Redirects answered with 404 without a database query")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Checks if a short code might belong to a URL.
+     *
+     * @param shortCode the short code to check
+     * @return false if the short code certainly does not exist, true otherwise
+     */
+    public boolean mightExist(String shortCode) {
+        boolean mightExist = Base62.isValid(shortCode)
+                && recentMisses.getIfPresent(shortCode) == null
+                && (!isSettled(shortCode) || issuedCodes.mightContain(shortCode));
+        if (!mightExist) {
+            rejections.increment();
+        }
+        return mightExist;
+    }
+
+    /**
+     * Checks if a short code is known to have no URL, because a recent lookup
+     * missed or its URL was deleted. Unlike {@link #mightExist(String)}, this
+     * is not a redirect and is not counted as a rejection.
+     *
+     * @param shortCode the short code to check
+     * @return true if the short code is in the miss cache
+     */
+    public boolean isKnownDeleted(String shortCode) {
+        return recentMisses.getIfPresent(shortCode) != null;
+    }
+
+    /**
+     * Records a short code that was issued by this instance.
+     *
+     * @param shortCode the new short code
+     */
+    public void add(String shortCode) {
+        issuedCodes.add(shortCode);
+        recentMisses.invalidate(shortCode);
+    }
+
+    /**
+     * Records a database lookup that found no URL for the short code, so that
+     * repeated lookups are rejected until the miss expires. Codes that might
+     * still be created by another instance are not cached.
+     *
+     * @param shortCode the short code that was not found
+     */
+    public void recordMiss(String shortCode) {
+        if (isSettled(shortCode)) {
+            recentMisses.put(shortCode, Boolean.TRUE);
+        }
+    }
+
+    /**
+     * Records a short code whose URL was deleted.
+     *
+     * @param shortCode the deleted short code
+     */
+    public void markDeleted(String shortCode) {
+        recordMiss(shortCode);
+    }
+
+    /**
+     * Adds short codes created since the last scan to the Bloom filter.
+     * The first run scans the whole table; until it completes, every valid
+     * short code is let through. Later runs scan the whole table again until
+     * an earlier scan completed at least one ID lease and the longest creation
+     * transaction ago, since there is no earlier scan bounding which rows were
+     * still uncommitted before that.
+     */
+    @Scheduled(fixedDelayString = "${app.redirect.known-codes.refresh-interval:30s}")
+    public void refresh() {
+        long scanFrom = Math.max(settledCeiling, 0L);
+        long startedAt = System.nanoTime();
+        long previousHighest = highestScannedId;
+        long[] newCodes = { 0L };
+        long highest = urlScanRepository.scanShortCodes(scanFrom, (id, shortCode) -> {
+            issuedCodes.add(shortCode);
+            if (id > previousHighest) {
+                newCodes[0]++;
+            }
+        });
+        scannedCodes += newCodes[0];
+
+        if (!ready) {
+            log.info("Loaded {} issued short codes into the Bloom filter in {} ms",
+                    scannedCodes, Duration.ofNanos(System.nanoTime() - startedAt).toMillis());
+            ready = true;
+        } else {
+            settle(startedAt);
+        }
+        highestScannedId = Math.max(previousHighest, highest);
+        scanMarks.addLast(new ScanMark(System.nanoTime(), highestScannedId));
+
+        if (scannedCodes > expectedInsertions) {
+            log.warn("Bloom filter holds {} short codes but is sized for {}; false positive rate is degrading",
+                    scannedCodes, expectedInsertions);
+        }
+    }
+
+    /**
+     * Raises the settled ceiling to the highest ID of the latest earlier scan
+     * that completed at least one ID lease plus the longest creation
+     * transaction before this scan started. All IDs up to it were leased
+     * before that scan completed, so they were handed out within one lease
+     * and committed within one transaction after it, before this scan started,
+     * and have now been seen by this scan.
+     */
+    private void settle(long scanStartedAt) {
+        long cutoff = scanStartedAt - settleDelayNanos;
+        ScanMark settled = null;
+        while (!scanMarks.isEmpty() && cutoff - scanMarks.peekFirst().completedAt() >= 0) {
+            settled = scanMarks.removeFirst();
+        }
+        if (settled != null) {
+            settledCeiling = Math.max(settledCeiling, settled.highestId());
+        }
+    }
+
+    /**
+     * Checks if the Bloom filter and miss cache are authoritative for a short
+     * code, i.e. a URL with this code cannot appear without this instance
+     * scanning it first.
+     */
+    private boolean isSettled(String shortCode) {
+        if (!ready) {
+            return false;
+        }
+        if (!Base62.isCanonical(shortCode)) {
+            // Not derived from an ID; only ever issued by earlier code
+            return true;
+        }
+        return Base62.decode(shortCode) <= settledCeiling;
+    }
+
+    /**
+     * The highest ID seen by a completed scan.
+     */
+    private record ScanMark(long completedAt, long highestId) {
+    }
+}
@@ -0,0 +1,46 @@
+package com.tinyls.urlshortener.clicks;
+
+/**
+ * Enum representing the browser family a click came from.
+ */
+public enum Browser {
+    /**
+     * Google Chrome and other Chromium browsers without a family of their own.
+     */
+    CHROME,
+
+    /**
+     * Microsoft Edge (Chromium and legacy).
+     */
+    EDGE,
+
+    /**
+     * Mozilla Firefox.
+     */
+    FIREFOX,
+
+    /**
+     * Apple Safari and other WebKit browsers.
+     */
+    SAFARI,
+
+    /**
+     * Opera.
+     */
+    OPERA,
+
+    /**
+     * Samsung Internet.
+     */
+    SAMSUNG,
+
+    /**
+     * Microsoft Internet Explorer.
+     */
+    INTERNET_EXPLORER,
+
+    /**
+     * Bots, apps and browsers that could not be classified.
+     */
+    OTHER
+}
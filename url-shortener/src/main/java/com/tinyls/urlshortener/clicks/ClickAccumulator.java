@@ -0,0 +1,125 @@
+package com.tinyls.urlshortener.clicks;
+
+import com.tinyls.urlshortener.repository.ClickCountRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Write-behind accumulator for redirect clicks.
+ *
+ * Redirects record a click by incrementing a per-short-code {@link LongAdder},
+ * which is striped internally and never blocks. A scheduled flush writes the
+ * accumulated deltas with one batched relative UPDATE per interval, and the
+ * remaining deltas are drained when the application shuts down. Striped URLs
+ * are written to this instance's stripe, see {@link ClickStripes}.
+ *
+ * Flushing swaps in a fresh counter map instead of removing entries, so an
+ * increment can never be lost to a concurrent removal. The swapped-out map is
+ * read once more on the following flush to pick up increments from threads
+ * that still held a reference to it.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ClickAccumulator {
+
+    private final ClickCountRepository clickCountRepository;
+
+    private final ClickStripes clickStripes;
+
+    private final ReentrantLock flushLock = new ReentrantLock();
+
+    private volatile Map<String, LongAdder> active = new ConcurrentHashMap<>();
+
+    private volatile Map<String, LongAdder> draining = new ConcurrentHashMap<>();
+
+    /**
+     * Records one click for a short code.
+     *
+     * @param shortCode the short code that was clicked
+     */
+    public void increment(String shortCode) {
+        add(shortCode, 1L);
+    }
+
+    /**
+     * Returns the number of clicks recorded for a short code that have not been
+     * written to the database yet.
+     *
+     * @param shortCode the short code
+     * @return the pending click delta
+     */
+    public long pending(String shortCode) {
+        return sum(active.get(shortCode)) + sum(draining.get(shortCode));
+    }
+
+    /**
+     * Writes all pending click deltas to the database.
+     * Runs on a fixed delay; on failure the deltas are put back and retried on
+     * the next run.
+     */
+    @Scheduled(fixedDelayString = "${app.clicks.flush-interval:5s}")
+    public void flush() {
+        flushLock.lock();
+        try {
+            Map<String, LongAdder> retired = draining;
+            draining = active;
+            active = new ConcurrentHashMap<>();
+
+            // Sorted so that concurrent flushes from several instances lock rows
+            // in the same order
+            Map<String, Long> deltas = new TreeMap<>();
+            collect(draining, deltas);
+            collect(retired, deltas);
+            if (deltas.isEmpty()) {
+                return;
+            }
+
+            try {
+                clickCountRepository.addClicks(deltas, clickStripes::stripe);
+                log.debug("Flushed clicks for {} short codes", deltas.size());
+            } catch (RuntimeException e) {
+                log.error("Failed to flush clicks for {} short codes, will retry", deltas.size(), e);
+                deltas.forEach(this::add);
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    /**
+     * Drains all pending clicks before the application shuts down.
+     */
+    @PreDestroy
+    public void drain() {
+        log.info("Draining pending clicks");
+        flush();
+        flush();
+    }
+
+    private void add(String shortCode, long delta) {
+        active.computeIfAbsent(shortCode, key -> new LongAdder()).add(delta);
+    }
+
+    private static void collect(Map<String, LongAdder> counters, Map<String, Long> deltas) {
+        counters.forEach((shortCode, counter) -> {
+            long delta = counter.sumThenReset();
+            if (delta != 0) {
+                deltas.merge(shortCode, delta, Long::sum);
+            }
+        });
+    }
+
+    private static long sum(LongAdder counter) {
+        return counter == null ? 0L : counter.sum();
+    }
+}
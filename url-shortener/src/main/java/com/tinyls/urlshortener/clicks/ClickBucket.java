@@ -0,0 +1,22 @@
+package com.tinyls.urlshortener.clicks;
+
+import java.time.Instant;
+import java.util.Comparator;
+
+/**
+ * A rollup bucket: one URL during one time bucket.
+ * Ordered by URL and then time, the order in which rollup rows are locked.
+ *
+ * @param urlId the ID of the URL
+ * @param start the start of the time bucket
+ */
+public record ClickBucket(long urlId, Instant start) implements Comparable<ClickBucket> {
+
+    private static final Comparator<ClickBucket> ORDER = Comparator.comparingLong(ClickBucket::urlId)
+            .thenComparing(ClickBucket::start);
+
+    @Override
+    public int compareTo(ClickBucket other) {
+        return ORDER.compare(this, other);
+    }
+}
@@ -0,0 +1,65 @@
+package com.tinyls.urlshortener.clicks;
+
+import com.tinyls.urlshortener.util.HyperLogLog;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.Builder;
+import lombok.Value;
+import lombok.With;
+import org.springframework.http.HttpHeaders;
+
+/**
+ * Request details of a redirect that are recorded with the click.
+ */
+@Value
+@Builder
+public class ClickContext {
+    /**
+     * Empty context, for clicks without request details.
+     */
+    public static final ClickContext EMPTY = ClickContext.builder().build();
+
+    /**
+     * The Referer header of the request, if any.
+     */
+    String referrer;
+
+    /**
+     * The User-Agent header of the request, if any.
+     */
+    String userAgent;
+
+    /**
+     * The client IP address (after forwarded headers are applied).
+     */
+    String ipAddress;
+
+    /**
+     * The ISO 3166-1 alpha-2 country of the client, if known.
+     */
+    @With
+    String country;
+
+    /**
+     * Returns the hash identifying the visitor for unique visitor estimates,
+     * derived from the client IP address and User-Agent.
+     *
+     * @return the visitor hash
+     */
+    public long visitorHash() {
+        return HyperLogLog.hash(ipAddress + '\n' + userAgent);
+    }
+
+    /**
+     * Extracts the click context from a redirect request.
+     *
+     * @param request the HTTP request
+     * @return the click context
+     */
+    public static ClickContext from(HttpServletRequest request) {
+        return ClickContext.builder()
+                .referrer(request.getHeader(HttpHeaders.REFERER))
+                .userAgent(request.getHeader(HttpHeaders.USER_AGENT))
+                .ipAddress(request.getRemoteAddr())
+                .build();
+    }
+}
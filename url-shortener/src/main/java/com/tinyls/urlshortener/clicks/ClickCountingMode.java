@@ -0,0 +1,24 @@
+package com.tinyls.urlshortener.clicks;
+
+/**
+ * Enum representing how redirects update the click count of a URL.
+ * Selected per deployment with the app.clicks.mode property.
+ */
+public enum ClickCountingMode {
+    /**
+     * Each redirect issues its own UPDATE of the click count.
+     */
+    DIRECT,
+
+    /**
+     * Redirects only increment an in-memory counter; deltas are written to the
+     * database in batches by {@link ClickAccumulator}.
+     */
+    BUFFERED,
+
+    /**
+     * Each redirect resolves the URL and increments its click count in one
+     * UPDATE ... RETURNING statement, bypassing the redirect cache.
+     */
+    ATOMIC
+}
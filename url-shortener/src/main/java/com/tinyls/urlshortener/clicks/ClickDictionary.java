@@ -0,0 +1,102 @@
+package com.tinyls.urlshortener.clicks;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.tinyls.urlshortener.repository.ClickDimensionRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalInt;
+
+/**
+ * In-process cache of the click dimension dictionary, mapping dimension values
+ * to their small integer IDs.
+ *
+ * The redirect path only reads the cache and never waits for the database;
+ * values that are not cached yet are interned in batches when dimension
+ * counters are flushed, which also caches them. Dictionary IDs never change,
+ * so cached entries never go stale and are only evicted by size.
+ *
+ * Statistics are published under the cache name "click-dictionary".
+ */
+@Component
+public class ClickDictionary {
+
+    /**
+     * Name under which cache statistics are published.
+     */
+    public static final String CACHE_NAME = "click-dictionary";
+
+    private final ClickDimensionRepository clickDimensionRepository;
+    private final Cache<Entry, Integer> cache;
+
+    /**
+     * Creates the dictionary cache.
+     *
+     * @param clickDimensionRepository the repository values are interned in
+     * @param maximumSize              the maximum number of cached values
+     * @param meterRegistry            the registry used to publish cache
+     *                                 statistics
+     */
+    public ClickDictionary(
+            ClickDimensionRepository clickDimensionRepository,
+            @Value("${app.clicks.dimensions.dictionary-cache-size:100000}") long maximumSize,
+            MeterRegistry meterRegistry) {
+        this.clickDimensionRepository = clickDimensionRepository;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+    }
+
+    /**
+     * Looks up the ID of a dimension value in the cache only.
+     *
+     * @param dimension the dimension
+     * @param value     the value
+     * @return the ID if the value is cached, empty otherwise
+     */
+    public OptionalInt lookup(ClickDimension dimension, String value) {
+        Integer id = cache.getIfPresent(new Entry(dimension, value));
+        return id != null ? OptionalInt.of(id) : OptionalInt.empty();
+    }
+
+    /**
+     * Looks up the IDs of dimension values, interning the values that are not
+     * cached in one round trip.
+     *
+     * @param dimension the dimension
+     * @param values    the values
+     * @return the ID of each value
+     */
+    public Map<String, Integer> resolve(ClickDimension dimension, Collection<String> values) {
+        Map<String, Integer> ids = new HashMap<>();
+        List<String> missing = new ArrayList<>();
+        for (String value : values) {
+            Integer id = cache.getIfPresent(new Entry(dimension, value));
+            if (id != null) {
+                ids.put(value, id);
+            } else {
+                missing.add(value);
+            }
+        }
+        if (!missing.isEmpty()) {
+            clickDimensionRepository.intern(dimension, missing).forEach((value, id) -> {
+                cache.put(new Entry(dimension, value), id);
+                ids.put(value, id);
+            });
+        }
+        return ids;
+    }
+
+    private record Entry(ClickDimension dimension, String value) {
+    }
+}
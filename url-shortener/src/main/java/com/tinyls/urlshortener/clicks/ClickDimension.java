@@ -0,0 +1,58 @@
+package com.tinyls.urlshortener.clicks;
+
+import java.util.Locale;
+
+/**
+ * Enum representing the dimensions clicks are broken down by.
+ * Each dimension is stored as a small integer code in click_dimension_values
+ * and url_click_dimensions.
+ */
+public enum ClickDimension {
+    /**
+     * The registrable domain of the Referer header's host, "(direct)" if
+     * there was none, or "(other)" beyond a link's limit of distinct
+     * referrers.
+     */
+    REFERRER(0),
+
+    /**
+     * The device class derived from the User-Agent, see {@link DeviceClass}.
+     */
+    DEVICE(1),
+
+    /**
+     * The ISO 3166-1 alpha-2 country of the client, or "ZZ" if unknown.
+     */
+    COUNTRY(2),
+
+    /**
+     * The browser family derived from the User-Agent, see {@link Browser}.
+     */
+    BROWSER(3);
+
+    private final short code;
+
+    ClickDimension(int code) {
+        this.code = (short) code;
+    }
+
+    /**
+     * Returns the code the dimension is stored as.
+     *
+     * @return the dimension code
+     */
+    public short code() {
+        return code;
+    }
+
+    /**
+     * Parses a dimension name, ignoring case.
+     *
+     * @param name the dimension name (e.g. "referrer")
+     * @return the dimension
+     * @throws IllegalArgumentException if the name is unknown
+     */
+    public static ClickDimension parse(String name) {
+        return valueOf(name.trim().toUpperCase(Locale.ROOT));
+    }
+}
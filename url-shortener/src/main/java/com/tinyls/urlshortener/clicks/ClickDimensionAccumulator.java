@@ -0,0 +1,358 @@
+package com.tinyls.urlshortener.clicks;
+
+import com.tinyls.urlshortener.repository.ClickDimensionRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.OptionalInt;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Collectors;
+
+/**
+ * Write-behind accumulator for click breakdowns by referrer host, device class,
+ * country and browser.
+ *
+ * Redirects derive the value of each {@link ClickDimension} and increment an
+ * in-memory counter keyed by URL, dimension and dictionary ID, looking the ID
+ * up in the {@link ClickDictionary} cache. Values not cached yet are counted
+ * by value and interned in one batch on the next flush. A scheduled flush
+ * upserts all counter deltas with one JDBC batch.
+ *
+ * Referrers come from the client, so they are bounded before they are
+ * interned: hosts are folded to their registrable domain (e.g.
+ * "l.facebook.com" and "m.facebook.com" to "facebook.com"), and a link counts
+ * at most a fixed number of distinct referrers; clicks from further referrers
+ * are counted under {@link #OTHER_REFERRER}. The limit is checked against the
+ * stored counters on every flush, so concurrent flushes on several instances
+ * may exceed it by the referrers of one flush each.
+ *
+ * Counters are swapped out on flush like in {@link ClickAccumulator}, so an
+ * increment is never lost to a concurrent flush. Deltas of a failed flush are
+ * put back and retried; deltas still in memory when the process dies are lost.
+ */
+@Slf4j
+@Component
+public class ClickDimensionAccumulator {
+
+    /**
+     * Referrer value of clicks without a Referer header.
+     */
+    public static final String DIRECT = "(direct)";
+
+    /**
+     * Referrer value of clicks whose Referer header has no host.
+     */
+    public static final String UNKNOWN_REFERRER = "(unknown)";
+
+    /**
+     * Referrer value of clicks from referrers beyond a link's limit of
+     * distinct referrers.
+     */
+    public static final String OTHER_REFERRER = "(other)";
+
+    /**
+     * Country value of clicks whose country is unknown.
+     */
+    public static final String UNKNOWN_COUNTRY = "ZZ";
+
+    private static final int MAX_VALUE_LENGTH = 255;
+
+    /**
+     * Second-level labels under which country code top-level domains register
+     * names, e.g. "co.uk" or "com.au".
+     */
+    private static final Set<String> SECOND_LEVEL_LABELS = Set.of(
+            "ac", "co", "com", "edu", "gob", "go", "gov", "ltd", "mil", "ne", "net", "nhs", "or", "org", "plc",
+            "sch");
+
+    private final ClickDimensionRepository clickDimensionRepository;
+    private final ClickDictionary clickDictionary;
+    private final boolean enabled;
+    private final int maxReferrersPerLink;
+
+    private final ReentrantLock flushLock = new ReentrantLock();
+
+    private volatile Counters active = new Counters();
+
+    private volatile Counters draining = new Counters();
+
+    /**
+     * Creates the dimension accumulator.
+     *
+     * @param clickDimensionRepository the repository counters are written to
+     * @param clickDictionary          the dictionary of dimension values
+     * @param enabled                  whether clicks are broken down by
+     *                                 dimension
+     * @param maxReferrersPerLink      the number of distinct referrers counted
+     *                                 per link
+     */
+    public ClickDimensionAccumulator(
+            ClickDimensionRepository clickDimensionRepository,
+            ClickDictionary clickDictionary,
+            @Value("${app.clicks.dimensions.enabled:true}") boolean enabled,
+            @Value("${app.clicks.dimensions.max-referrers-per-link:100}") int maxReferrersPerLink) {
+        this.clickDimensionRepository = clickDimensionRepository;
+        this.clickDictionary = clickDictionary;
+        this.enabled = enabled;
+        this.maxReferrersPerLink = maxReferrersPerLink;
+    }
+
+    /**
+     * Records one click for a URL in every dimension.
+     *
+     * @param urlId          the ID of the clicked URL
+     * @param context        the request details of the click
+     * @param userAgentClass the classification of the click's User-Agent
+     */
+    public void increment(long urlId, ClickContext context, UserAgentClass userAgentClass) {
+        if (!enabled) {
+            return;
+        }
+        Counters counters = active;
+        counters.add(clickDictionary, urlId, ClickDimension.REFERRER, referrerHost(context.getReferrer()));
+        counters.add(clickDictionary, urlId, ClickDimension.DEVICE,
+                userAgentClass.deviceClass().name().toLowerCase(Locale.ROOT));
+        counters.add(clickDictionary, urlId, ClickDimension.COUNTRY,
+                context.getCountry() != null ? context.getCountry() : UNKNOWN_COUNTRY);
+        counters.add(clickDictionary, urlId, ClickDimension.BROWSER,
+                userAgentClass.browser().name().toLowerCase(Locale.ROOT));
+    }
+
+    /**
+     * Writes all pending dimension counter deltas to the database.
+     * Runs on a fixed delay; on failure the deltas are put back and retried on
+     * the next run.
+     */
+    @Scheduled(fixedDelayString = "${app.clicks.flush-interval:5s}")
+    public void flush() {
+        flushLock.lock();
+        try {
+            Counters retired = draining;
+            draining = active;
+            active = new Counters();
+
+            SortedMap<ClickDimensionKey, Long> deltas = new TreeMap<>();
+            Map<ValueKey, Long> unresolved = new HashMap<>();
+            draining.collect(deltas, unresolved);
+            retired.collect(deltas, unresolved);
+            if (deltas.isEmpty() && unresolved.isEmpty()) {
+                return;
+            }
+            try {
+                limitReferrers(deltas, unresolved);
+                resolve(unresolved, deltas);
+                clickDimensionRepository.addClicks(deltas);
+                log.debug("Flushed {} click dimension counters", deltas.size());
+            } catch (RuntimeException e) {
+                log.error("Failed to flush {} click dimension counters, will retry", deltas.size(), e);
+                deltas.forEach((key, delta) -> active.resolved.computeIfAbsent(key, k -> new LongAdder()).add(delta));
+                unresolved.forEach((key, delta) -> active.unresolved.computeIfAbsent(key, k -> new LongAdder())
+                        .add(delta));
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    /**
+     * Drains all pending counters before the application shuts down.
+     */
+    @PreDestroy
+    public void drain() {
+        log.info("Draining pending click dimension counters");
+        flush();
+        flush();
+    }
+
+    /**
+     * Deletes the dimension counters of deleted URLs.
+     */
+    @Scheduled(fixedDelayString = "${app.clicks.rollups.purge-interval:1h}")
+    public void purge() {
+        int purged = clickDimensionRepository.purgeDeletedUrls();
+        if (purged > 0) {
+            log.debug("Purged {} click dimension counters of deleted URLs", purged);
+        }
+    }
+
+    /**
+     * Moves the deltas of referrers that are new to a link beyond the link's
+     * limit of distinct referrers to {@link #OTHER_REFERRER}, before they are
+     * interned. Within a link, the new referrers with the most clicks are
+     * kept.
+     */
+    private void limitReferrers(SortedMap<ClickDimensionKey, Long> deltas, Map<ValueKey, Long> unresolved) {
+        Map<Long, List<PendingReferrer>> pendingByUrl = new HashMap<>();
+        deltas.forEach((key, delta) -> {
+            if (key.dimension() == ClickDimension.REFERRER) {
+                pendingByUrl.computeIfAbsent(key.urlId(), urlId -> new ArrayList<>())
+                        .add(new PendingReferrer(key, null, delta));
+            }
+        });
+        unresolved.forEach((key, delta) -> {
+            if (key.dimension() == ClickDimension.REFERRER && !key.value().equals(OTHER_REFERRER)) {
+                pendingByUrl.computeIfAbsent(key.urlId(), urlId -> new ArrayList<>())
+                        .add(new PendingReferrer(null, key, delta));
+            }
+        });
+        if (pendingByUrl.isEmpty()) {
+            return;
+        }
+
+        Map<Long, Map<Integer, String>> counted = clickDimensionRepository.findValues(ClickDimension.REFERRER,
+                pendingByUrl.keySet());
+        pendingByUrl.forEach((urlId, pending) -> {
+            Map<Integer, String> countedValues = counted.getOrDefault(urlId, Map.of());
+            Set<String> countedNames = new HashSet<>(countedValues.values());
+            countedNames.remove(OTHER_REFERRER);
+            List<PendingReferrer> newReferrers = pending.stream()
+                    .filter(referrer -> referrer.resolved() != null
+                            ? !countedValues.containsKey(referrer.resolved().valueId())
+                            : !countedNames.contains(referrer.unresolved().value()))
+                    .sorted(Comparator.comparingLong(PendingReferrer::delta).reversed())
+                    .toList();
+            int room = Math.max(0, maxReferrersPerLink - countedNames.size());
+            for (PendingReferrer referrer : newReferrers.subList(Math.min(room, newReferrers.size()),
+                    newReferrers.size())) {
+                if (referrer.resolved() != null) {
+                    deltas.remove(referrer.resolved());
+                } else {
+                    unresolved.remove(referrer.unresolved());
+                }
+                unresolved.merge(new ValueKey(urlId, ClickDimension.REFERRER, OTHER_REFERRER), referrer.delta(),
+                        Long::sum);
+            }
+        });
+    }
+
+    /**
+     * Moves counters of values without a known ID into the resolved deltas,
+     * interning the values. The unresolved map is only cleared once all
+     * values are resolved, so that a failure leaves no counter in both maps.
+     */
+    private void resolve(Map<ValueKey, Long> unresolved, Map<ClickDimensionKey, Long> deltas) {
+        Map<ClickDimension, Map<String, Integer>> ids = new EnumMap<>(ClickDimension.class);
+        unresolved.keySet().stream()
+                .collect(Collectors.groupingBy(ValueKey::dimension,
+                        Collectors.mapping(ValueKey::value, Collectors.toSet())))
+                .forEach((dimension, values) -> ids.put(dimension, clickDictionary.resolve(dimension, values)));
+        unresolved.forEach((key, delta) -> deltas.merge(
+                new ClickDimensionKey(key.urlId(), key.dimension(), ids.get(key.dimension()).get(key.value())),
+                delta, Long::sum));
+        unresolved.clear();
+    }
+
+    /**
+     * Extracts the registrable domain of a Referer header's host, lower-cased.
+     */
+    static String referrerHost(String referrer) {
+        if (referrer == null || referrer.isBlank()) {
+            return DIRECT;
+        }
+        try {
+            String host = URI.create(referrer.trim()).getHost();
+            if (host == null || host.isEmpty()) {
+                return UNKNOWN_REFERRER;
+            }
+            host = registrableDomain(host.toLowerCase(Locale.ROOT));
+            return host.length() <= MAX_VALUE_LENGTH ? host : host.substring(0, MAX_VALUE_LENGTH);
+        } catch (IllegalArgumentException e) {
+            return UNKNOWN_REFERRER;
+        }
+    }
+
+    /**
+     * Folds a host name to the domain its owner registered: the last two
+     * labels, or the last three under a second-level label of a country code
+     * domain (e.g. "news.bbc.co.uk" to "bbc.co.uk"). IP addresses are kept.
+     * This approximates the public suffix list without shipping it; hosts
+     * under other multi-label suffixes are folded one label too far, which
+     * still bounds the values.
+     */
+    static String registrableDomain(String host) {
+        if (host.endsWith(".")) {
+            host = host.substring(0, host.length() - 1);
+        }
+        if (host.startsWith("[") || host.chars().allMatch(c -> c == '.' || Character.isDigit(c))) {
+            return host;
+        }
+        int last = host.lastIndexOf('.');
+        if (last < 0) {
+            return host;
+        }
+        int second = host.lastIndexOf('.', last - 1);
+        if (second < 0) {
+            return host;
+        }
+        String tld = host.substring(last + 1);
+        String secondLevel = host.substring(second + 1, last);
+        if (tld.length() == 2 && SECOND_LEVEL_LABELS.contains(secondLevel)) {
+            int third = host.lastIndexOf('.', second - 1);
+            return third < 0 ? host : host.substring(third + 1);
+        }
+        return host.substring(second + 1);
+    }
+
+    /**
+     * A pending referrer delta of a link, either resolved or unresolved.
+     */
+    private record PendingReferrer(ClickDimensionKey resolved, ValueKey unresolved, long delta) {
+    }
+
+    /**
+     * A dimension counter whose value has no known dictionary ID yet.
+     */
+    private record ValueKey(long urlId, ClickDimension dimension, String value) {
+    }
+
+    /**
+     * One generation of counters, swapped out as a whole on flush.
+     */
+    private static final class Counters {
+        private final Map<ClickDimensionKey, LongAdder> resolved = new ConcurrentHashMap<>();
+        private final Map<ValueKey, LongAdder> unresolved = new ConcurrentHashMap<>();
+
+        void add(ClickDictionary dictionary, long urlId, ClickDimension dimension, String value) {
+            OptionalInt id = dictionary.lookup(dimension, value);
+            if (id.isPresent()) {
+                resolved.computeIfAbsent(new ClickDimensionKey(urlId, dimension, id.getAsInt()),
+                        key -> new LongAdder()).increment();
+            } else {
+                unresolved.computeIfAbsent(new ValueKey(urlId, dimension, value), key -> new LongAdder())
+                        .increment();
+            }
+        }
+
+        void collect(Map<ClickDimensionKey, Long> deltas, Map<ValueKey, Long> unresolvedDeltas) {
+            resolved.forEach((key, counter) -> {
+                long delta = counter.sumThenReset();
+                if (delta != 0) {
+                    deltas.merge(key, delta, Long::sum);
+                }
+            });
+            unresolved.forEach((key, counter) -> {
+                long delta = counter.sumThenReset();
+                if (delta != 0) {
+                    unresolvedDeltas.merge(key, delta, Long::sum);
+                }
+            });
+        }
+    }
+}
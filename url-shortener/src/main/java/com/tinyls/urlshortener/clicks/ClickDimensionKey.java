@@ -0,0 +1,25 @@
+package com.tinyls.urlshortener.clicks;
+
+import java.util.Comparator;
+
+/**
+ * A dimension counter: one value of one dimension of one URL.
+ * Ordered by URL, dimension and value, the order in which counter rows are
+ * locked.
+ *
+ * @param urlId     the ID of the URL
+ * @param dimension the dimension
+ * @param valueId   the dictionary ID of the dimension value
+ */
+public record ClickDimensionKey(long urlId, ClickDimension dimension, int valueId)
+        implements Comparable<ClickDimensionKey> {
+
+    private static final Comparator<ClickDimensionKey> ORDER = Comparator.comparingLong(ClickDimensionKey::urlId)
+            .thenComparing(key -> key.dimension().code())
+            .thenComparingInt(ClickDimensionKey::valueId);
+
+    @Override
+    public int compareTo(ClickDimensionKey other) {
+        return ORDER.compare(this, other);
+    }
+}
@@ -0,0 +1,40 @@
+package com.tinyls.urlshortener.clicks;
+
+import lombok.Builder;
+import lombok.Value;
+
+import java.time.Instant;
+
+/**
+ * A single redirect, as recorded in the click event log and the url_clicks
+ * table.
+ */
+@Value
+@Builder
+public class ClickEvent {
+    /**
+     * The ID of the clicked URL.
+     */
+    long urlId;
+
+    /**
+     * When the redirect was served.
+     */
+    Instant clickedAt;
+
+    /**
+     * The referrer, truncated; null if the request had none.
+     */
+    String referrer;
+
+    /**
+     * 64-bit hash of the User-Agent header; 0 if the request had none.
+     */
+    long userAgentHash;
+
+    /**
+     * The client network in CIDR notation (IPv4 /24 or IPv6 /48); null if
+     * unknown.
+     */
+    String ipPrefix;
+}
@@ -0,0 +1,501 @@
+package com.tinyls.urlshortener.clicks;
+
+import com.tinyls.urlshortener.repository.ClickEventRepository;
+import com.tinyls.urlshortener.util.Hashing;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Durable, append-only log of click events, drained into the url_clicks table
+ * in batches.
+ *
+ * The redirect path only appends a compact record to a memory-mapped segment
+ * file, so per-click data costs no database write on the request. A background
+ * drainer reads the records and bulk-inserts them, advancing a checkpoint in
+ * the database in the same transaction.
+ *
+ * Segments are preallocated files of a fixed size. When a record does not fit,
+ * the segment is sealed and the next one is created; drained segments are
+ * deleted. Each record carries its length and a CRC32C checksum, which marks
+ * the end of the valid data in a segment that was being written when the
+ * process died.
+ *
+ * Records written to a mapped segment survive a crash of the process; mapped
+ * pages are also forced to disk periodically to survive a crash of the host.
+ * At startup, a new segment is started and the segments left by the previous
+ * run are replayed from the checkpoint. If the database is unavailable for so
+ * long that the maximum number of segments is reached, new events are dropped
+ * and counted instead of blocking redirects.
+ */
+@Slf4j
+@Component
+public class ClickEventLog {
+
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final String LOG_ID_FILE = "log-id";
+
+    private static final int RECORD_HEADER_SIZE = 8;
+    private static final int SEALED = -1;
+    private static final int MAX_REFERRER_LENGTH = 512;
+    private static final int IPV4_PREFIX_BYTES = 3;
+    private static final int IPV6_PREFIX_BYTES = 6;
+
+    private final ClickEventRepository clickEventRepository;
+    private final boolean enabled;
+    private final Path directory;
+    private final int segmentSize;
+    private final int maxSegments;
+    private final int batchSize;
+    private final Counter appended;
+    private final Counter dropped;
+
+    private final ReentrantLock appendLock = new ReentrantLock();
+    private final ReentrantLock drainLock = new ReentrantLock();
+
+    private UUID logId;
+    private volatile Segment active;
+    private volatile long oldestSegment;
+
+    // Drainer state, guarded by drainLock
+    private ClickLogPosition drainPosition;
+    private Segment drainSegment;
+
+    /**
+     * Creates the click event log.
+     *
+     * @param clickEventRepository the repository events are drained into
+     * @param enabled              whether click events are recorded
+     * @param directory            the directory holding the log segments
+     * @param segmentSize          the size of a segment file
+     * @param maxSegments          the maximum number of segments kept on disk
+     * @param batchSize            the maximum number of events per insert
+     * @param meterRegistry        the registry used to publish statistics
+     */
+    public ClickEventLog(
+            ClickEventRepository clickEventRepository,
+            @Value("${app.clicks.events.enabled:true}") boolean enabled,
+            @Value("${app.clicks.events.directory:data/click-log}") Path directory,
+            @Value("${app.clicks.events.segment-size:16MB}") DataSize segmentSize,
+            @Value("${app.clicks.events.max-segments:64}") int maxSegments,
+            @Value("${app.clicks.events.batch-size:5000}") int batchSize,
+            MeterRegistry meterRegistry) {
+        if (segmentSize.toBytes() > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Click log segment size must be below 2 GB");
+        }
+        this.clickEventRepository = clickEventRepository;
+        this.enabled = enabled;
+        this.directory = directory;
+        this.segmentSize = (int) segmentSize.toBytes();
+        this.maxSegments = maxSegments;
+        this.batchSize = batchSize;
+        this.appended = Counter.builder("tinyls.clicks.events.appended")
+                .description("Click events appended to the click event log")
+                .register(meterRegistry);
+        this.dropped = Counter.builder("tinyls.clicks.events.dropped")
+                .description("Click events dropped because the click event log was full")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Opens the log directory and starts a new segment after those left by the
+     * previous run.
+     */
+    @PostConstruct
+    public void open() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            Files.createDirectories(directory);
+            logId = readOrCreateLogId();
+            List<Long> existing = segmentNumbers();
+            long next = existing.isEmpty() ? 1L : existing.get(existing.size() - 1) + 1;
+            oldestSegment = existing.isEmpty() ? next : existing.get(0);
+            active = Segment.create(segmentPath(next), next, segmentSize);
+            log.info("Opened click event log {} in {} with {} segments to replay",
+                    logId, directory, existing.size());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to open click event log " + directory, e);
+        }
+    }
+
+    /**
+     * Appends a click event for a redirect served now.
+     *
+     * @param urlId   the ID of the clicked URL
+     * @param context the request details of the redirect
+     */
+    public void append(long urlId, ClickContext context) {
+        if (!enabled) {
+            return;
+        }
+        byte[] record = encode(urlId, Instant.now(), context);
+        Segment sealed = null;
+        appendLock.lock();
+        try {
+            Segment segment = active;
+            if (segment.remaining() < record.length) {
+                if (segment.number - oldestSegment + 1 >= maxSegments) {
+                    dropped.increment();
+                    return;
+                }
+                segment.seal();
+                sealed = segment;
+                active = segment = Segment.create(segmentPath(segment.number + 1), segment.number + 1, segmentSize);
+            }
+            segment.write(record);
+        } catch (IOException e) {
+            dropped.increment();
+            log.error("Failed to start a new click event log segment", e);
+            return;
+        } finally {
+            appendLock.unlock();
+        }
+        appended.increment();
+        if (sealed != null) {
+            sealed.buffer.force();
+        }
+    }
+
+    /**
+     * Forces appended events to disk.
+     */
+    @Scheduled(fixedDelayString = "${app.clicks.events.sync-interval:1s}")
+    public void sync() {
+        Segment segment = active;
+        if (segment != null) {
+            segment.buffer.force();
+        }
+    }
+
+    /**
+     * Inserts all events appended since the last checkpoint into url_clicks.
+     * Failed inserts are retried on the next run from the same checkpoint.
+     */
+    @Scheduled(fixedDelayString = "${app.clicks.events.drain-interval:1s}")
+    public void drain() {
+        if (!enabled) {
+            return;
+        }
+        drainLock.lock();
+        try {
+            if (drainPosition == null) {
+                drainPosition = startPosition();
+                log.debug("Draining click event log {} from {}", logId, drainPosition);
+            }
+            while (true) {
+                List<ClickEvent> batch = new ArrayList<>();
+                ClickLogPosition next = read(drainPosition, batch);
+                if (next.equals(drainPosition)) {
+                    break;
+                }
+                clickEventRepository.insert(batch, logId, next);
+                drainPosition = next;
+                deleteDrainedSegments();
+            }
+        } catch (IOException | RuntimeException e) {
+            log.warn("Failed to drain click event log {}, retrying", logId, e);
+        } finally {
+            drainLock.unlock();
+        }
+    }
+
+    /**
+     * Drains the remaining events and flushes the active segment.
+     */
+    @PreDestroy
+    public void close() {
+        if (!enabled) {
+            return;
+        }
+        drain();
+        sync();
+    }
+
+    /**
+     * Determines where draining starts: the database checkpoint of this log, or
+     * the oldest segment on disk if the checkpoint's segment is gone.
+     */
+    private ClickLogPosition startPosition() throws IOException {
+        ClickLogPosition checkpoint = clickEventRepository.findCheckpoint(logId)
+                .orElse(new ClickLogPosition(0L, 0));
+        for (long number : segmentNumbers()) {
+            if (number < checkpoint.segment()) {
+                Files.deleteIfExists(segmentPath(number));
+            } else if (number == checkpoint.segment()) {
+                return checkpoint;
+            } else {
+                return new ClickLogPosition(number, 0);
+            }
+        }
+        return new ClickLogPosition(active.number, 0);
+    }
+
+    /**
+     * Reads up to one batch of events from a log position. Reaching the end of
+     * a finished segment moves on to the next one.
+     *
+     * @param from  the position to read from
+     * @param batch the list receiving the events
+     * @return the position after the last event read
+     */
+    private ClickLogPosition read(ClickLogPosition from, List<ClickEvent> batch) throws IOException {
+        Segment current = active;
+        Segment segment;
+        if (from.segment() == current.number) {
+            segment = current;
+        } else {
+            if (drainSegment == null || drainSegment.number != from.segment()) {
+                Path path = segmentPath(from.segment());
+                if (!Files.exists(path)) {
+                    return new ClickLogPosition(from.segment() + 1, 0);
+                }
+                drainSegment = Segment.open(path, from.segment());
+            }
+            segment = drainSegment;
+        }
+        boolean finished = segment != current;
+        int limit = finished ? segment.buffer.capacity() : segment.committed;
+
+        int position = from.position();
+        while (batch.size() < batchSize) {
+            if (position + RECORD_HEADER_SIZE > limit) {
+                break;
+            }
+            int length = segment.buffer.getInt(position);
+            if (length <= 0 || position + RECORD_HEADER_SIZE + length > limit) {
+                // Sealed, unused or torn by a crash: nothing more in this segment
+                break;
+            }
+            byte[] payload = new byte[length];
+            segment.buffer.get(position + RECORD_HEADER_SIZE, payload);
+            if (segment.buffer.getInt(position + 4) != checksum(payload)) {
+                log.warn("Corrupt click event in segment {} at {}; skipping the rest of the segment",
+                        segment.number, position);
+                break;
+            }
+            batch.add(decode(payload));
+            position += RECORD_HEADER_SIZE + length;
+        }
+
+        if (finished && batch.size() < batchSize) {
+            drainSegment = null;
+            return new ClickLogPosition(segment.number + 1, 0);
+        }
+        return new ClickLogPosition(segment.number, position);
+    }
+
+    private void deleteDrainedSegments() throws IOException {
+        for (long number = oldestSegment; number < drainPosition.segment(); number++) {
+            Files.deleteIfExists(segmentPath(number));
+        }
+        oldestSegment = Math.max(oldestSegment, drainPosition.segment());
+    }
+
+    private UUID readOrCreateLogId() throws IOException {
+        Path logIdFile = directory.resolve(LOG_ID_FILE);
+        if (Files.exists(logIdFile)) {
+            return UUID.fromString(Files.readString(logIdFile).trim());
+        }
+        UUID newLogId = UUID.randomUUID();
+        Files.writeString(logIdFile, newLogId.toString());
+        return newLogId;
+    }
+
+    private List<Long> segmentNumbers() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.map(file -> file.getFileName().toString())
+                    .filter(name -> name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX))
+                    .map(name -> Long.parseLong(
+                            name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length())))
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    private Path segmentPath(long number) {
+        return directory.resolve(String.format("%s%020d%s", SEGMENT_PREFIX, number, SEGMENT_SUFFIX));
+    }
+
+    /**
+     * Encodes a click event as a log record: payload length, CRC32C of the
+     * payload, then the payload (URL ID, timestamp, User-Agent hash, IP prefix
+     * and referrer).
+     */
+    private static byte[] encode(long urlId, Instant clickedAt, ClickContext context) {
+        byte[] ipPrefix = ipPrefix(context.getIpAddress());
+        String referrer = context.getReferrer();
+        if (referrer != null && referrer.length() > MAX_REFERRER_LENGTH) {
+            referrer = referrer.substring(0, MAX_REFERRER_LENGTH);
+        }
+        byte[] referrerBytes = referrer != null ? referrer.getBytes(StandardCharsets.UTF_8) : null;
+
+        int payloadLength = 8 + 8 + 8 + 1 + ipPrefix.length + 2 + (referrerBytes != null ? referrerBytes.length : 0);
+        ByteBuffer record = ByteBuffer.allocate(RECORD_HEADER_SIZE + payloadLength);
+        record.putInt(payloadLength).putInt(0)
+                .putLong(urlId)
+                .putLong(clickedAt.toEpochMilli())
+                .putLong(userAgentHash(context.getUserAgent()))
+                .put((byte) ipPrefix.length)
+                .put(ipPrefix);
+        if (referrerBytes != null) {
+            record.putShort((short) referrerBytes.length).put(referrerBytes);
+        } else {
+            record.putShort((short) -1);
+        }
+        byte[] bytes = record.array();
+        CRC32C crc = new CRC32C();
+        crc.update(bytes, RECORD_HEADER_SIZE, payloadLength);
+        record.putInt(4, (int) crc.getValue());
+        return bytes;
+    }
+
+    private static ClickEvent decode(byte[] payload) {
+        ByteBuffer buffer = ByteBuffer.wrap(payload);
+        long urlId = buffer.getLong();
+        Instant clickedAt = Instant.ofEpochMilli(buffer.getLong());
+        long userAgentHash = buffer.getLong();
+        byte[] ipPrefix = new byte[buffer.get()];
+        buffer.get(ipPrefix);
+        short referrerLength = buffer.getShort();
+        String referrer = null;
+        if (referrerLength >= 0) {
+            byte[] referrerBytes = new byte[referrerLength];
+            buffer.get(referrerBytes);
+            referrer = new String(referrerBytes, StandardCharsets.UTF_8);
+        }
+        return ClickEvent.builder()
+                .urlId(urlId)
+                .clickedAt(clickedAt)
+                .referrer(referrer)
+                .userAgentHash(userAgentHash)
+                .ipPrefix(formatIpPrefix(ipPrefix))
+                .build();
+    }
+
+    private static int checksum(byte[] payload) {
+        CRC32C crc = new CRC32C();
+        crc.update(payload);
+        return (int) crc.getValue();
+    }
+
+    /**
+     * Computes a 64-bit FNV-1a hash of a User-Agent header, or 0 if absent.
+     */
+    private static long userAgentHash(String userAgent) {
+        if (userAgent == null || userAgent.isEmpty()) {
+            return 0L;
+        }
+        long hash = Hashing.fnv1a64(userAgent);
+        return hash == 0L ? 1L : hash;
+    }
+
+    /**
+     * Truncates an IP address literal to its network prefix (IPv4 /24, IPv6
+     * /48), so that full client addresses are never stored.
+     */
+    private static byte[] ipPrefix(String ipAddress) {
+        if (ipAddress == null || ipAddress.isEmpty()
+                || !(ipAddress.indexOf(':') >= 0 || ipAddress.chars().allMatch(c -> c == '.' || Character.isDigit(c)))) {
+            // Only literals are parsed, so no name lookup ever happens here
+            return new byte[0];
+        }
+        try {
+            byte[] address = InetAddress.getByName(ipAddress).getAddress();
+            int prefixBytes = address.length == 4 ? IPV4_PREFIX_BYTES : IPV6_PREFIX_BYTES;
+            byte[] prefix = new byte[prefixBytes];
+            System.arraycopy(address, 0, prefix, 0, prefixBytes);
+            return prefix;
+        } catch (UnknownHostException e) {
+            return new byte[0];
+        }
+    }
+
+    private static String formatIpPrefix(byte[] prefix) {
+        if (prefix.length == 0) {
+            return null;
+        }
+        boolean ipv4 = prefix.length == IPV4_PREFIX_BYTES;
+        byte[] address = new byte[ipv4 ? 4 : 16];
+        System.arraycopy(prefix, 0, address, 0, prefix.length);
+        try {
+            return InetAddress.getByAddress(address).getHostAddress() + (ipv4 ? "/24" : "/48");
+        } catch (UnknownHostException e) {
+            return null;
+        }
+    }
+
+    /**
+     * A memory-mapped log segment. The active segment is written under the
+     * append lock; its committed length is published to the drainer through a
+     * volatile field.
+     */
+    private static final class Segment {
+        private final long number;
+        private final MappedByteBuffer buffer;
+        private volatile int committed;
+
+        private Segment(long number, MappedByteBuffer buffer) {
+            this.number = number;
+            this.buffer = buffer;
+        }
+
+        static Segment create(Path path, long number, int size) throws IOException {
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW,
+                    StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                return new Segment(number, channel.map(FileChannel.MapMode.READ_WRITE, 0, size));
+            }
+        }
+
+        static Segment open(Path path, long number) throws IOException {
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+                return new Segment(number, channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+            }
+        }
+
+        int remaining() {
+            return buffer.capacity() - committed;
+        }
+
+        void write(byte[] record) {
+            int position = committed;
+            // Write the length last, so a torn record never looks complete
+            buffer.put(position + 4, record, 4, record.length - 4);
+            buffer.putInt(position, record.length - RECORD_HEADER_SIZE);
+            committed = position + record.length;
+        }
+
+        void seal() {
+            if (remaining() >= 4) {
+                buffer.putInt(committed, SEALED);
+            }
+        }
+    }
+}
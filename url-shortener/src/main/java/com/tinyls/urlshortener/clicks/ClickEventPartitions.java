@@ -0,0 +1,81 @@
+package com.tinyls.urlshortener.clicks;
+
+import com.tinyls.urlshortener.repository.ClickEventRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+
+/**
+ * Maintains the daily partitions of the url_clicks table.
+ *
+ * Partitions are created a number of days ahead, so that ingested clicks
+ * never land in the default partition in normal operation. Clicks older than
+ * the retention period are removed by detaching and dropping the partitions of
+ * whole days, which is instant whatever the number of clicks, instead of
+ * deleting rows one by one. Old clicks that ended up in the default partition
+ * are deleted row by row; there are few of them.
+ *
+ * Runs at startup and then periodically on all instances. Creating and
+ * dropping partitions takes a transaction-level advisory lock, so only one
+ * instance changes the partitions at a time; an instance that does not get
+ * the lock skips the step and leaves it to the next run.
+ */
+@Slf4j
+@Component
+public class ClickEventPartitions {
+
+    private final ClickEventRepository clickEventRepository;
+    private final int daysAhead;
+    private final Duration retention;
+
+    /**
+     * Creates the partition maintenance.
+     *
+     * @param clickEventRepository the repository partitions are managed with
+     * @param daysAhead            how many days after today get a partition in
+     *                             advance
+     * @param retention            how long clicks are kept
+     */
+    public ClickEventPartitions(
+            ClickEventRepository clickEventRepository,
+            @Value("${app.clicks.events.partitions.days-ahead:7}") int daysAhead,
+            @Value("${app.clicks.events.retention:90d}") Duration retention) {
+        this.clickEventRepository = clickEventRepository;
+        this.daysAhead = daysAhead;
+        this.retention = retention;
+    }
+
+    /**
+     * Creates upcoming partitions and drops partitions past the retention
+     * period.
+     */
+    @Scheduled(fixedDelayString = "${app.clicks.events.partitions.maintenance-interval:1h}")
+    public void maintain() {
+        LocalDate today = LocalDate.now(ZoneOffset.UTC);
+        int created = clickEventRepository.ensurePartitions(today, daysAhead + 1);
+        if (created > 0) {
+            log.info("Created {} url_clicks partitions up to {}", created, today.plusDays(daysAhead));
+        }
+
+        Instant horizon = Instant.now().minus(retention);
+        for (LocalDate day : clickEventRepository.findPartitionDays()) {
+            if (day.plusDays(1).atStartOfDay(ZoneOffset.UTC).toInstant().isAfter(horizon)) {
+                break;
+            }
+            if (clickEventRepository.dropPartition(day)) {
+                log.info("Dropped url_clicks partition of {}, older than {}", day, retention);
+            }
+        }
+
+        int purged = clickEventRepository.purgeDefaultPartition(horizon);
+        if (purged > 0) {
+            log.debug("Purged {} clicks older than {} from the default url_clicks partition", purged, retention);
+        }
+    }
+}
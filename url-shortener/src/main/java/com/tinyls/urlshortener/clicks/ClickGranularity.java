@@ -0,0 +1,97 @@
+package com.tinyls.urlshortener.clicks;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Locale;
+
+/**
+ * Enum representing the bucket sizes of click rollups.
+ * Buckets are aligned to UTC.
+ */
+public enum ClickGranularity {
+    /**
+     * One bucket per minute, stored in url_clicks_minute, without visitor
+     * sketches.
+     */
+    MINUTE("url_clicks_minute", ChronoUnit.MINUTES, Duration.ofHours(1), false),
+
+    /**
+     * One bucket per hour, stored in url_clicks_hour.
+     */
+    HOUR("url_clicks_hour", ChronoUnit.HOURS, Duration.ofDays(2), true),
+
+    /**
+     * One bucket per day, stored in url_clicks_day.
+     */
+    DAY("url_clicks_day", ChronoUnit.DAYS, Duration.ofDays(30), true);
+
+    private final String table;
+    private final ChronoUnit unit;
+    private final Duration defaultRange;
+    private final boolean visitors;
+
+    ClickGranularity(String table, ChronoUnit unit, Duration defaultRange, boolean visitors) {
+        this.table = table;
+        this.unit = unit;
+        this.defaultRange = defaultRange;
+        this.visitors = visitors;
+    }
+
+    /**
+     * Returns the rollup table of this granularity.
+     *
+     * @return the table name
+     */
+    public String table() {
+        return table;
+    }
+
+    /**
+     * Returns the duration of one bucket.
+     *
+     * @return the bucket size
+     */
+    public Duration bucketSize() {
+        return unit.getDuration();
+    }
+
+    /**
+     * Returns the time range queried when none is given.
+     *
+     * @return the default query range
+     */
+    public Duration defaultRange() {
+        return defaultRange;
+    }
+
+    /**
+     * Returns whether buckets of this granularity hold a unique visitor sketch.
+     *
+     * @return true if unique visitors are tracked per bucket
+     */
+    public boolean hasVisitors() {
+        return visitors;
+    }
+
+    /**
+     * Returns the start of the bucket containing an instant.
+     *
+     * @param instant the instant
+     * @return the bucket start
+     */
+    public Instant bucketStart(Instant instant) {
+        return instant.truncatedTo(unit);
+    }
+
+    /**
+     * Parses a granularity name, ignoring case.
+     *
+     * @param name the granularity name (e.g. "hour")
+     * @return the granularity
+     * @throws IllegalArgumentException if the name is unknown
+     */
+    public static ClickGranularity parse(String name) {
+        return valueOf(name.trim().toUpperCase(Locale.ROOT));
+    }
+}
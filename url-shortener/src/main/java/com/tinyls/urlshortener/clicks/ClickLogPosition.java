@@ -0,0 +1,11 @@
+package com.tinyls.urlshortener.clicks;
+
+/**
+ * A position in the click event log: the segment number and the byte offset
+ * of the next record within it.
+ *
+ * @param segment  the segment number
+ * @param position the byte offset within the segment
+ */
+public record ClickLogPosition(long segment, int position) {
+}
@@ -0,0 +1,236 @@
+package com.tinyls.urlshortener.clicks;
+
+import com.tinyls.urlshortener.repository.ClickRollupRepository;
+import com.tinyls.urlshortener.util.HyperLogLog;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Write-behind accumulator for time-bucketed click rollups.
+ *
+ * Redirects increment an in-memory counter for the URL's current minute. A
+ * scheduled flush rolls the minute deltas up into hour and day deltas and
+ * upserts all three rollup tables in one transaction, so that statistics are
+ * read from a few pre-aggregated rows instead of grouping raw clicks.
+ *
+ * Each click also adds its visitor (client IP and User-Agent) to a
+ * {@link HyperLogLog} sketch of the URL's current hour. The hour sketches are
+ * merged into the hour, day and all-time sketches stored in the database, so
+ * unique visitors are estimated at a fixed size per URL and bucket however
+ * many clicks there are. Only the hash of a visitor enters the sketch; it
+ * cannot be recovered from it. Merging a stored sketch means locking and
+ * rewriting its row, so sketches are flushed on a longer interval than the
+ * click deltas: a busy link's rows are then rewritten every few minutes
+ * rather than on every click flush.
+ *
+ * Counters and sketches are swapped out on flush like in
+ * {@link ClickAccumulator}, so an increment is never lost to a concurrent
+ * flush. Sketches that may still receive late updates are merged again on the
+ * next flush, which is harmless since merging is idempotent. Deltas and
+ * sketches of a failed flush are put back and retried; those still in memory
+ * when the process dies are lost.
+ *
+ * Old minute and hour buckets are purged after their retention period; day
+ * buckets are kept.
+ */
+@Slf4j
+@Component
+public class ClickRollupAccumulator {
+
+    private final ClickRollupRepository clickRollupRepository;
+    private final Map<ClickGranularity, Duration> retention;
+
+    private final ReentrantLock flushLock = new ReentrantLock();
+
+    private final ReentrantLock visitorFlushLock = new ReentrantLock();
+
+    private volatile Map<ClickBucket, LongAdder> active = new ConcurrentHashMap<>();
+
+    private volatile Map<ClickBucket, LongAdder> draining = new ConcurrentHashMap<>();
+
+    private volatile Map<ClickBucket, HyperLogLog> activeVisitors = new ConcurrentHashMap<>();
+
+    private volatile Map<ClickBucket, HyperLogLog> drainingVisitors = new ConcurrentHashMap<>();
+
+    /**
+     * Creates the rollup accumulator.
+     *
+     * @param clickRollupRepository the repository rollups are written to
+     * @param minuteRetention       how long minute buckets are kept
+     * @param hourRetention         how long hour buckets are kept
+     */
+    public ClickRollupAccumulator(
+            ClickRollupRepository clickRollupRepository,
+            @Value("${app.clicks.rollups.minute-retention:7d}") Duration minuteRetention,
+            @Value("${app.clicks.rollups.hour-retention:90d}") Duration hourRetention) {
+        this.clickRollupRepository = clickRollupRepository;
+        this.retention = new EnumMap<>(Map.of(
+                ClickGranularity.MINUTE, minuteRetention,
+                ClickGranularity.HOUR, hourRetention));
+    }
+
+    /**
+     * Records one click for a URL at the given time.
+     *
+     * @param urlId       the ID of the clicked URL
+     * @param clickedAt   when the click happened
+     * @param visitorHash the hash identifying the visitor, see
+     *                    {@link ClickContext#visitorHash()}
+     */
+    public void increment(long urlId, Instant clickedAt, long visitorHash) {
+        add(new ClickBucket(urlId, ClickGranularity.MINUTE.bucketStart(clickedAt)), 1L);
+        activeVisitors.computeIfAbsent(new ClickBucket(urlId, ClickGranularity.HOUR.bucketStart(clickedAt)),
+                key -> new HyperLogLog()).addHash(visitorHash);
+    }
+
+    /**
+     * Writes all pending rollup deltas to the database.
+     * Runs on a fixed delay; on failure the deltas are put back and retried on
+     * the next run.
+     */
+    @Scheduled(fixedDelayString = "${app.clicks.flush-interval:5s}")
+    public void flush() {
+        flushLock.lock();
+        try {
+            Map<ClickBucket, LongAdder> retired = draining;
+            draining = active;
+            active = new ConcurrentHashMap<>();
+
+            SortedMap<ClickBucket, Long> minuteDeltas = new TreeMap<>();
+            collect(draining, minuteDeltas);
+            collect(retired, minuteDeltas);
+            if (minuteDeltas.isEmpty()) {
+                return;
+            }
+
+            Map<ClickGranularity, SortedMap<ClickBucket, Long>> deltas = new EnumMap<>(ClickGranularity.class);
+            deltas.put(ClickGranularity.MINUTE, minuteDeltas);
+            deltas.put(ClickGranularity.HOUR, rollUp(minuteDeltas, ClickGranularity.HOUR));
+            deltas.put(ClickGranularity.DAY, rollUp(minuteDeltas, ClickGranularity.DAY));
+            try {
+                clickRollupRepository.addClicks(deltas);
+                log.debug("Flushed click rollups for {} minute buckets", minuteDeltas.size());
+            } catch (RuntimeException e) {
+                log.error("Failed to flush click rollups for {} minute buckets, will retry", minuteDeltas.size(), e);
+                minuteDeltas.forEach(this::add);
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    /**
+     * Merges all pending visitor sketches into the stored sketches.
+     * Runs on a fixed delay; on failure the sketches are put back and retried
+     * on the next run.
+     */
+    @Scheduled(fixedDelayString = "${app.clicks.rollups.visitor-flush-interval:5m}")
+    public void flushVisitors() {
+        visitorFlushLock.lock();
+        try {
+            Map<ClickBucket, HyperLogLog> retiredVisitors = drainingVisitors;
+            drainingVisitors = activeVisitors;
+            activeVisitors = new ConcurrentHashMap<>();
+
+            SortedMap<ClickBucket, HyperLogLog> hourVisitors = new TreeMap<>();
+            mergeAll(drainingVisitors, hourVisitors);
+            mergeAll(retiredVisitors, hourVisitors);
+            if (hourVisitors.isEmpty()) {
+                return;
+            }
+
+            Map<ClickGranularity, SortedMap<ClickBucket, HyperLogLog>> visitors =
+                    new EnumMap<>(ClickGranularity.class);
+            visitors.put(ClickGranularity.HOUR, hourVisitors);
+            visitors.put(ClickGranularity.DAY, new TreeMap<>());
+            SortedMap<Long, HyperLogLog> urlVisitors = new TreeMap<>();
+            hourVisitors.forEach((bucket, sketch) -> {
+                mergeInto(visitors.get(ClickGranularity.DAY),
+                        new ClickBucket(bucket.urlId(), ClickGranularity.DAY.bucketStart(bucket.start())), sketch);
+                mergeInto(urlVisitors, bucket.urlId(), sketch);
+            });
+            try {
+                clickRollupRepository.mergeVisitors(visitors, urlVisitors);
+                log.debug("Flushed {} visitor sketches", hourVisitors.size());
+            } catch (RuntimeException e) {
+                log.error("Failed to flush {} visitor sketches, will retry", hourVisitors.size(), e);
+                hourVisitors.forEach((bucket, sketch) -> mergeInto(activeVisitors, bucket, sketch));
+            }
+        } finally {
+            visitorFlushLock.unlock();
+        }
+    }
+
+    /**
+     * Drains all pending rollups before the application shuts down.
+     */
+    @PreDestroy
+    public void drain() {
+        log.info("Draining pending click rollups");
+        flush();
+        flush();
+        flushVisitors();
+        flushVisitors();
+    }
+
+    /**
+     * Deletes minute and hour buckets older than their retention period, and
+     * the visitor sketches of deleted URLs.
+     */
+    @Scheduled(fixedDelayString = "${app.clicks.rollups.purge-interval:1h}")
+    public void purge() {
+        Instant now = Instant.now();
+        retention.forEach((granularity, period) -> {
+            int purged = clickRollupRepository.purge(granularity, now.minus(period));
+            if (purged > 0) {
+                log.debug("Purged {} {} click rollups older than {}", purged, granularity, period);
+            }
+        });
+        int purged = clickRollupRepository.purgeDeletedUrlVisitors();
+        if (purged > 0) {
+            log.debug("Purged visitor sketches of {} deleted URLs", purged);
+        }
+    }
+
+    private void add(ClickBucket bucket, long delta) {
+        active.computeIfAbsent(bucket, key -> new LongAdder()).add(delta);
+    }
+
+    private static SortedMap<ClickBucket, Long> rollUp(Map<ClickBucket, Long> minuteDeltas,
+            ClickGranularity granularity) {
+        SortedMap<ClickBucket, Long> rolledUp = new TreeMap<>();
+        minuteDeltas.forEach((bucket, delta) -> rolledUp.merge(
+                new ClickBucket(bucket.urlId(), granularity.bucketStart(bucket.start())), delta, Long::sum));
+        return rolledUp;
+    }
+
+    private static void mergeAll(Map<ClickBucket, HyperLogLog> sketches, Map<ClickBucket, HyperLogLog> merged) {
+        sketches.forEach((bucket, sketch) -> mergeInto(merged, bucket, sketch));
+    }
+
+    private static <K> void mergeInto(Map<K, HyperLogLog> sketches, K key, HyperLogLog sketch) {
+        sketches.computeIfAbsent(key, k -> new HyperLogLog()).merge(sketch);
+    }
+
+    private static void collect(Map<ClickBucket, LongAdder> counters, Map<ClickBucket, Long> deltas) {
+        counters.forEach((bucket, counter) -> {
+            long delta = counter.sumThenReset();
+            if (delta != 0) {
+                deltas.merge(bucket, delta, Long::sum);
+            }
+        });
+    }
+}
@@ -0,0 +1,143 @@
+package com.tinyls.urlshortener.clicks;
+
+import com.tinyls.urlshortener.repository.ClickCountRepository;
+import com.tinyls.urlshortener.util.CountMinSketch;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Chooses the url_stats counter row each click is written to.
+ *
+ * Every URL has one counter row (stripe 0). A URL whose click writes on this
+ * instance exceed the promotion rate gets further stripes, and from then on
+ * each writer updates the stripe chosen by its instance and thread, so clicks
+ * from many threads and instances no longer queue on a single row lock. Reads
+ * sum all stripes.
+ *
+ * Write rates are estimated with a Count-Min sketch that is halved on every
+ * refresh. Promotions are written on the next refresh, which also reloads
+ * the striped URLs from the database, so all instances use the stripes of a
+ * URL once any instance has promoted it. Striped URLs are never demoted; their
+ * extra rows cost a few bytes each.
+ */
+@Slf4j
+@Component
+public class ClickStripes {
+
+    private static final int SKETCH_WIDTH = 1 << 12;
+    private static final int SKETCH_DEPTH = 4;
+
+    private final ClickCountRepository clickCountRepository;
+    private final boolean enabled;
+    private final int stripes;
+    private final long promotionThreshold;
+    private final long instanceSeed = ThreadLocalRandom.current().nextLong();
+    private final CountMinSketch writeRates = new CountMinSketch(SKETCH_WIDTH, SKETCH_DEPTH);
+    private final Set<String> pendingPromotions = ConcurrentHashMap.newKeySet();
+    private final ReentrantLock refreshLock = new ReentrantLock();
+
+    private volatile Set<String> striped = Set.of();
+
+    /**
+     * Creates the counter stripe selector.
+     *
+     * @param clickCountRepository the repository counter stripes are created
+     *                             in
+     * @param enabled              whether hot URLs are promoted to striped
+     *                             counters
+     * @param stripes              the number of counter rows of a striped URL
+     * @param promotionRate        the click writes per second on this instance
+     *                             above which a URL is striped
+     * @param refreshInterval      how often promotions are written and striped
+     *                             URLs reloaded
+     * @param meterRegistry        the registry used to publish statistics
+     */
+    public ClickStripes(
+            ClickCountRepository clickCountRepository,
+            @Value("${app.clicks.striping.enabled:true}") boolean enabled,
+            @Value("${app.clicks.striping.stripes:16}") int stripes,
+            @Value("${app.clicks.striping.promotion-rate:50}") long promotionRate,
+            @Value("${app.clicks.striping.refresh-interval:10s}") Duration refreshInterval,
+            MeterRegistry meterRegistry) {
+        if (stripes < 1 || stripes > Short.MAX_VALUE) {
+            throw new IllegalArgumentException("Stripes must be between 1 and " + Short.MAX_VALUE);
+        }
+        this.clickCountRepository = clickCountRepository;
+        this.enabled = enabled && stripes > 1;
+        this.stripes = stripes;
+        this.promotionThreshold = Math.max(1L, promotionRate * refreshInterval.toSeconds());
+        Gauge.builder("tinyls.clicks.striped-urls", this, clickStripes -> clickStripes.striped.size())
+                .description("Number of URLs with striped click counters")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Counts a click write for a short code and returns the counter stripe to
+     * write it to.
+     *
+     * @param shortCode the clicked short code
+     * @return the stripe, 0 unless the URL is striped
+     */
+    public int recordWrite(String shortCode) {
+        if (!enabled) {
+            return 0;
+        }
+        if (striped.contains(shortCode)) {
+            return stripe(shortCode);
+        }
+        if (writeRates.add(shortCode) >= promotionThreshold) {
+            pendingPromotions.add(shortCode);
+        }
+        return 0;
+    }
+
+    /**
+     * Returns the counter stripe the current thread writes clicks of a short
+     * code to, without counting a write.
+     *
+     * @param shortCode the short code
+     * @return the stripe, 0 unless the URL is striped
+     */
+    public int stripe(String shortCode) {
+        if (!enabled || !striped.contains(shortCode)) {
+            return 0;
+        }
+        long hash = (instanceSeed ^ Thread.currentThread().threadId()) * 0x9e3779b97f4a7c15L;
+        return (int) Math.floorMod(hash >>> 32, (long) stripes);
+    }
+
+    /**
+     * Writes pending promotions, reloads the striped URLs and ages the write
+     * rates.
+     */
+    @Scheduled(fixedDelayString = "${app.clicks.striping.refresh-interval:10s}")
+    public void refresh() {
+        if (!enabled) {
+            return;
+        }
+        refreshLock.lock();
+        try {
+            List<String> promotions = List.copyOf(pendingPromotions);
+            if (!promotions.isEmpty()) {
+                clickCountRepository.addStripes(promotions, stripes);
+                log.info("Promoted {} URLs to {} click counter stripes", promotions.size(), stripes);
+            }
+            striped = clickCountRepository.findStripedShortCodes();
+            promotions.forEach(pendingPromotions::remove);
+            writeRates.halve();
+        } finally {
+            refreshLock.unlock();
+        }
+    }
+}
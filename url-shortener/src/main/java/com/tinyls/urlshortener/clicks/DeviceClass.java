@@ -0,0 +1,31 @@
+package com.tinyls.urlshortener.clicks;
+
+/**
+ * Enum representing the class of device a click came from.
+ */
+public enum DeviceClass {
+    /**
+     * Desktop or laptop browser.
+     */
+    DESKTOP,
+
+    /**
+     * Phone browser or app.
+     */
+    MOBILE,
+
+    /**
+     * Tablet browser or app.
+     */
+    TABLET,
+
+    /**
+     * Crawler, link previewer or other automated client.
+     */
+    BOT,
+
+    /**
+     * No User-Agent, or one that could not be classified.
+     */
+    UNKNOWN
+}
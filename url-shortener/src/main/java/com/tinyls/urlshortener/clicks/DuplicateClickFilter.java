@@ -0,0 +1,218 @@
+package com.tinyls.urlshortener.clicks;
+
+import com.tinyls.urlshortener.util.Hashing;
+import com.tinyls.urlshortener.util.IpAddresses;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Suppresses repeated clicks of the same client on the same link within a
+ * short window, such as page refreshes and double-taps.
+ *
+ * A click is identified by a 64-bit hash of the short code, the client's IP
+ * prefix (the whole address for IPv4, the /64 network for IPv6) and its
+ * User-Agent. The window is a time wheel of slots, each holding the clicks
+ * first seen during one slot interval in a fixed-size open-addressing table.
+ * A click is a duplicate if its hash is in any slot of the window; otherwise
+ * it is added to the current slot. When the wheel turns, the slot that fell
+ * out of the window is reused for the new interval and emptied in O(1) by
+ * bumping its generation, which invalidates all its entries at once. The
+ * window is measured from the first click and is not extended by duplicates.
+ *
+ * Memory is fixed at startup. A slot that is full stops accepting clicks, so
+ * further clicks in that interval are counted rather than suppressed. Hashes
+ * are spread over independently locked segments, so concurrent redirects
+ * rarely contend.
+ */
+@Component
+public class DuplicateClickFilter {
+
+    private static final int SEGMENTS = 16;
+
+    private final boolean enabled;
+    private final long slotNanos;
+    private final int slots;
+    private final Segment[] segments = new Segment[SEGMENTS];
+    private final Counter duplicates;
+    private final Counter overflows;
+
+    /**
+     * Creates the duplicate click filter.
+     *
+     * @param enabled       whether duplicate clicks are suppressed
+     * @param window        how long after a click repeated clicks are
+     *                      suppressed
+     * @param slots         the number of slots the window is divided into
+     * @param maxEntries    the number of distinct clicks the window holds
+     * @param meterRegistry the registry used to publish statistics
+     */
+    public DuplicateClickFilter(
+            @Value("${app.clicks.dedup.enabled:false}") boolean enabled,
+            @Value("${app.clicks.dedup.window:10s}") Duration window,
+            @Value("${app.clicks.dedup.slots:10}") int slots,
+            @Value("${app.clicks.dedup.max-entries:100000}") int maxEntries,
+            MeterRegistry meterRegistry) {
+        if (slots < 1 || window.toNanos() < slots) {
+            throw new IllegalArgumentException("Dedup window must be positive and have at least one slot");
+        }
+        this.enabled = enabled;
+        this.slotNanos = window.toNanos() / slots;
+        this.slots = slots;
+        int slotCapacity = Math.max(1, maxEntries / (SEGMENTS * slots));
+        for (int i = 0; i < SEGMENTS; i++) {
+            segments[i] = new Segment(slots, slotCapacity);
+        }
+        this.duplicates = Counter.builder("tinyls.clicks.duplicates")
+                .description("Clicks redirected but not counted because the same client clicked the link "
+                        + "within the dedup window")
+                .register(meterRegistry);
+        this.overflows = Counter.builder("tinyls.clicks.dedup.overflows")
+                .description("Clicks counted without dedup because the dedup window was full")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Checks whether a click repeats a click of the same client on the same
+     * link within the window, and remembers it otherwise.
+     *
+     * @param shortCode the clicked short code
+     * @param context   the request details of the click
+     * @return true if the click is a duplicate and should not be counted
+     */
+    public boolean isDuplicate(String shortCode, ClickContext context) {
+        if (!enabled) {
+            return false;
+        }
+        long hash = hash(shortCode, context.getIpAddress(), context.getUserAgent());
+        long tick = System.nanoTime() / slotNanos;
+        Segment segment = segments[(int) (hash >>> 60) & (SEGMENTS - 1)];
+        int result = segment.checkAndAdd(hash, tick, slots);
+        if (result == Segment.DUPLICATE) {
+            duplicates.increment();
+            return true;
+        }
+        if (result == Segment.FULL) {
+            overflows.increment();
+        }
+        return false;
+    }
+
+    /**
+     * Computes a 64-bit FNV-1a hash of the short code, IP prefix and
+     * User-Agent, finalized with a mixing step.
+     */
+    private static long hash(String shortCode, String ipAddress, String userAgent) {
+        long hash = fold(Hashing.FNV_OFFSET_BASIS, shortCode);
+        long prefix = IpAddresses.parseIpv4(ipAddress);
+        if (prefix == IpAddresses.INVALID) {
+            prefix = IpAddresses.parseIpv6Prefix(ipAddress);
+        }
+        if (prefix == IpAddresses.INVALID && ipAddress != null) {
+            hash = fold(hash, ipAddress);
+        } else {
+            for (int shift = 0; shift < Long.SIZE; shift += Byte.SIZE) {
+                hash = Hashing.fnv1a64Step(hash, (int) (prefix >>> shift) & 0xff);
+            }
+        }
+        if (userAgent != null) {
+            hash = fold(hash, userAgent);
+        }
+        return Hashing.mix64(hash);
+    }
+
+    private static long fold(long hash, String value) {
+        // Separator, so that adjacent values cannot run into each other
+        return Hashing.fnv1a64Step(Hashing.fnv1a64(hash, value), 0xff);
+    }
+
+    /**
+     * The time wheel of one segment of the hash space.
+     *
+     * Each slot is an open-addressing table of hashes with linear probing.
+     * An entry belongs to the slot's current contents only if its stamp equals
+     * the slot's generation; all other entries are free. Generations start at
+     * 1, so that the zeroed stamps of a new table are free.
+     */
+    private static final class Segment {
+        static final int ADDED = 0;
+        static final int DUPLICATE = 1;
+        static final int FULL = 2;
+
+        private final ReentrantLock lock = new ReentrantLock();
+        private final int capacity;
+        private final int tableSize;
+        private final int mask;
+        private final long[] hashes;
+        private final int[] stamps;
+        private final int[] generations;
+        private final long[] ticks;
+        private final int[] sizes;
+
+        Segment(int slots, int capacity) {
+            this.capacity = capacity;
+            // At most half full, so that probe sequences stay short
+            this.tableSize = Integer.highestOneBit(capacity * 2 - 1) << 1;
+            this.mask = tableSize - 1;
+            this.hashes = new long[slots * tableSize];
+            this.stamps = new int[slots * tableSize];
+            this.generations = new int[slots];
+            this.ticks = new long[slots];
+            this.sizes = new int[slots];
+            Arrays.fill(generations, 1);
+            Arrays.fill(ticks, Long.MIN_VALUE);
+        }
+
+        int checkAndAdd(long hash, long tick, int slots) {
+            lock.lock();
+            try {
+                for (int slot = 0; slot < slots; slot++) {
+                    if (ticks[slot] > tick - slots && contains(slot, hash)) {
+                        return DUPLICATE;
+                    }
+                }
+                int current = (int) Math.floorMod(tick, (long) slots);
+                if (ticks[current] != tick) {
+                    // The wheel turned: the slot now holds the current interval
+                    ticks[current] = tick;
+                    sizes[current] = 0;
+                    if (++generations[current] == 0) {
+                        // Wrapped around: clear stale stamps that could match again
+                        Arrays.fill(stamps, current * tableSize, (current + 1) * tableSize, 0);
+                        generations[current] = 1;
+                    }
+                }
+                if (sizes[current] == capacity) {
+                    return FULL;
+                }
+                int base = current * tableSize;
+                int i = (int) hash & mask;
+                while (stamps[base + i] == generations[current]) {
+                    i = (i + 1) & mask;
+                }
+                hashes[base + i] = hash;
+                stamps[base + i] = generations[current];
+                sizes[current]++;
+                return ADDED;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private boolean contains(int slot, long hash) {
+            int base = slot * tableSize;
+            int generation = generations[slot];
+            for (int i = (int) hash & mask; stamps[base + i] == generation; i = (i + 1) & mask) {
+                if (hashes[base + i] == hash) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
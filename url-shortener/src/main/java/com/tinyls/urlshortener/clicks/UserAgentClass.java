@@ -0,0 +1,25 @@
+package com.tinyls.urlshortener.clicks;
+
+/**
+ * The classification of a User-Agent header.
+ *
+ * @param deviceClass the device class, {@link DeviceClass#BOT} for automated
+ *                    clients
+ * @param browser     the browser family
+ */
+public record UserAgentClass(DeviceClass deviceClass, Browser browser) {
+    /**
+     * Classification of requests without a User-Agent.
+     */
+    public static final UserAgentClass UNKNOWN = new UserAgentClass(DeviceClass.UNKNOWN, Browser.OTHER);
+
+    /**
+     * Returns whether the User-Agent belongs to a crawler, link previewer,
+     * monitoring service or other automated client.
+     *
+     * @return true for bots
+     */
+    public boolean isBot() {
+        return deviceClass == DeviceClass.BOT;
+    }
+}
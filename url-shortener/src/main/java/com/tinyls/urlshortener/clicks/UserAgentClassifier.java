@@ -0,0 +1,187 @@
+package com.tinyls.urlshortener.clicks;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.tinyls.urlshortener.util.AhoCorasick;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.IntConsumer;
+
+/**
+ * Classifies User-Agent headers into bots, device classes and browser
+ * families.
+ *
+ * All signatures are compiled into one {@link AhoCorasick} automaton, so a
+ * User-Agent is scanned once whatever the number of signatures. Any bot
+ * signature makes the client a bot. Device and browser signatures are listed
+ * by priority; the first listed signature found in the User-Agent decides
+ * the class (e.g. Edge and Opera User-Agents also contain "chrome/", and
+ * Android phones contain "mobile" while Android tablets do not).
+ *
+ * Most redirects come from a small set of User-Agents, so recent results are
+ * kept in a bounded cache and a cache hit costs one hash lookup. Statistics
+ * are published under the cache name "user-agents".
+ */
+@Component
+public class UserAgentClassifier {
+
+    /**
+     * Name under which cache statistics are published.
+     */
+    public static final String CACHE_NAME = "user-agents";
+
+    private static final List<String> BOT_SIGNATURES = List.of(
+            // Self-identified bots (Googlebot/2.1, Slackbot-LinkExpanding, TelegramBot (like TwitterBot)).
+            // "bot" only counts when followed or preceded by a delimiter, since device names such as
+            // CUBOT_X30 contain it too; "+http" is the crawler convention for an info URL.
+            "bot/", "bot;", "bot)", "bot-", "-bot", "bot.htm", "+http",
+            // Crawlers
+            "crawl", "spider", "slurp", "archiver", "scrapy", "google-inspectiontool",
+            "googleother", "feedfetcher", "mediapartners-google", "chatgpt-user", "ccbot",
+            // Link previews
+            "facebookexternalhit", "facebookcatalog", "facebot", "web preview", "link preview",
+            "linkpreview", "uripreview", "embedly", "whatsapp", "vkshare", "iframely", "outbrain",
+            // Monitoring and performance tools
+            "uptime", "pingdom", "statuscake", "site24x7", "newrelicpinger", "datadog", "lighthouse",
+            "gtmetrix", "headlesschrome", "phantomjs",
+            // HTTP libraries and command line tools
+            "curl/", "wget/", "python-requests", "python-urllib", "aiohttp", "go-http-client", "java/",
+            "okhttp", "apache-httpclient", "libwww-perl", "axios/", "node-fetch", "undici", "httpie");
+
+    private static final List<Rule<DeviceClass>> DEVICE_RULES = List.of(
+            new Rule<>("ipad", DeviceClass.TABLET),
+            new Rule<>("tablet", DeviceClass.TABLET),
+            new Rule<>("kindle", DeviceClass.TABLET),
+            new Rule<>("silk/", DeviceClass.TABLET),
+            new Rule<>("mobile", DeviceClass.MOBILE),
+            new Rule<>("iphone", DeviceClass.MOBILE),
+            new Rule<>("ipod", DeviceClass.MOBILE),
+            new Rule<>("android", DeviceClass.TABLET),
+            new Rule<>("windows", DeviceClass.DESKTOP),
+            new Rule<>("macintosh", DeviceClass.DESKTOP),
+            new Rule<>("x11", DeviceClass.DESKTOP));
+
+    private static final List<Rule<Browser>> BROWSER_RULES = List.of(
+            new Rule<>("edg/", Browser.EDGE),
+            new Rule<>("edge/", Browser.EDGE),
+            new Rule<>("edga/", Browser.EDGE),
+            new Rule<>("edgios/", Browser.EDGE),
+            new Rule<>("opr/", Browser.OPERA),
+            new Rule<>("opera", Browser.OPERA),
+            new Rule<>("samsungbrowser", Browser.SAMSUNG),
+            new Rule<>("firefox/", Browser.FIREFOX),
+            new Rule<>("fxios/", Browser.FIREFOX),
+            new Rule<>("chrome/", Browser.CHROME),
+            new Rule<>("crios/", Browser.CHROME),
+            new Rule<>("chromium/", Browser.CHROME),
+            new Rule<>("msie ", Browser.INTERNET_EXPLORER),
+            new Rule<>("trident/", Browser.INTERNET_EXPLORER),
+            new Rule<>("safari/", Browser.SAFARI));
+
+    /**
+     * Index of the first device rule in the automaton's pattern list.
+     */
+    private static final int DEVICE_OFFSET = BOT_SIGNATURES.size();
+
+    /**
+     * Index of the first browser rule in the automaton's pattern list.
+     */
+    private static final int BROWSER_OFFSET = DEVICE_OFFSET + DEVICE_RULES.size();
+
+    private static final AhoCorasick SIGNATURES = new AhoCorasick(patterns());
+
+    private final Cache<String, UserAgentClass> cache;
+    private final Counter bots;
+
+    /**
+     * Creates the classifier.
+     *
+     * @param maximumSize   the maximum number of cached User-Agents
+     * @param meterRegistry the registry used to publish statistics
+     */
+    public UserAgentClassifier(
+            @Value("${app.clicks.user-agents.cache-size:10000}") long maximumSize,
+            MeterRegistry meterRegistry) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+        this.bots = Counter.builder("tinyls.redirect.bots")
+                .description("Redirects requested by bots")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Classifies the User-Agent of a redirect and counts it if it is a bot.
+     *
+     * @param userAgent the User-Agent header, may be null
+     * @return the classification
+     */
+    public UserAgentClass classify(String userAgent) {
+        if (userAgent == null || userAgent.isBlank()) {
+            return UserAgentClass.UNKNOWN;
+        }
+        UserAgentClass userAgentClass = cache.get(userAgent, UserAgentClassifier::scan);
+        if (userAgentClass.isBot()) {
+            bots.increment();
+        }
+        return userAgentClass;
+    }
+
+    /**
+     * Classifies a User-Agent by running the signature automaton over it.
+     */
+    static UserAgentClass scan(String userAgent) {
+        Matches matches = new Matches();
+        SIGNATURES.search(userAgent, matches);
+        if (matches.bot) {
+            return new UserAgentClass(DeviceClass.BOT, Browser.OTHER);
+        }
+        return new UserAgentClass(
+                matches.device < DEVICE_RULES.size()
+                        ? DEVICE_RULES.get(matches.device).value() : DeviceClass.UNKNOWN,
+                matches.browser < BROWSER_RULES.size()
+                        ? BROWSER_RULES.get(matches.browser).value() : Browser.OTHER);
+    }
+
+    private static List<String> patterns() {
+        List<String> patterns = new ArrayList<>(BOT_SIGNATURES);
+        DEVICE_RULES.forEach(rule -> patterns.add(rule.signature()));
+        BROWSER_RULES.forEach(rule -> patterns.add(rule.signature()));
+        return patterns;
+    }
+
+    /**
+     * A User-Agent signature and the class it indicates.
+     */
+    private record Rule<T>(String signature, T value) {
+    }
+
+    /**
+     * Collects the signatures found in one User-Agent: whether any bot
+     * signature was found, and the highest-priority device and browser rules.
+     */
+    private static final class Matches implements IntConsumer {
+        private boolean bot;
+        private int device = Integer.MAX_VALUE;
+        private int browser = Integer.MAX_VALUE;
+
+        @Override
+        public void accept(int index) {
+            if (index < DEVICE_OFFSET) {
+                bot = true;
+            } else if (index < BROWSER_OFFSET) {
+                device = Math.min(device, index - DEVICE_OFFSET);
+            } else {
+                browser = Math.min(browser, index - BROWSER_OFFSET);
+            }
+        }
+    }
+}
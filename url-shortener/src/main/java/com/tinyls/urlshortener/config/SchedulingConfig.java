@@ -0,0 +1,14 @@
+package com.tinyls.urlshortener.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Scheduling Configuration class.
+ * Enables Spring's scheduled task execution for background jobs such as
+ * flushing buffered click counts.
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
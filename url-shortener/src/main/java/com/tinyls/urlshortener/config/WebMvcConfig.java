@@ -1,5 +1,12 @@
 package com.tinyls.urlshortener.config;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tinyls.urlshortener.controller.RedirectFilter;
+import com.tinyls.urlshortener.service.UrlService;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.security.SecurityProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.web.servlet.config.annotation.EnableWebMvc;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
@@ -12,11 +19,33 @@ import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
  * web-related configurations. Currently, CORS configuration has been moved to
  * SecurityConfig for better security management.
  * 
+ * It also registers the {@link RedirectFilter}, which serves public redirects
+ * before the request reaches Spring Security or the DispatcherServlet.
+ * 
  * @see SecurityConfig
  */
 @Configuration
 @EnableWebMvc
 public class WebMvcConfig implements WebMvcConfigurer {
+
+    /**
+     * Registers the redirect filter directly in front of the Spring Security
+     * filter chain.
+     * 
+     * @param urlService   the service resolving short codes
+     * @param objectMapper the mapper used to write error responses
+     * @return the filter registration
+     */
+    @Bean
+    @ConditionalOnProperty(name = "app.redirect.fast-path.enabled", havingValue = "true", matchIfMissing = true)
+    public FilterRegistrationBean<RedirectFilter> redirectFilter(UrlService urlService, ObjectMapper objectMapper) {
+        FilterRegistrationBean<RedirectFilter> registration = new FilterRegistrationBean<>(
+                new RedirectFilter(urlService, objectMapper));
+        registration.addUrlPatterns(RedirectFilter.REDIRECT_PATH_PREFIX + "*");
+        registration.setOrder(SecurityProperties.DEFAULT_FILTER_ORDER - 1);
+        return registration;
+    }
+
     // Note: CORS configuration has been moved to SecurityConfig for better security
     // management
     // This class is kept for future web-related configurations
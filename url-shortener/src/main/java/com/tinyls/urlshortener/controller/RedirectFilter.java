@@ -0,0 +1,106 @@
+package com.tinyls.urlshortener.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tinyls.urlshortener.clicks.ClickContext;
+import com.tinyls.urlshortener.dto.url.RedirectTarget;
+import com.tinyls.urlshortener.exception.ApiError;
+import com.tinyls.urlshortener.exception.ResourceNotFoundException;
+import com.tinyls.urlshortener.service.UrlService;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Servlet filter serving public redirects ahead of Spring Security and Spring
+ * MVC.
+ *
+ * Redirects need neither authentication, CORS nor handler mapping, so this
+ * filter answers GET /api/urls/r/{shortCode} itself and writes the redirect
+ * (with the status and caching headers of the URL's redirect policy) or error
+ * response directly. All other requests pass through unchanged.
+ * {@link UrlController#redirectToUrl(String, HttpServletRequest)} remains as
+ * the documented endpoint and as fallback when the filter is disabled.
+ */
+@Slf4j
+@RequiredArgsConstructor
+public class RedirectFilter extends OncePerRequestFilter {
+
+    /**
+     * Path prefix of the redirect endpoint, relative to the context path.
+     */
+    public static final String REDIRECT_PATH_PREFIX = "/api/urls/r/";
+
+    private final UrlService urlService;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * Skips every request that is not a GET for a redirect path.
+     *
+     * @param request the HTTP request
+     * @return true if the request is not a redirect
+     */
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !HttpMethod.GET.matches(request.getMethod()) || extractShortCode(request) == null;
+    }
+
+    /**
+     * Resolves the short code and writes the redirect response.
+     *
+     * @param request     the HTTP request
+     * @param response    the HTTP response
+     * @param filterChain the filter chain (not invoked for redirects)
+     * @throws ServletException if a servlet error occurs
+     * @throws IOException      if an I/O error occurs
+     */
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        String shortCode = extractShortCode(request);
+        log.debug("Redirecting to URL with short code: {}", shortCode);
+        try {
+            RedirectTarget target = urlService.getAndIncrementClicks(shortCode, ClickContext.from(request));
+            response.setStatus(target.getRedirectStatus());
+            response.setHeader(HttpHeaders.LOCATION, target.getOriginalUrl());
+            response.setHeader(HttpHeaders.CACHE_CONTROL, target.cacheControl());
+        } catch (ResourceNotFoundException e) {
+            writeError(response, new ApiError(HttpStatus.NOT_FOUND.value(), e.getMessage(),
+                    "The requested resource was not found"));
+        } catch (RuntimeException e) {
+            log.error("Failed to redirect short code: {}", shortCode, e);
+            writeError(response, new ApiError(HttpStatus.INTERNAL_SERVER_ERROR.value(),
+                    "An unexpected error occurred", e.getMessage()));
+        }
+    }
+
+    /**
+     * Extracts the short code from a redirect path.
+     *
+     * @param request the HTTP request
+     * @return the short code, or null if the request is not for a redirect path
+     */
+    private static String extractShortCode(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        if (!path.startsWith(REDIRECT_PATH_PREFIX)) {
+            return null;
+        }
+        String shortCode = path.substring(REDIRECT_PATH_PREFIX.length());
+        return shortCode.isEmpty() || shortCode.indexOf('/') >= 0 ? null : shortCode;
+    }
+
+    private void writeError(HttpServletResponse response, ApiError apiError) throws IOException {
+        response.setStatus(apiError.getStatus());
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(), apiError);
+    }
+}
@@ -1,14 +1,34 @@
 package com.tinyls.urlshortener.controller;
 
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.tinyls.urlshortener.clicks.ClickContext;
+import com.tinyls.urlshortener.clicks.ClickDimension;
+import com.tinyls.urlshortener.clicks.ClickGranularity;
+import com.tinyls.urlshortener.dto.stats.ClickBreakdownDTO;
+import com.tinyls.urlshortener.dto.stats.ClickEventDTO;
+import com.tinyls.urlshortener.dto.stats.ClickStatsDTO;
+import com.tinyls.urlshortener.dto.url.BulkUrlResultDTO;
+import com.tinyls.urlshortener.dto.url.RedirectTarget;
 import com.tinyls.urlshortener.dto.url.UrlDTO;
+import com.tinyls.urlshortener.exception.InvalidRequestException;
 import com.tinyls.urlshortener.exception.UnauthorizedException;
 import com.tinyls.urlshortener.security.UserDetailsAdapter;
+import com.tinyls.urlshortener.service.UrlCreationBatcher;
 import com.tinyls.urlshortener.service.UrlService;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -16,6 +36,10 @@ import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Instant;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
 
@@ -33,6 +57,16 @@ import java.util.UUID;
 @RequiredArgsConstructor
 public class UrlController {
     private final UrlService urlService;
+    private final UrlCreationBatcher urlCreationBatcher;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * Maximum number of URLs created by one bulk request. Bodies are read
+     * only up to one item more, so that an oversized body is rejected
+     * without being parsed.
+     */
+    @Value("${app.urls.bulk.max-items:1000}")
+    private int maxBulkItems;
 
     /**
      * Creates a new shortened URL.
@@ -52,7 +86,85 @@ public class UrlController {
         } else {
             log.debug("Creating URL for anonymous user");
         }
-        return new ResponseEntity<>(urlService.createUrl(urlDTO, userId), HttpStatus.CREATED);
+        return new ResponseEntity<>(urlCreationBatcher.create(urlDTO, userId), HttpStatus.CREATED);
+    }
+
+    /**
+     * Creates many shortened URLs at once from a JSON array.
+     * Items whose original URL was already shortened return the existing URL;
+     * invalid items are reported without failing the others.
+     * 
+     * @param body        The request body, a JSON array of URL objects
+     * @param userDetails Optional authenticated user details
+     * @return The result of each item
+     * @throws InvalidRequestException if the body is not an array of URL
+     *                                 objects or has too many items
+     */
+    @PostMapping(value = "/bulk", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<BulkUrlResultDTO> createUrls(
+            InputStream body,
+            @AuthenticationPrincipal UserDetails userDetails) throws IOException {
+        return createUrls(readBulkItems(body, true), userDetails);
+    }
+
+    /**
+     * Creates many shortened URLs at once from newline-delimited JSON, one URL
+     * object per line. A JSON array is rejected; it is posted as
+     * application/json instead.
+     * 
+     * @param body        The request body
+     * @param userDetails Optional authenticated user details
+     * @return The result of each item
+     * @throws InvalidRequestException if a line is not a valid URL object or
+     *                                 the body has too many lines
+     */
+    @PostMapping(value = "/bulk", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<BulkUrlResultDTO> createUrlsFromNdjson(
+            InputStream body,
+            @AuthenticationPrincipal UserDetails userDetails) throws IOException {
+        return createUrls(readBulkItems(body, false), userDetails);
+    }
+
+    private ResponseEntity<BulkUrlResultDTO> createUrls(List<UrlDTO> urlDTOs, UserDetails userDetails) {
+        UUID userId = userDetails != null ? ((UserDetailsAdapter) userDetails).getUserId() : null;
+        log.debug("Creating {} URLs in bulk for user: {}", urlDTOs.size(), userId);
+        return ResponseEntity.ok(urlService.createUrls(urlDTOs, userId));
+    }
+
+    /**
+     * Reads the URL objects of a bulk request body one at a time, and stops as
+     * soon as the body has more than the allowed number of items. A JSON body
+     * must be a single array of objects; an NDJSON body is a sequence of
+     * objects and must not contain arrays.
+     */
+    private List<UrlDTO> readBulkItems(InputStream body, boolean array) throws IOException {
+        String format = array ? "JSON" : "NDJSON";
+        ObjectReader reader = objectMapper.readerFor(UrlDTO.class);
+        List<UrlDTO> urlDTOs = new ArrayList<>();
+        try (JsonParser parser = objectMapper.createParser(body)) {
+            JsonToken end = null;
+            if (array) {
+                if (parser.nextToken() != JsonToken.START_ARRAY) {
+                    throw new InvalidRequestException("Invalid JSON: expected an array of URL objects");
+                }
+                end = JsonToken.END_ARRAY;
+            }
+            for (JsonToken token = parser.nextToken(); token != end; token = parser.nextToken()) {
+                if (token == JsonToken.START_ARRAY) {
+                    throw new InvalidRequestException("Invalid " + format + ": expected a URL object");
+                }
+                if (urlDTOs.size() == maxBulkItems) {
+                    throw new InvalidRequestException("At most " + maxBulkItems + " URLs can be created at once");
+                }
+                urlDTOs.add(reader.readValue(parser));
+            }
+            if (array && parser.nextToken() != null) {
+                throw new InvalidRequestException("Invalid JSON: unexpected content after the array");
+            }
+        } catch (JsonProcessingException e) {
+            throw new InvalidRequestException("Invalid " + format + ": " + e.getOriginalMessage());
+        }
+        return urlDTOs;
     }
 
     /**
@@ -125,19 +237,135 @@ public class UrlController {
         }
     }
 
+    /**
+     * Retrieves the click counts of a URL per minute, hour or day.
+     * Requires authentication.
+     * 
+     * Counts are read from pre-aggregated rollups, so the response time does
+     * not depend on the number of clicks in the range.
+     * 
+     * @param shortCode   The short code of the URL
+     * @param granularity The bucket size: minute, hour or day
+     * @param from        The inclusive start of the range (ISO-8601), defaults to
+     *                    a range depending on the granularity
+     * @param to          The exclusive end of the range (ISO-8601), defaults to
+     *                    now
+     * @param userDetails The authenticated user's details
+     * @return The click statistics
+     * @throws AccessDeniedException if the user is not authorized to access the URL
+     */
+    @GetMapping("/{shortCode}/stats")
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<ClickStatsDTO> getClickStats(
+            @PathVariable String shortCode,
+            @RequestParam(defaultValue = "hour") String granularity,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant to,
+            @AuthenticationPrincipal UserDetails userDetails) {
+        ClickGranularity clickGranularity;
+        try {
+            clickGranularity = ClickGranularity.parse(granularity);
+        } catch (IllegalArgumentException e) {
+            throw new InvalidRequestException("Granularity must be one of minute, hour or day");
+        }
+        try {
+            UUID userId = ((UserDetailsAdapter) userDetails).getUserId();
+            log.debug("Retrieving click stats for URL with short code: {} for user: {}", shortCode, userId);
+            return ResponseEntity.ok(urlService.getClickStats(shortCode, clickGranularity, from, to, userId));
+        } catch (UnauthorizedException e) {
+            throw new AccessDeniedException(e.getMessage());
+        }
+    }
+
+    /**
+     * Retrieves the most recent individual clicks of a URL.
+     * Requires authentication.
+     * 
+     * @param shortCode   The short code of the URL
+     * @param from        The inclusive start of the range (ISO-8601), defaults to
+     *                    one day before to
+     * @param to          The exclusive end of the range (ISO-8601), defaults to
+     *                    now
+     * @param limit       The maximum number of clicks returned
+     * @param userDetails The authenticated user's details
+     * @return The clicks, most recent first
+     * @throws AccessDeniedException if the user is not authorized to access the URL
+     */
+    @GetMapping("/{shortCode}/clicks")
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<List<ClickEventDTO>> getClickHistory(
+            @PathVariable String shortCode,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant to,
+            @RequestParam(defaultValue = "100") int limit,
+            @AuthenticationPrincipal UserDetails userDetails) {
+        try {
+            UUID userId = ((UserDetailsAdapter) userDetails).getUserId();
+            log.debug("Retrieving click history for URL with short code: {} for user: {}", shortCode, userId);
+            return ResponseEntity.ok(urlService.getClickHistory(shortCode, from, to, limit, userId));
+        } catch (UnauthorizedException e) {
+            throw new AccessDeniedException(e.getMessage());
+        }
+    }
+
+    /**
+     * Retrieves the all-time clicks of a URL broken down by referrer host,
+     * device class, country or browser, most clicked values first.
+     * Requires authentication.
+     * 
+     * @param shortCode   The short code of the URL
+     * @param dimension   The dimension: referrer, device, country or browser
+     * @param limit       The maximum number of values returned
+     * @param userDetails The authenticated user's details
+     * @return The click breakdown
+     * @throws AccessDeniedException if the user is not authorized to access the URL
+     */
+    @GetMapping("/{shortCode}/breakdown")
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<ClickBreakdownDTO> getClickBreakdown(
+            @PathVariable String shortCode,
+            @RequestParam(defaultValue = "referrer") String dimension,
+            @RequestParam(defaultValue = "10") int limit,
+            @AuthenticationPrincipal UserDetails userDetails) {
+        ClickDimension clickDimension;
+        try {
+            clickDimension = ClickDimension.parse(dimension);
+        } catch (IllegalArgumentException e) {
+            throw new InvalidRequestException("Dimension must be one of referrer, device, country or browser");
+        }
+        try {
+            UUID userId = ((UserDetailsAdapter) userDetails).getUserId();
+            log.debug("Retrieving click breakdown for URL with short code: {} for user: {}", shortCode, userId);
+            return ResponseEntity.ok(urlService.getClickBreakdown(shortCode, clickDimension, limit, userId));
+        } catch (UnauthorizedException e) {
+            throw new AccessDeniedException(e.getMessage());
+        }
+    }
+
     /**
      * Redirects to the original URL and increments the click count.
      * Public endpoint, no authentication required.
      * 
+     * The status code and Cache-Control header follow the URL's redirect
+     * policy, so that links which do not need exact click counts can be cached
+     * by browsers and proxies.
+     * 
+     * Requests are normally answered by {@link RedirectFilter} before they reach
+     * this controller; it only handles them when app.redirect.fast-path.enabled
+     * is false.
+     * 
      * @param shortCode The short code of the URL
+     * @param request   The HTTP request, whose details are recorded with the
+     *                  click
      * @return A redirect response to the original URL
      */
     @GetMapping("/r/{shortCode}")
-    public ResponseEntity<Void> redirectToUrl(@PathVariable String shortCode) {
+    public ResponseEntity<Void> redirectToUrl(@PathVariable String shortCode, HttpServletRequest request) {
         log.debug("Redirecting to URL with short code: {}", shortCode);
-        String originalUrl = urlService.getAndIncrementClicks(shortCode);
-        return ResponseEntity.status(HttpStatus.FOUND)
-                .header("Location", originalUrl)
+        RedirectTarget target = urlService.getAndIncrementClicks(shortCode, ClickContext.from(request));
+        return ResponseEntity.status(target.getRedirectStatus())
+                .header(HttpHeaders.LOCATION, target.getOriginalUrl())
+                .header(HttpHeaders.CACHE_CONTROL, target.cacheControl())
                 .build();
     }
 
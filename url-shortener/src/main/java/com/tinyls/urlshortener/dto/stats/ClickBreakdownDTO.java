@@ -0,0 +1,34 @@
+package com.tinyls.urlshortener.dto.stats;
+
+import com.tinyls.urlshortener.clicks.ClickDimension;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Data Transfer Object for the all-time clicks of a URL broken down by one
+ * dimension.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ClickBreakdownDTO {
+        /**
+         * The short code of the URL.
+         */
+        private String shortCode;
+
+        /**
+         * The dimension the clicks are broken down by.
+         */
+        private ClickDimension dimension;
+
+        /**
+         * The values with the most clicks, most clicked first.
+         */
+        private List<ClickDimensionCountDTO> values;
+}
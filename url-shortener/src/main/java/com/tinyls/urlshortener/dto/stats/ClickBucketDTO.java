@@ -0,0 +1,33 @@
+package com.tinyls.urlshortener.dto.stats;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * Data Transfer Object for the click count of one time bucket.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ClickBucketDTO {
+        /**
+         * The start of the time bucket (UTC).
+         */
+        private Instant start;
+
+        /**
+         * The number of clicks during the bucket.
+         */
+        private long clicks;
+
+        /**
+         * The estimated number of distinct visitors during the bucket, or null
+         * for minute buckets.
+         */
+        private Long uniqueVisitors;
+}
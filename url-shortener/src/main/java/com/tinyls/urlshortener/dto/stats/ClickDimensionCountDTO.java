@@ -0,0 +1,26 @@
+package com.tinyls.urlshortener.dto.stats;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Data Transfer Object for the click count of one dimension value.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ClickDimensionCountDTO {
+        /**
+         * The dimension value (e.g. a referrer host, device class, country
+         * code or browser).
+         */
+        private String value;
+
+        /**
+         * The number of clicks with this value.
+         */
+        private long clicks;
+}
@@ -0,0 +1,38 @@
+package com.tinyls.urlshortener.dto.stats;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * Data Transfer Object for a single recorded click of a URL.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ClickEventDTO {
+        /**
+         * When the redirect was served.
+         */
+        private Instant clickedAt;
+
+        /**
+         * The referrer, truncated; null if the request had none.
+         */
+        private String referrer;
+
+        /**
+         * 64-bit hash of the User-Agent header; null if the request had none.
+         */
+        private Long userAgentHash;
+
+        /**
+         * The client network in CIDR notation (IPv4 /24 or IPv6 /48); null if
+         * unknown.
+         */
+        private String ipPrefix;
+}
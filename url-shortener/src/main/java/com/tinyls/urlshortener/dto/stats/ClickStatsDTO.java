@@ -0,0 +1,56 @@
+package com.tinyls.urlshortener.dto.stats;
+
+import com.tinyls.urlshortener.clicks.ClickGranularity;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Data Transfer Object for the click statistics of a URL over a time range.
+ * Buckets without clicks are omitted.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ClickStatsDTO {
+        /**
+         * The short code of the URL.
+         */
+        private String shortCode;
+
+        /**
+         * The bucket size.
+         */
+        private ClickGranularity granularity;
+
+        /**
+         * The inclusive start of the range, aligned to the bucket size.
+         */
+        private Instant from;
+
+        /**
+         * The exclusive end of the range.
+         */
+        private Instant to;
+
+        /**
+         * The number of clicks in the range.
+         */
+        private long totalClicks;
+
+        /**
+         * The estimated number of distinct visitors in the range, or null for
+         * minute granularity. Visitors seen in several buckets count once.
+         */
+        private Long uniqueVisitors;
+
+        /**
+         * The click counts per bucket, in time order.
+         */
+        private List<ClickBucketDTO> buckets;
+}
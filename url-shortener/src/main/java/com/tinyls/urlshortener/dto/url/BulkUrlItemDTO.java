@@ -0,0 +1,35 @@
+package com.tinyls.urlshortener.dto.url;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Data Transfer Object for the result of one item of a bulk URL creation.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkUrlItemDTO {
+        /**
+         * The position of the item in the request, starting at 0.
+         */
+        private int index;
+
+        /**
+         * The outcome of the item.
+         */
+        private BulkUrlStatus status;
+
+        /**
+         * The created or existing URL; null if the item is invalid.
+         */
+        private UrlDTO url;
+
+        /**
+         * Why the item is invalid; null otherwise.
+         */
+        private String error;
+}
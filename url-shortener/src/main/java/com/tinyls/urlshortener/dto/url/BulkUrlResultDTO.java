@@ -0,0 +1,37 @@
+package com.tinyls.urlshortener.dto.url;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Data Transfer Object for the result of a bulk URL creation.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkUrlResultDTO {
+        /**
+         * The number of URLs created.
+         */
+        private int created;
+
+        /**
+         * The number of items answered with an existing URL.
+         */
+        private int existing;
+
+        /**
+         * The number of invalid items.
+         */
+        private int invalid;
+
+        /**
+         * The result of each item, in request order.
+         */
+        private List<BulkUrlItemDTO> items;
+}
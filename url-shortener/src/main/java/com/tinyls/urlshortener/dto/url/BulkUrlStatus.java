@@ -0,0 +1,23 @@
+package com.tinyls.urlshortener.dto.url;
+
+/**
+ * Enum representing the outcome of one item of a bulk URL creation.
+ */
+public enum BulkUrlStatus {
+    /**
+     * A new short URL was created.
+     */
+    CREATED,
+
+    /**
+     * The original URL was already shortened (for the same user, or
+     * anonymously), or appeared earlier in the same request; the existing
+     * short URL is returned.
+     */
+    EXISTING,
+
+    /**
+     * The item failed validation; nothing was created.
+     */
+    INVALID
+}
@@ -0,0 +1,58 @@
+package com.tinyls.urlshortener.dto.url;
+
+import lombok.Builder;
+import lombok.Value;
+
+/**
+ * Immutable description of where and how a short code redirects.
+ * Held by the redirect cache and used to build redirect responses.
+ */
+@Value
+@Builder
+public class RedirectTarget {
+    /**
+     * The unique identifier of the URL.
+     */
+    Long id;
+
+    /**
+     * The short code of the URL.
+     */
+    String shortCode;
+
+    /**
+     * The original URL to redirect to.
+     */
+    String originalUrl;
+
+    /**
+     * The HTTP status code of the redirect (301, 302, 307 or 308).
+     */
+    int redirectStatus;
+
+    /**
+     * How long browsers and proxies may cache the redirect, in seconds.
+     */
+    int cacheMaxAge;
+
+    /**
+     * Whether every click must reach the backend to be counted.
+     */
+    boolean exactClicks;
+
+    /**
+     * Returns the Cache-Control header value for the redirect response.
+     * Links that require exact click counts must not be cached anywhere; other
+     * links may be cached publicly for their max age. Without a max age the
+     * redirect must be revalidated on every use: browsers would otherwise
+     * cache permanent redirects (301, 308) indefinitely.
+     * 
+     * @return the Cache-Control header value
+     */
+    public String cacheControl() {
+        if (exactClicks) {
+            return "no-store";
+        }
+        return cacheMaxAge > 0 ? "public, max-age=" + cacheMaxAge : "no-cache";
+    }
+}
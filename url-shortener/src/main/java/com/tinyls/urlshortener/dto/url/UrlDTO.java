@@ -1,7 +1,10 @@
 package com.tinyls.urlshortener.dto.url;
 
+import com.tinyls.urlshortener.dto.validation.ValidRedirectStatus;
 import com.tinyls.urlshortener.dto.validation.ValidUrl;
 import com.tinyls.urlshortener.dto.validation.ValidationGroups;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Pattern;
 import jakarta.validation.constraints.Size;
@@ -57,9 +60,46 @@ public class UrlDTO {
          */
         private Long clicks;
 
+        /**
+         * The time of the last counted click, or null if the URL was never
+         * accessed. With buffered click counting, the time the click was
+         * written to the database.
+         */
+        private Timestamp lastClickedAt;
+
+        /**
+         * The estimated number of distinct visitors (client IP and User-Agent)
+         * of the URL, as of the last click rollup flush.
+         * Estimated with a HyperLogLog sketch, within about 2%.
+         * Reported by the read endpoints; 0 for a newly created URL and not
+         * set in other responses of creations and updates.
+         */
+        private Long uniqueVisitors;
+
         /**
          * The ID of the user who created the URL.
          * Optional for anonymous URLs.
          */
         private UUID userId;
+
+        /**
+         * The HTTP status code used when redirecting (301, 302, 307 or 308).
+         * Defaults to 302 when not set.
+         */
+        @ValidRedirectStatus
+        private Integer redirectStatus;
+
+        /**
+         * How long browsers and proxies may cache the redirect, in seconds.
+         * Only applies when exact click counting is not required.
+         */
+        @Min(value = 0, message = "Cache max age must not be negative")
+        @Max(value = 31536000, message = "Cache max age must not exceed one year")
+        private Integer cacheMaxAge;
+
+        /**
+         * Whether every click must reach the backend to be counted.
+         * Defaults to true when not set.
+         */
+        private Boolean exactClicks;
 }
\ No newline at end of file
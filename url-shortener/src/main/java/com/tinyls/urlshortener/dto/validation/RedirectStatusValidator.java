@@ -0,0 +1,34 @@
+package com.tinyls.urlshortener.dto.validation;
+
+import jakarta.validation.ConstraintValidator;
+import jakarta.validation.ConstraintValidatorContext;
+
+import java.util.Set;
+
+/**
+ * Implementation of the redirect status validation logic for the
+ * {@link ValidRedirectStatus} annotation.
+ * Validates that a given status code is a supported redirect status.
+ */
+public class RedirectStatusValidator implements ConstraintValidator<ValidRedirectStatus, Integer> {
+
+    /**
+     * The supported redirect status codes.
+     */
+    private static final Set<Integer> REDIRECT_STATUSES = Set.of(301, 302, 307, 308);
+
+    /**
+     * Validates the redirect status code.
+     * 
+     * @param status  the status code to validate
+     * @param context the validation context
+     * @return true if the status code is supported, false otherwise
+     */
+    @Override
+    public boolean isValid(Integer status, ConstraintValidatorContext context) {
+        if (status == null) {
+            return true; // Not set means the default (302) is used
+        }
+        return REDIRECT_STATUSES.contains(status);
+    }
+}
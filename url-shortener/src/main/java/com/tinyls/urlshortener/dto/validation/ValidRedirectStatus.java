@@ -0,0 +1,43 @@
+package com.tinyls.urlshortener.dto.validation;
+
+import jakarta.validation.Constraint;
+import jakarta.validation.Payload;
+import java.lang.annotation.*;
+
+/**
+ * Custom validation annotation for validating redirect status codes.
+ * Ensures that the provided value is one of the HTTP redirect status codes
+ * supported for short links: 301, 302, 307 or 308.
+ * 
+ * Usage:
+ * {@code
+ * @ValidRedirectStatus
+ * private Integer redirectStatus;
+ * }
+ */
+@Documented
+@Constraint(validatedBy = RedirectStatusValidator.class)
+@Target({ ElementType.FIELD, ElementType.PARAMETER })
+@Retention(RetentionPolicy.RUNTIME)
+public @interface ValidRedirectStatus {
+    /**
+     * The error message to be displayed when validation fails.
+     * 
+     * @return the error message
+     */
+    String message() default "Redirect status must be one of 301, 302, 307 or 308";
+
+    /**
+     * The validation groups this constraint belongs to.
+     * 
+     * @return the validation groups
+     */
+    Class<?>[] groups() default {};
+
+    /**
+     * Additional metadata for the constraint.
+     * 
+     * @return the payload
+     */
+    Class<? extends Payload>[] payload() default {};
+}
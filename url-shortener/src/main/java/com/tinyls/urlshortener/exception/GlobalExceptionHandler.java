@@ -31,6 +31,7 @@ import jakarta.validation.ConstraintViolationException;
  * - Authentication errors
  * - Authorization errors
  * - Resource not found errors
+ * - Invalid request errors
  * - General runtime errors
  */
 @RestControllerAdvice
@@ -171,6 +172,20 @@ public class GlobalExceptionHandler extends ResponseEntityExceptionHandler {
                 return new ResponseEntity<>(apiError, HttpStatus.BAD_REQUEST);
         }
 
+        /**
+         * Handles invalid request exceptions.
+         * These occur when request parameters are well-formed but not acceptable.
+         */
+        @ExceptionHandler(InvalidRequestException.class)
+        public ResponseEntity<Object> handleInvalidRequestException(InvalidRequestException ex) {
+                ApiError apiError = ApiError.builder()
+                                .status(HttpStatus.BAD_REQUEST.value())
+                                .message("Invalid request")
+                                .debugMessage(ex.getMessage())
+                                .build();
+                return new ResponseEntity<>(apiError, HttpStatus.BAD_REQUEST);
+        }
+
         /**
          * Handles all other unhandled exceptions.
          * Provides a generic error response for unexpected errors.
@@ -0,0 +1,12 @@
+package com.tinyls.urlshortener.exception;
+
+/**
+ * Exception thrown when request parameters are well-formed but not acceptable,
+ * e.g. an empty or too large time range.
+ */
+public class InvalidRequestException extends RuntimeException {
+
+    public InvalidRequestException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,124 @@
+package com.tinyls.urlshortener.geo;
+
+import com.tinyls.urlshortener.util.IpAddresses;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Resolves client IP addresses to countries from a local IP range file,
+ * without calling any external service.
+ *
+ * The range file is loaded into an {@link IpCountryTable} at startup; lookups
+ * are a binary search over primitive arrays and do not allocate. The file is
+ * checked for changes periodically and reloaded in the background; the new
+ * table replaces the old one atomically, so lookups always see either the old
+ * or the new data. If the file is missing or cannot be read, the previous
+ * table stays in use and addresses resolve to no country.
+ */
+@Slf4j
+@Component
+public class IpCountryResolver {
+
+    private final boolean enabled;
+    private final Path path;
+    private final ReentrantLock reloadLock = new ReentrantLock();
+
+    private volatile IpCountryTable table = IpCountryTable.EMPTY;
+    private FileTime loadedModifiedTime;
+
+    /**
+     * Creates the resolver.
+     *
+     * @param enabled       whether addresses are resolved
+     * @param path          the CSV file of IP ranges
+     * @param meterRegistry the registry used to publish statistics
+     */
+    public IpCountryResolver(
+            @Value("${app.geo.enabled:true}") boolean enabled,
+            @Value("${app.geo.ip-country-file:data/ip-country.csv}") Path path,
+            MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.path = path;
+        Gauge.builder("tinyls.geo.ip-ranges", this, resolver -> resolver.table.size())
+                .description("Number of IP ranges loaded for country resolution")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Loads the range file at startup.
+     */
+    @PostConstruct
+    public void load() {
+        if (!enabled) {
+            return;
+        }
+        if (!Files.exists(path)) {
+            log.warn("IP country file {} not found, clicks will not be attributed to countries", path);
+            return;
+        }
+        reload();
+    }
+
+    /**
+     * Resolves the country of a client address.
+     *
+     * @param address the textual IPv4 or IPv6 address
+     * @return the ISO 3166-1 alpha-2 country code, or null if unknown
+     */
+    public String resolve(String address) {
+        IpCountryTable current = table;
+        long ipv4 = IpAddresses.parseIpv4(address);
+        if (ipv4 != IpAddresses.INVALID) {
+            return current.findIpv4(ipv4);
+        }
+        long ipv6Prefix = IpAddresses.parseIpv6Prefix(address);
+        return ipv6Prefix != IpAddresses.INVALID ? current.findIpv6(ipv6Prefix) : null;
+    }
+
+    /**
+     * Reloads the range file if it changed since it was last loaded.
+     */
+    @Scheduled(fixedDelayString = "${app.geo.reload-interval:1m}",
+            initialDelayString = "${app.geo.reload-interval:1m}")
+    public void reloadIfChanged() {
+        if (!enabled || !Files.exists(path)) {
+            return;
+        }
+        try {
+            if (!Files.getLastModifiedTime(path).equals(loadedModifiedTime)) {
+                reload();
+            }
+        } catch (IOException e) {
+            log.warn("Failed to check IP country file {}", path, e);
+        }
+    }
+
+    private void reload() {
+        reloadLock.lock();
+        try {
+            long startedAt = System.nanoTime();
+            FileTime modifiedTime = Files.getLastModifiedTime(path);
+            IpCountryTable loaded = IpCountryTable.load(path);
+            table = loaded;
+            loadedModifiedTime = modifiedTime;
+            log.info("Loaded {} IP ranges from {} in {} ms ({} lines skipped)", loaded.size(), path,
+                    Duration.ofNanos(System.nanoTime() - startedAt).toMillis(), loaded.skippedLines());
+        } catch (IOException e) {
+            log.error("Failed to load IP country file {}, keeping the previous ranges", path, e);
+        } finally {
+            reloadLock.unlock();
+        }
+    }
+}
@@ -0,0 +1,222 @@
+package com.tinyls.urlshortener.geo;
+
+import com.tinyls.urlshortener.util.IpAddresses;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Immutable table of IP ranges and their countries, held in sorted primitive
+ * arrays and searched with binary search.
+ *
+ * IPv4 ranges are stored as unsigned 32-bit bounds with the sign bit flipped,
+ * so that signed comparison orders them correctly. IPv6 ranges are stored by
+ * their upper 64 bits (the network prefix) in the same way; geolocation data
+ * is not more specific than a /64. Each range refers to its country by index
+ * into a small array of interned country codes, so lookups return a shared
+ * string and never allocate.
+ *
+ * The source is a CSV file with one range per line: first address, last
+ * address and ISO 3166-1 alpha-2 country code. Addresses are textual IPv4 or
+ * IPv6 addresses, or IPv4 addresses as decimal numbers. Values may be quoted;
+ * blank lines, lines starting with '#' and lines that cannot be parsed (such
+ * as a header) are skipped.
+ */
+final class IpCountryTable {
+
+    /**
+     * Table without any ranges.
+     */
+    static final IpCountryTable EMPTY = new IpCountryTable(new int[0], new int[0], new short[0], new long[0],
+            new long[0], new short[0], new String[0], 0);
+
+    private final int[] ipv4Starts;
+    private final int[] ipv4Ends;
+    private final short[] ipv4Countries;
+    private final long[] ipv6Starts;
+    private final long[] ipv6Ends;
+    private final short[] ipv6Countries;
+    private final String[] countries;
+    private final int skippedLines;
+
+    private IpCountryTable(int[] ipv4Starts, int[] ipv4Ends, short[] ipv4Countries, long[] ipv6Starts,
+            long[] ipv6Ends, short[] ipv6Countries, String[] countries, int skippedLines) {
+        this.ipv4Starts = ipv4Starts;
+        this.ipv4Ends = ipv4Ends;
+        this.ipv4Countries = ipv4Countries;
+        this.ipv6Starts = ipv6Starts;
+        this.ipv6Ends = ipv6Ends;
+        this.ipv6Countries = ipv6Countries;
+        this.countries = countries;
+        this.skippedLines = skippedLines;
+    }
+
+    /**
+     * Looks up the country of an IPv4 address.
+     *
+     * @param address the address as an unsigned 32-bit value
+     * @return the country code, or null if no range contains the address
+     */
+    String findIpv4(long address) {
+        int key = (int) address ^ Integer.MIN_VALUE;
+        int low = 0;
+        int high = ipv4Starts.length - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (ipv4Starts[mid] <= key) {
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return high >= 0 && key <= ipv4Ends[high] ? countries[ipv4Countries[high]] : null;
+    }
+
+    /**
+     * Looks up the country of an IPv6 network.
+     *
+     * @param prefix the upper 64 bits of the address
+     * @return the country code, or null if no range contains the address
+     */
+    String findIpv6(long prefix) {
+        long key = prefix ^ Long.MIN_VALUE;
+        int low = 0;
+        int high = ipv6Starts.length - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (ipv6Starts[mid] <= key) {
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return high >= 0 && key <= ipv6Ends[high] ? countries[ipv6Countries[high]] : null;
+    }
+
+    /**
+     * Returns the number of loaded ranges.
+     *
+     * @return the number of IPv4 and IPv6 ranges
+     */
+    int size() {
+        return ipv4Starts.length + ipv6Starts.length;
+    }
+
+    /**
+     * Returns the number of lines that were skipped while loading.
+     *
+     * @return the number of skipped lines
+     */
+    int skippedLines() {
+        return skippedLines;
+    }
+
+    /**
+     * Loads a table from a CSV file.
+     *
+     * @param path the CSV file
+     * @return the table
+     * @throws IOException if the file cannot be read
+     */
+    static IpCountryTable load(Path path) throws IOException {
+        List<long[]> ipv4Ranges = new ArrayList<>();
+        List<long[]> ipv6Ranges = new ArrayList<>();
+        Map<String, Integer> countryIndexes = new HashMap<>();
+        List<String> countries = new ArrayList<>();
+        int skipped = 0;
+
+        try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank() || line.startsWith("#")) {
+                    continue;
+                }
+                String[] fields = line.split(",");
+                if (fields.length < 3) {
+                    skipped++;
+                    continue;
+                }
+                String first = unquote(fields[0]);
+                String last = unquote(fields[1]);
+                String country = unquote(fields[2]).toUpperCase(Locale.ROOT);
+                if (country.length() != 2) {
+                    skipped++;
+                    continue;
+                }
+                int countryIndex = countryIndexes.computeIfAbsent(country, code -> {
+                    countries.add(code);
+                    return countries.size() - 1;
+                });
+
+                long firstIpv4 = parseIpv4(first);
+                long lastIpv4 = parseIpv4(last);
+                if (firstIpv4 != IpAddresses.INVALID && lastIpv4 != IpAddresses.INVALID && firstIpv4 <= lastIpv4) {
+                    ipv4Ranges.add(new long[] { firstIpv4, lastIpv4, countryIndex });
+                    continue;
+                }
+                long firstIpv6 = IpAddresses.parseIpv6Prefix(first);
+                long lastIpv6 = IpAddresses.parseIpv6Prefix(last);
+                // -1 is also the prefix of ffff:ffff:ffff:ffff::/64, which may end the last range
+                boolean lastValid = lastIpv6 != IpAddresses.INVALID
+                        || last.regionMatches(true, 0, "ffff:ffff:ffff:ffff:", 0, 20);
+                if (firstIpv6 != IpAddresses.INVALID && lastValid
+                        && Long.compareUnsigned(firstIpv6, lastIpv6) <= 0) {
+                    ipv6Ranges.add(new long[] { firstIpv6, lastIpv6, countryIndex });
+                    continue;
+                }
+                skipped++;
+            }
+        }
+        if (countries.size() > Short.MAX_VALUE) {
+            throw new IOException("Too many distinct countries in " + path);
+        }
+
+        ipv4Ranges.sort(Comparator.comparingLong(range -> range[0]));
+        ipv6Ranges.sort((a, b) -> Long.compareUnsigned(a[0], b[0]));
+        int[] ipv4Starts = new int[ipv4Ranges.size()];
+        int[] ipv4Ends = new int[ipv4Ranges.size()];
+        short[] ipv4Countries = new short[ipv4Ranges.size()];
+        for (int i = 0; i < ipv4Ranges.size(); i++) {
+            long[] range = ipv4Ranges.get(i);
+            ipv4Starts[i] = (int) range[0] ^ Integer.MIN_VALUE;
+            ipv4Ends[i] = (int) range[1] ^ Integer.MIN_VALUE;
+            ipv4Countries[i] = (short) range[2];
+        }
+        long[] ipv6Starts = new long[ipv6Ranges.size()];
+        long[] ipv6Ends = new long[ipv6Ranges.size()];
+        short[] ipv6Countries = new short[ipv6Ranges.size()];
+        for (int i = 0; i < ipv6Ranges.size(); i++) {
+            long[] range = ipv6Ranges.get(i);
+            ipv6Starts[i] = range[0] ^ Long.MIN_VALUE;
+            ipv6Ends[i] = range[1] ^ Long.MIN_VALUE;
+            ipv6Countries[i] = (short) range[2];
+        }
+        return new IpCountryTable(ipv4Starts, ipv4Ends, ipv4Countries, ipv6Starts, ipv6Ends, ipv6Countries,
+                countries.stream().map(String::intern).toArray(String[]::new), skipped);
+    }
+
+    private static long parseIpv4(String value) {
+        if (!value.isEmpty() && value.chars().allMatch(Character::isDigit) && value.length() <= 10) {
+            long number = Long.parseLong(value);
+            return number <= 0xffffffffL ? number : IpAddresses.INVALID;
+        }
+        return IpAddresses.parseIpv4(value);
+    }
+
+    private static String unquote(String value) {
+        String trimmed = value.trim();
+        if (trimmed.length() >= 2 && trimmed.startsWith("\"") && trimmed.endsWith("\"")) {
+            return trimmed.substring(1, trimmed.length() - 1).trim();
+        }
+        return trimmed;
+    }
+}
@@ -0,0 +1,160 @@
+package com.tinyls.urlshortener.ids;
+
+import com.tinyls.urlshortener.repository.UrlIdRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Hands out URL IDs from blocks leased from the urls_seq sequence, so that
+ * creating a URL needs no sequence round trip of its own.
+ *
+ * Each instance leases a block of IDs (the sequence's increment) and assigns
+ * them from memory; since every block comes from its own sequence value,
+ * IDs, and the short codes encoded from them, are unique across instances.
+ * A lease is only used for a limited time: once it expires, the rest of the
+ * block is discarded and the next ID starts a new block. This bounds how long
+ * after its lease an ID may appear, which the {@link
+ * com.tinyls.urlshortener.cache.ShortCodeFilter} relies on, and keeps short
+ * codes roughly in creation order across instances. IDs left in a block when
+ * the lease expires or the process stops are skipped, so gaps are bounded by
+ * the block size.
+ */
+@Slf4j
+@Component
+public class UrlIdAllocator {
+
+    private final UrlIdRepository urlIdRepository;
+    private final long leaseNanos;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Counter leases;
+    private final Counter discarded;
+
+    private long blockSize;
+    private long next;
+    private long end;
+    private long leasedAt;
+
+    /**
+     * Creates the ID allocator.
+     *
+     * @param urlIdRepository the repository blocks are leased from
+     * @param leaseDuration   how long IDs of a leased block are handed out
+     * @param meterRegistry   the registry used to publish statistics
+     */
+    public UrlIdAllocator(
+            UrlIdRepository urlIdRepository,
+            @Value("${app.urls.id-blocks.lease-duration:1m}") Duration leaseDuration,
+            MeterRegistry meterRegistry) {
+        this.urlIdRepository = urlIdRepository;
+        this.leaseNanos = leaseDuration.toNanos();
+        this.leases = Counter.builder("tinyls.urls.id-blocks.leases")
+                .description("Blocks of URL IDs leased from the sequence")
+                .register(meterRegistry);
+        this.discarded = Counter.builder("tinyls.urls.id-blocks.discarded")
+                .description("URL IDs skipped because their block's lease expired")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Returns the longest time an ID may be handed out after its block was
+     * leased.
+     *
+     * @return the lease duration
+     */
+    public Duration leaseDuration() {
+        return Duration.ofNanos(leaseNanos);
+    }
+
+    /**
+     * Returns an unused URL ID, leasing a new block if needed.
+     *
+     * @return the ID
+     */
+    public long nextId() {
+        lock.lock();
+        try {
+            long now = System.nanoTime();
+            if (next == end || now - leasedAt > leaseNanos) {
+                lease(now);
+            }
+            return next++;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns a number of unused URL IDs in ascending order, leasing all
+     * blocks needed in one round trip. The last block stays leased for the
+     * following IDs.
+     *
+     * @param count the number of IDs
+     * @return the IDs
+     */
+    public long[] nextIds(int count) {
+        long[] ids = new long[count];
+        lock.lock();
+        try {
+            long now = System.nanoTime();
+            if (now - leasedAt > leaseNanos) {
+                discard();
+            }
+            int assigned = 0;
+            while (assigned < count && next < end) {
+                ids[assigned++] = next++;
+            }
+            if (assigned < count) {
+                long blockSize = blockSize();
+                int blocks = (int) ((count - assigned + blockSize - 1) / blockSize);
+                for (long start : urlIdRepository.leaseBlocks(blocks)) {
+                    next = start;
+                    end = start + blockSize;
+                    while (assigned < count && next < end) {
+                        ids[assigned++] = next++;
+                    }
+                }
+                leasedAt = now;
+                leases.increment(blocks);
+            }
+            // Blocks need not be adjacent, or in order
+            Arrays.sort(ids);
+            return ids;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void lease(long now) {
+        long blockSize = blockSize();
+        long remaining = end - next;
+        next = urlIdRepository.leaseBlock();
+        end = next + blockSize;
+        if (remaining > 0) {
+            discarded.increment(remaining);
+        }
+        leasedAt = now;
+        leases.increment();
+    }
+
+    private void discard() {
+        if (next < end) {
+            discarded.increment(end - next);
+            next = end;
+        }
+    }
+
+    private long blockSize() {
+        if (blockSize == 0) {
+            blockSize = urlIdRepository.findBlockSize();
+            log.info("Leasing URL IDs in blocks of {}", blockSize);
+        }
+        return blockSize;
+    }
+}
@@ -1,10 +1,12 @@
 package com.tinyls.urlshortener.mapper;
 
+import com.tinyls.urlshortener.dto.url.RedirectTarget;
 import com.tinyls.urlshortener.dto.url.UrlDTO;
 import com.tinyls.urlshortener.model.Url;
 import org.mapstruct.Mapper;
 import org.mapstruct.Mapping;
 import org.mapstruct.MappingTarget;
+import org.mapstruct.NullValuePropertyMappingStrategy;
 import org.mapstruct.ReportingPolicy;
 
 /**
@@ -16,6 +18,7 @@ import org.mapstruct.ReportingPolicy;
  * - Entity to DTO conversion
  * - DTO to entity conversion
  * - Entity updates from DTO
+ * - Entity to redirect target conversion
  */
 @Mapper(componentModel = "spring", unmappedTargetPolicy = ReportingPolicy.IGNORE)
 public interface UrlMapper {
@@ -37,8 +40,13 @@ public interface UrlMapper {
     @Mapping(target = "id", ignore = true)
     @Mapping(target = "createdAt", ignore = true)
     @Mapping(target = "clicks", ignore = true)
+    @Mapping(target = "lastClickedAt", ignore = true)
     @Mapping(target = "user", ignore = true)
     @Mapping(target = "shortCode", ignore = true)
+    @Mapping(target = "urlHash", ignore = true)
+    @Mapping(target = "redirectStatus", defaultValue = "302")
+    @Mapping(target = "cacheMaxAge", defaultValue = "0")
+    @Mapping(target = "exactClicks", defaultValue = "true")
     Url toEntity(UrlDTO urlDTO);
 
     /**
@@ -50,7 +58,19 @@ public interface UrlMapper {
     @Mapping(target = "id", ignore = true)
     @Mapping(target = "createdAt", ignore = true)
     @Mapping(target = "clicks", ignore = true)
+    @Mapping(target = "lastClickedAt", ignore = true)
     @Mapping(target = "user", ignore = true)
     @Mapping(target = "shortCode", ignore = true)
+    @Mapping(target = "redirectStatus", nullValuePropertyMappingStrategy = NullValuePropertyMappingStrategy.IGNORE)
+    @Mapping(target = "cacheMaxAge", nullValuePropertyMappingStrategy = NullValuePropertyMappingStrategy.IGNORE)
+    @Mapping(target = "exactClicks", nullValuePropertyMappingStrategy = NullValuePropertyMappingStrategy.IGNORE)
     void updateEntityFromDTO(UrlDTO urlDTO, @MappingTarget Url url);
+
+    /**
+     * Converts a URL entity to the redirect target used by the redirect path.
+     * 
+     * @param url the URL entity to convert
+     * @return the corresponding redirect target
+     */
+    RedirectTarget toRedirectTarget(Url url);
 }
\ No newline at end of file
@@ -3,20 +3,38 @@ package com.tinyls.urlshortener.model;
 import java.sql.Timestamp;
 
 import com.tinyls.urlshortener.util.Base62;
+import com.tinyls.urlshortener.util.UrlHashes;
 import jakarta.persistence.*;
 import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.DynamicUpdate;
+import org.hibernate.annotations.Formula;
 
+import lombok.AccessLevel;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import org.springframework.data.domain.Persistable;
 
 // TODO: check if you can remove the idx_url_shortcode
 
 /**
  * Entity class representing a shortened URL in the system.
  * Maps to the 'urls' table in the database.
+ * 
+ * Updates only write the changed columns.
+ * 
+ * Click statistics live in the narrow url_stats table, so that clicks never
+ * rewrite the urls row. They are read-only here; clicks are counted with
+ * relative updates of url_stats.
+ * 
+ * IDs are assigned from blocks leased by the UrlIdAllocator before the URL is
+ * saved, not generated by Hibernate. The entity reports itself as new until it
+ * is persisted or loaded, so that saving it inserts without a prior select.
+ * 
+ * The url_hash column follows the original URL, so that duplicate checks can
+ * probe the (user_id, url_hash) index.
  */
 @Getter
 @Setter
@@ -24,19 +42,18 @@ import lombok.Setter;
 @AllArgsConstructor
 @Builder
 @Entity
+@DynamicUpdate
 @EntityListeners(Url.ShortCodeListener.class)
 @Table(name = "urls", indexes = {
         @Index(name = "idx_url_shortcode", columnList = "shortCode", unique = true)
 })
-@SequenceGenerator(name = "url_seq", sequenceName = "urls_seq", allocationSize = 1, initialValue = 3844)
-public class Url {
+public class Url implements Persistable<Long> {
 
     /**
      * Unique identifier for the URL.
-     * Auto-generated by the database.
+     * Assigned from a block of the urls_seq sequence leased by this instance.
      */
     @Id
-    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "url_seq")
     private Long id;
 
     /**
@@ -53,6 +70,14 @@ public class Url {
     @Column(nullable = false, length = 2048)
     private String originalUrl;
 
+    /**
+     * Hash of the original URL, see UrlHashes.
+     * Kept in sync with the original URL; null only for rows created before
+     * the column existed that were not backfilled yet.
+     */
+    @Setter(AccessLevel.NONE)
+    private Long urlHash;
+
     /**
      * The timestamp when the URL was created.
      * Automatically set when the URL is created.
@@ -63,12 +88,44 @@ public class Url {
 
     /**
      * The number of times the URL has been accessed.
-     * Initialized to 0 and incremented on each access.
+     * Summed over the URL's counter stripes in url_stats; 0 for a URL that was
+     * just created.
      */
     @Builder.Default
-    @Column(nullable = false)
+    @Formula("(SELECT sum(s.clicks) FROM url_stats s WHERE s.url_id = id)")
     private Long clicks = 0L; // Default to 0
 
+    /**
+     * The time of the last counted click, or null if the URL was never
+     * accessed. Read from url_stats.
+     */
+    @Formula("(SELECT max(s.last_clicked_at) FROM url_stats s WHERE s.url_id = id)")
+    private Timestamp lastClickedAt;
+
+    /**
+     * The HTTP status code used when redirecting (301, 302, 307 or 308).
+     * Defaults to 302 (Found).
+     */
+    @Builder.Default
+    @Column(nullable = false)
+    private Integer redirectStatus = 302;
+
+    /**
+     * How long browsers and proxies may cache the redirect, in seconds.
+     * Only applies to links that do not require exact click counts.
+     */
+    @Builder.Default
+    @Column(nullable = false)
+    private Integer cacheMaxAge = 0;
+
+    /**
+     * Whether every click must reach the backend to be counted.
+     * When set, redirects are sent with caching disabled.
+     */
+    @Builder.Default
+    @Column(nullable = false)
+    private Boolean exactClicks = true;
+
     /**
      * The user who created this URL.
      * Can be null for anonymous URLs.
@@ -77,10 +134,42 @@ public class Url {
     @JoinColumn(name = "user_id")
     private User user;
 
+    /**
+     * Whether the URL was persisted or loaded in this persistence context.
+     */
+    @Transient
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private boolean persisted;
+
+    public void setOriginalUrl(String originalUrl) {
+        this.originalUrl = originalUrl;
+        this.urlHash = originalUrl != null ? UrlHashes.hash(originalUrl) : null;
+    }
+
+    /**
+     * Hashes the original URL of URLs built without the setter.
+     */
+    @PrePersist
+    void hashOriginalUrl() {
+        setOriginalUrl(originalUrl);
+    }
+
+    @Override
+    public boolean isNew() {
+        return !persisted;
+    }
+
+    @PostPersist
+    @PostLoad
+    void markPersisted() {
+        persisted = true;
+    }
+
     public static class ShortCodeListener {
         /**
-         * PrePersist is called *after* Hibernate has obtained the SEQUENCE value
-         * but *before* the INSERT is executed.
+         * PrePersist is called *after* the ID has been assigned but *before*
+         * the INSERT is executed.
          */
         @PrePersist
         public void onPrePersist(Url url) {
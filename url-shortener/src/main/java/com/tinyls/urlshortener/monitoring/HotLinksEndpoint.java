@@ -0,0 +1,42 @@
+package com.tinyls.urlshortener.monitoring;
+
+import com.tinyls.urlshortener.cache.HotLinks;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Exposes the most requested short codes as the actuator endpoint
+ * /actuator/hotlinks. Like every actuator endpoint but health, it is only
+ * available to admins, since it lists the links users visit most.
+ *
+ * Hit counts are Count-Min estimates of recent requests, refreshed
+ * periodically; see {@link HotLinks}.
+ */
+@Component
+@Endpoint(id = "hotlinks")
+@RequiredArgsConstructor
+public class HotLinksEndpoint {
+
+    private final HotLinks hotLinks;
+
+    /**
+     * Returns the current top-K short codes, most requested first, and whether
+     * each is served from the hot-link map.
+     *
+     * @return the hot-link report
+     */
+    @ReadOperation
+    public Map<String, Object> report() {
+        List<HotLinks.HeavyHitter> topK = hotLinks.topK();
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("hot", topK.stream().filter(HotLinks.HeavyHitter::hot).count());
+        report.put("topK", topK);
+        return report;
+    }
+}
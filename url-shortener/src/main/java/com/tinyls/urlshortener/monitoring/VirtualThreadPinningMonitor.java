@@ -0,0 +1,145 @@
+package com.tinyls.urlshortener.monitoring;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordedStackTrace;
+import jdk.jfr.consumer.RecordingStream;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Detects virtual threads pinned to their carrier thread.
+ *
+ * A virtual thread that blocks while inside a synchronized block or a native
+ * frame cannot unmount and keeps its carrier thread busy. This monitor listens
+ * to the JDK Flight Recorder event jdk.VirtualThreadPinned in-process and
+ * aggregates the pinning occurrences by the application frame that caused them.
+ *
+ * The report is exposed as the actuator endpoint /actuator/pinning, to admins
+ * only, since it contains stack traces. The monitor is only active when the
+ * application runs on virtual threads.
+ */
+@Slf4j
+@Component
+@Endpoint(id = "pinning")
+@ConditionalOnThreading(Threading.VIRTUAL)
+public class VirtualThreadPinningMonitor {
+
+    private static final String PINNED_EVENT = "jdk.VirtualThreadPinned";
+
+    private static final int REPORT_LIMIT = 20;
+
+    private final Map<String, PinningSite> sites = new ConcurrentHashMap<>();
+
+    private final LongAdder totalEvents = new LongAdder();
+
+    @Value("${app.virtual-threads.pinning-monitor.threshold:20ms}")
+    private Duration threshold;
+
+    private RecordingStream recordingStream;
+
+    /**
+     * Starts listening to pinning events.
+     */
+    @PostConstruct
+    public void start() {
+        recordingStream = new RecordingStream();
+        recordingStream.enable(PINNED_EVENT).withThreshold(threshold).withStackTrace();
+        recordingStream.onEvent(PINNED_EVENT, this::record);
+        recordingStream.startAsync();
+        log.info("Virtual thread pinning monitor started with threshold {}", threshold);
+    }
+
+    /**
+     * Stops listening to pinning events.
+     */
+    @PreDestroy
+    public void stop() {
+        if (recordingStream != null) {
+            recordingStream.close();
+        }
+    }
+
+    /**
+     * Returns the pinning report: the total number of pinning events above the
+     * threshold and the sites that caused the most of them.
+     *
+     * @return the pinning report
+     */
+    @ReadOperation
+    public Map<String, Object> report() {
+        List<Map<String, Object>> topSites = sites.entrySet().stream()
+                .sorted(Comparator.comparingLong(
+                        (Map.Entry<String, PinningSite> entry) -> entry.getValue().count.sum()).reversed())
+                .limit(REPORT_LIMIT)
+                .map(entry -> {
+                    Map<String, Object> site = new LinkedHashMap<>();
+                    site.put("frame", entry.getKey());
+                    site.put("count", entry.getValue().count.sum());
+                    site.put("maxDurationMs", entry.getValue().maxDurationNanos.get() / 1_000_000.0);
+                    return site;
+                })
+                .toList();
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("threshold", threshold.toString());
+        report.put("totalEvents", totalEvents.sum());
+        report.put("sites", topSites);
+        return report;
+    }
+
+    private void record(RecordedEvent event) {
+        totalEvents.increment();
+        String frame = pinningFrame(event.getStackTrace());
+        PinningSite site = sites.computeIfAbsent(frame, key -> new PinningSite());
+        site.count.increment();
+        site.maxDurationNanos.accumulate(event.getDuration().toNanos());
+        log.warn("Virtual thread pinned for {} ms at {}", event.getDuration().toMillis(), frame);
+    }
+
+    /**
+     * Picks the frame to attribute a pinning event to: the first frame outside
+     * of the JDK, or the top frame if the whole stack belongs to the JDK.
+     */
+    private static String pinningFrame(RecordedStackTrace stackTrace) {
+        if (stackTrace == null || stackTrace.getFrames().isEmpty()) {
+            return "unknown";
+        }
+        List<RecordedFrame> frames = stackTrace.getFrames();
+        RecordedFrame selected = frames.stream()
+                .filter(frame -> !isJdkFrame(frame))
+                .findFirst()
+                .orElse(frames.get(0));
+        return selected.getMethod().getType().getName() + "." + selected.getMethod().getName()
+                + ":" + selected.getLineNumber();
+    }
+
+    private static boolean isJdkFrame(RecordedFrame frame) {
+        String type = frame.getMethod().getType().getName();
+        return type.startsWith("java.") || type.startsWith("jdk.") || type.startsWith("sun.");
+    }
+
+    /**
+     * Aggregated pinning events for one frame.
+     */
+    private static final class PinningSite {
+        private final LongAdder count = new LongAdder();
+        private final LongAccumulator maxDurationNanos = new LongAccumulator(Math::max, 0L);
+    }
+}
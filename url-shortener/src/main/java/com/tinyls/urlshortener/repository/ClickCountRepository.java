@@ -0,0 +1,129 @@
+package com.tinyls.urlshortener.repository;
+
+import com.tinyls.urlshortener.dto.url.RedirectTarget;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.ToIntFunction;
+
+/**
+ * Repository for click count updates on the redirect path.
+ * Uses plain JDBC since the updates are relative ("clicks + n") and must not
+ * go through entity loading or dirty checking.
+ *
+ * Counters live in the narrow url_stats table; the urls row is only read, so
+ * clicks never create dead versions of it. URLs with heavy write traffic have
+ * several counter stripes, see {@link com.tinyls.urlshortener.clicks.ClickStripes}.
+ */
+@Repository
+@RequiredArgsConstructor
+public class ClickCountRepository {
+
+    private static final String ADD_CLICKS_SQL = "UPDATE url_stats s "
+            + "SET clicks = s.clicks + ?, last_clicked_at = now() "
+            + "FROM urls u WHERE u.short_code = ? AND s.url_id = u.id AND s.stripe = ?";
+
+    private static final String INCREMENT_BY_SHORT_CODE_SQL = "UPDATE url_stats s "
+            + "SET clicks = s.clicks + 1, last_clicked_at = now() "
+            + "FROM urls u WHERE u.short_code = ? AND s.url_id = u.id AND s.stripe = ? "
+            + "RETURNING " + RedirectTargetRowMapper.COLUMNS;
+
+    private static final String INCREMENT_BY_ID_SQL = "UPDATE url_stats s "
+            + "SET clicks = s.clicks + 1, last_clicked_at = now() "
+            + "FROM urls u WHERE s.url_id = ? AND s.stripe = ? AND u.id = s.url_id AND u.short_code = ? "
+            + "RETURNING " + RedirectTargetRowMapper.COLUMNS;
+
+    private static final String ADD_STRIPES_SQL = "INSERT INTO url_stats (url_id, stripe) "
+            + "SELECT u.id, stripe FROM urls u, generate_series(1, ? - 1) AS stripe WHERE u.short_code = ? "
+            + "ON CONFLICT (url_id, stripe) DO NOTHING";
+
+    private static final String FIND_STRIPED_SQL = "SELECT u.short_code FROM url_stats s "
+            + "JOIN urls u ON u.id = s.url_id WHERE s.stripe = 1";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Increments the click count of a URL and returns its redirect target in a
+     * single statement.
+     *
+     * @param shortCode the short code of the URL
+     * @param stripe    the counter stripe to increment (0 unless the URL is
+     *                  striped)
+     * @return an Optional containing the redirect target if found, empty
+     *         otherwise
+     */
+    @Transactional
+    public Optional<RedirectTarget> incrementClicks(String shortCode, int stripe) {
+        return queryForRedirectTarget(INCREMENT_BY_SHORT_CODE_SQL, shortCode, stripe);
+    }
+
+    /**
+     * Increments the click count of a URL by primary key and returns its
+     * redirect target in a single statement. The short code must match as well.
+     *
+     * @param id        the ID the short code decodes to
+     * @param shortCode the short code of the URL
+     * @param stripe    the counter stripe to increment (0 unless the URL is
+     *                  striped)
+     * @return an Optional containing the redirect target if found, empty
+     *         otherwise
+     */
+    @Transactional
+    public Optional<RedirectTarget> incrementClicks(long id, String shortCode, int stripe) {
+        return queryForRedirectTarget(INCREMENT_BY_ID_SQL, id, stripe, shortCode);
+    }
+
+    /**
+     * Adds click deltas to the stored click counts in one JDBC batch and sets
+     * the last click time to the time of the flush.
+     * Short codes without a matching URL (e.g. deleted meanwhile) are ignored.
+     *
+     * @param deltas  the number of clicks to add, keyed by short code
+     * @param stripes the counter stripe to add to, by short code
+     */
+    @Transactional
+    public void addClicks(Map<String, Long> deltas, ToIntFunction<String> stripes) {
+        List<Object[]> batchArgs = new ArrayList<>(deltas.size());
+        deltas.forEach((shortCode, delta) -> batchArgs.add(
+                new Object[] { delta, shortCode, stripes.applyAsInt(shortCode) }));
+        jdbcTemplate.batchUpdate(ADD_CLICKS_SQL, batchArgs);
+    }
+
+    /**
+     * Creates the counter stripes 1 to stripes - 1 of URLs, next to their
+     * existing base row. Stripes that already exist are kept.
+     *
+     * @param shortCodes the short codes of the URLs to stripe
+     * @param stripes    the total number of stripes per URL
+     */
+    @Transactional
+    public void addStripes(Collection<String> shortCodes, int stripes) {
+        List<Object[]> batchArgs = new ArrayList<>(shortCodes.size());
+        shortCodes.forEach(shortCode -> batchArgs.add(new Object[] { stripes, shortCode }));
+        jdbcTemplate.batchUpdate(ADD_STRIPES_SQL, batchArgs);
+    }
+
+    /**
+     * Finds the short codes of all URLs with striped counters.
+     *
+     * @return the short codes
+     */
+    @Transactional(readOnly = true)
+    public Set<String> findStripedShortCodes() {
+        return new HashSet<>(jdbcTemplate.queryForList(FIND_STRIPED_SQL, String.class));
+    }
+
+    private Optional<RedirectTarget> queryForRedirectTarget(String sql, Object... args) {
+        List<RedirectTarget> targets = jdbcTemplate.query(sql, RedirectTargetRowMapper.INSTANCE, args);
+        return targets.stream().findFirst();
+    }
+}
@@ -0,0 +1,155 @@
+package com.tinyls.urlshortener.repository;
+
+import com.tinyls.urlshortener.clicks.ClickDimension;
+import com.tinyls.urlshortener.clicks.ClickDimensionKey;
+import com.tinyls.urlshortener.dto.stats.ClickDimensionCountDTO;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+
+/**
+ * Repository for the click dimension dictionary (click_dimension_values) and
+ * the per-URL dimension counters (url_click_dimensions).
+ * Counters are only ever changed by relative upserts, so concurrent writers on
+ * several instances add up instead of overwriting each other.
+ */
+@Repository
+@RequiredArgsConstructor
+public class ClickDimensionRepository {
+
+    private static final String FIND_VALUE_IDS_SQL = "SELECT value, id FROM click_dimension_values "
+            + "WHERE dimension = ? AND value = ANY (?)";
+
+    private static final String INSERT_VALUE_SQL = "INSERT INTO click_dimension_values (dimension, value) "
+            + "VALUES (?, ?) ON CONFLICT (dimension, value) DO NOTHING";
+
+    private static final String ADD_CLICKS_SQL = "INSERT INTO url_click_dimensions "
+            + "(url_id, dimension, value_id, clicks) VALUES (?, ?, ?, ?) "
+            + "ON CONFLICT (url_id, dimension, value_id) "
+            + "DO UPDATE SET clicks = url_click_dimensions.clicks + EXCLUDED.clicks";
+
+    private static final String FIND_TOP_SQL = "SELECT v.value, d.clicks FROM url_click_dimensions d "
+            + "JOIN click_dimension_values v ON v.id = d.value_id "
+            + "WHERE d.url_id = ? AND d.dimension = ? ORDER BY d.clicks DESC LIMIT ?";
+
+    private static final String FIND_URL_VALUES_SQL = "SELECT d.url_id, d.value_id, v.value "
+            + "FROM url_click_dimensions d JOIN click_dimension_values v ON v.id = d.value_id "
+            + "WHERE d.dimension = ? AND d.url_id = ANY (?)";
+
+    private static final String PURGE_DELETED_SQL = "DELETE FROM url_click_dimensions d "
+            + "WHERE NOT EXISTS (SELECT 1 FROM urls WHERE urls.id = d.url_id)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Looks up the dictionary IDs of dimension values, adding the values that
+     * are not in the dictionary yet.
+     *
+     * @param dimension the dimension
+     * @param values    the values
+     * @return the dictionary ID of each value
+     */
+    @Transactional
+    public Map<String, Integer> intern(ClickDimension dimension, Collection<String> values) {
+        Map<String, Integer> ids = findValueIds(dimension, values);
+        if (ids.size() < values.size()) {
+            // Inserted only when missing, so that conflicts do not use up IDs
+            List<Object[]> batchArgs = new ArrayList<>();
+            values.stream()
+                    .filter(value -> !ids.containsKey(value))
+                    .forEach(value -> batchArgs.add(new Object[] { dimension.code(), value }));
+            jdbcTemplate.batchUpdate(INSERT_VALUE_SQL, batchArgs);
+            ids.putAll(findValueIds(dimension, batchArgs.stream().map(args -> (String) args[1]).toList()));
+        }
+        return ids;
+    }
+
+    /**
+     * Adds click deltas to the dimension counters in one JDBC batch. Counters
+     * are written in key order so that concurrent flushes lock rows in the
+     * same order.
+     *
+     * @param deltas the number of clicks to add per counter
+     */
+    @Transactional
+    public void addClicks(SortedMap<ClickDimensionKey, Long> deltas) {
+        List<Object[]> batchArgs = new ArrayList<>(deltas.size());
+        deltas.forEach((key, delta) -> batchArgs.add(
+                new Object[] { key.urlId(), key.dimension().code(), key.valueId(), delta }));
+        jdbcTemplate.batchUpdate(ADD_CLICKS_SQL, batchArgs);
+    }
+
+    /**
+     * Finds the most clicked values of a URL's dimension, read from the front
+     * of the counter index.
+     *
+     * @param urlId     the ID of the URL
+     * @param dimension the dimension
+     * @param limit     the maximum number of values
+     * @return the values, most clicked first
+     */
+    @Transactional(readOnly = true)
+    public List<ClickDimensionCountDTO> findTop(long urlId, ClickDimension dimension, int limit) {
+        return jdbcTemplate.query(FIND_TOP_SQL,
+                (resultSet, rowNum) -> ClickDimensionCountDTO.builder()
+                        .value(resultSet.getString(1))
+                        .clicks(resultSet.getLong(2))
+                        .build(),
+                urlId, dimension.code(), limit);
+    }
+
+    /**
+     * Finds the values that already have a counter in one dimension of each
+     * of the given URLs.
+     *
+     * @param dimension the dimension
+     * @param urlIds    the IDs of the URLs
+     * @return the counted values of each URL that has any, by dictionary ID
+     */
+    @Transactional(readOnly = true)
+    public Map<Long, Map<Integer, String>> findValues(ClickDimension dimension, Collection<Long> urlIds) {
+        Map<Long, Map<Integer, String>> values = new HashMap<>();
+        jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(FIND_URL_VALUES_SQL);
+            statement.setShort(1, dimension.code());
+            statement.setArray(2, connection.createArrayOf("bigint", urlIds.toArray()));
+            return statement;
+        }, resultSet -> {
+            values.computeIfAbsent(resultSet.getLong(1), urlId -> new HashMap<>())
+                    .put(resultSet.getInt(2), resultSet.getString(3));
+        });
+        return values;
+    }
+
+    /**
+     * Deletes the dimension counters of deleted URLs.
+     *
+     * @return the number of deleted counters
+     */
+    @Transactional
+    public int purgeDeletedUrls() {
+        return jdbcTemplate.update(PURGE_DELETED_SQL);
+    }
+
+    private Map<String, Integer> findValueIds(ClickDimension dimension, Collection<String> values) {
+        Map<String, Integer> ids = new HashMap<>();
+        jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(FIND_VALUE_IDS_SQL);
+            statement.setShort(1, dimension.code());
+            statement.setArray(2, connection.createArrayOf("varchar", values.toArray()));
+            return statement;
+        }, resultSet -> {
+            ids.put(resultSet.getString(1), resultSet.getInt(2));
+        });
+        return ids;
+    }
+}
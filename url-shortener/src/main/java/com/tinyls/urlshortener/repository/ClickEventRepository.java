@@ -0,0 +1,207 @@
+package com.tinyls.urlshortener.repository;
+
+import com.tinyls.urlshortener.clicks.ClickEvent;
+import com.tinyls.urlshortener.clicks.ClickLogPosition;
+import com.tinyls.urlshortener.dto.stats.ClickEventDTO;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Repository for ingesting click events into the url_clicks table and reading
+ * them back.
+ *
+ * Each click event log records how far it has been ingested in the
+ * click_log_checkpoints table, in the same transaction as the inserted events,
+ * so that replaying a log after a crash never inserts an event twice.
+ *
+ * url_clicks is partitioned by UTC day into tables named url_clicks_YYYYMMDD,
+ * plus a default partition for days without one. Queries must restrict
+ * clicked_at so that only the partitions of the requested days are scanned.
+ */
+@Repository
+@RequiredArgsConstructor
+public class ClickEventRepository {
+
+    private static final String INSERT_CLICK_SQL = "INSERT INTO url_clicks "
+            + "(url_id, clicked_at, referrer, user_agent_hash, ip_prefix) VALUES (?, ?, ?, ?, ?::inet)";
+
+    private static final String UPSERT_CHECKPOINT_SQL = "INSERT INTO click_log_checkpoints "
+            + "(log_id, segment, position, updated_at) VALUES (?, ?, ?, now()) "
+            + "ON CONFLICT (log_id) DO UPDATE SET segment = EXCLUDED.segment, position = EXCLUDED.position, "
+            + "updated_at = EXCLUDED.updated_at";
+
+    private static final String FIND_CHECKPOINT_SQL = "SELECT segment, position FROM click_log_checkpoints "
+            + "WHERE log_id = ?";
+
+    private static final String FIND_CLICKS_SQL = "SELECT clicked_at, referrer, user_agent_hash, ip_prefix "
+            + "FROM url_clicks WHERE url_id = ? AND clicked_at >= ? AND clicked_at < ? "
+            + "ORDER BY clicked_at DESC LIMIT ?";
+
+    // Serializes partition maintenance across instances; released when the transaction ends
+    private static final String TRY_LOCK_PARTITIONS_SQL = "SELECT pg_try_advisory_xact_lock(hashtext('url_clicks_partitions'))";
+
+    private static final String ENSURE_PARTITIONS_SQL = "SELECT ensure_url_clicks_partitions(?, ?)";
+
+    private static final String FIND_PARTITIONS_SQL = "SELECT c.relname FROM pg_inherits i "
+            + "JOIN pg_class c ON c.oid = i.inhrelid WHERE i.inhparent = 'url_clicks'::regclass "
+            + "AND c.relname ~ '^url_clicks_[0-9]{8}$' ORDER BY c.relname";
+
+    private static final String IS_PARTITION_SQL = "SELECT EXISTS (SELECT 1 FROM pg_inherits i "
+            + "JOIN pg_class c ON c.oid = i.inhrelid WHERE i.inhparent = 'url_clicks'::regclass AND c.relname = ?)";
+
+    private static final String DETACH_PARTITION_SQL = "ALTER TABLE url_clicks DETACH PARTITION %s";
+
+    private static final String DROP_PARTITION_SQL = "DROP TABLE %s";
+
+    private static final String PURGE_DEFAULT_PARTITION_SQL = "DELETE FROM url_clicks_default WHERE clicked_at < ?";
+
+    private static final String PARTITION_PREFIX = "url_clicks_";
+
+    private static final DateTimeFormatter PARTITION_SUFFIX = DateTimeFormatter.BASIC_ISO_DATE;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Inserts click events in one JDBC batch and advances the checkpoint of the
+     * log they were read from.
+     *
+     * @param events     the click events
+     * @param logId      the ID of the click event log
+     * @param checkpoint the log position after the last event
+     */
+    @Transactional
+    public void insert(List<ClickEvent> events, UUID logId, ClickLogPosition checkpoint) {
+        if (!events.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_CLICK_SQL, events, events.size(), (statement, event) -> {
+                statement.setLong(1, event.getUrlId());
+                statement.setTimestamp(2, Timestamp.from(event.getClickedAt()));
+                statement.setString(3, event.getReferrer());
+                if (event.getUserAgentHash() != 0L) {
+                    statement.setLong(4, event.getUserAgentHash());
+                } else {
+                    statement.setNull(4, Types.BIGINT);
+                }
+                statement.setString(5, event.getIpPrefix());
+            });
+        }
+        jdbcTemplate.update(UPSERT_CHECKPOINT_SQL, logId, checkpoint.segment(), checkpoint.position());
+    }
+
+    /**
+     * Finds how far a click event log has been ingested.
+     *
+     * @param logId the ID of the click event log
+     * @return an Optional containing the position of the next event to ingest,
+     *         empty if nothing was ingested from the log yet
+     */
+    @Transactional(readOnly = true)
+    public Optional<ClickLogPosition> findCheckpoint(UUID logId) {
+        return jdbcTemplate.query(FIND_CHECKPOINT_SQL,
+                (resultSet, rowNum) -> new ClickLogPosition(resultSet.getLong(1), resultSet.getInt(2)), logId)
+                .stream()
+                .findFirst();
+    }
+
+    /**
+     * Finds the most recent clicks of a URL in a time range. Only the
+     * partitions of the days in the range are scanned.
+     *
+     * @param urlId the ID of the URL
+     * @param from  the inclusive start of the range
+     * @param to    the exclusive end of the range
+     * @param limit the maximum number of clicks returned
+     * @return the clicks, most recent first
+     */
+    @Transactional(readOnly = true)
+    public List<ClickEventDTO> findClicks(long urlId, Instant from, Instant to, int limit) {
+        return jdbcTemplate.query(FIND_CLICKS_SQL,
+                (resultSet, rowNum) -> {
+                    long userAgentHash = resultSet.getLong(3);
+                    return ClickEventDTO.builder()
+                            .clickedAt(resultSet.getTimestamp(1).toInstant())
+                            .referrer(resultSet.getString(2))
+                            .userAgentHash(resultSet.wasNull() ? null : userAgentHash)
+                            .ipPrefix(resultSet.getString(4))
+                            .build();
+                },
+                urlId, Timestamp.from(from), Timestamp.from(to), limit);
+    }
+
+    /**
+     * Creates the daily partitions of url_clicks for a range of days, if
+     * missing. Skipped while another instance maintains the partitions.
+     *
+     * @param firstDay the first day (UTC)
+     * @param days     the number of days
+     * @return the number of created partitions
+     */
+    @Transactional
+    public int ensurePartitions(LocalDate firstDay, int days) {
+        if (!tryLockPartitions()) {
+            return 0;
+        }
+        Integer created = jdbcTemplate.queryForObject(ENSURE_PARTITIONS_SQL, Integer.class,
+                Date.valueOf(firstDay), days);
+        return created != null ? created : 0;
+    }
+
+    /**
+     * Finds the days that have a url_clicks partition.
+     *
+     * @return the partition days, oldest first
+     */
+    @Transactional(readOnly = true)
+    public List<LocalDate> findPartitionDays() {
+        return jdbcTemplate.queryForList(FIND_PARTITIONS_SQL, String.class)
+                .stream()
+                .map(name -> LocalDate.parse(name.substring(PARTITION_PREFIX.length()), PARTITION_SUFFIX))
+                .toList();
+    }
+
+    /**
+     * Detaches and drops the url_clicks partition of a day, deleting all its
+     * clicks at once. Skipped while another instance maintains the
+     * partitions, or if another instance already dropped it.
+     *
+     * @param day the partition day (UTC)
+     * @return true if the partition was dropped
+     */
+    @Transactional
+    public boolean dropPartition(LocalDate day) {
+        String partition = PARTITION_PREFIX + PARTITION_SUFFIX.format(day);
+        if (!tryLockPartitions()
+                || !Boolean.TRUE.equals(jdbcTemplate.queryForObject(IS_PARTITION_SQL, Boolean.class, partition))) {
+            return false;
+        }
+        jdbcTemplate.execute(DETACH_PARTITION_SQL.formatted(partition));
+        jdbcTemplate.execute(DROP_PARTITION_SQL.formatted(partition));
+        return true;
+    }
+
+    private boolean tryLockPartitions() {
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject(TRY_LOCK_PARTITIONS_SQL, Boolean.class));
+    }
+
+    /**
+     * Deletes clicks before the given time from the default partition.
+     *
+     * @param before the exclusive upper bound of the deleted click times
+     * @return the number of deleted clicks
+     */
+    @Transactional
+    public int purgeDefaultPartition(Instant before) {
+        return jdbcTemplate.update(PURGE_DEFAULT_PARTITION_SQL, Timestamp.from(before));
+    }
+}
@@ -0,0 +1,250 @@
+package com.tinyls.urlshortener.repository;
+
+import com.tinyls.urlshortener.clicks.ClickBucket;
+import com.tinyls.urlshortener.clicks.ClickGranularity;
+import com.tinyls.urlshortener.dto.stats.ClickBucketDTO;
+import com.tinyls.urlshortener.util.HyperLogLog;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+
+/**
+ * Repository for the time-bucketed click rollup tables (url_clicks_minute,
+ * url_clicks_hour and url_clicks_day).
+ * Rollups are only ever changed by relative upserts, so concurrent writers on
+ * several instances add up instead of overwriting each other.
+ *
+ * Hour and day rollups, and the all-time url_visitors table, also hold a
+ * {@link HyperLogLog} sketch of distinct visitors. Sketches cannot be merged
+ * in SQL, so they are read while the row is locked, merged and written back
+ * within the same transaction. They are merged separately from the click
+ * deltas, and only sketches that the merge changed are written back.
+ */
+@Repository
+@RequiredArgsConstructor
+public class ClickRollupRepository {
+
+    private static final String ADD_CLICKS_SQL = "INSERT INTO %1$s (url_id, bucket_start, clicks) VALUES (?, ?, ?) "
+            + "ON CONFLICT (url_id, bucket_start) DO UPDATE SET clicks = %1$s.clicks + EXCLUDED.clicks";
+
+    private static final String FIND_CLICKS_SQL = "SELECT bucket_start, clicks FROM %s "
+            + "WHERE url_id = ? AND bucket_start >= ? AND bucket_start < ? ORDER BY bucket_start";
+
+    private static final String FIND_CLICKS_WITH_VISITORS_SQL = "SELECT bucket_start, clicks, visitors FROM %s "
+            + "WHERE url_id = ? AND bucket_start >= ? AND bucket_start < ? ORDER BY bucket_start";
+
+    private static final String INSERT_BUCKET_SQL = "INSERT INTO %s (url_id, bucket_start, clicks) VALUES (?, ?, 0) "
+            + "ON CONFLICT (url_id, bucket_start) DO NOTHING";
+
+    private static final String FIND_VISITORS_SQL = "SELECT url_id, bucket_start, visitors FROM %s "
+            + "WHERE (url_id, bucket_start) IN (SELECT * FROM unnest(?::bigint[], ?::timestamptz[])) "
+            + "ORDER BY url_id, bucket_start FOR UPDATE";
+
+    private static final String UPDATE_VISITORS_SQL = "UPDATE %s SET visitors = ? "
+            + "WHERE url_id = ? AND bucket_start = ?";
+
+    private static final String INSERT_URL_VISITORS_SQL = "INSERT INTO url_visitors (url_id, visitors) "
+            + "VALUES (?, ?) ON CONFLICT (url_id) DO NOTHING";
+
+    private static final String FIND_URL_VISITORS_FOR_UPDATE_SQL = "SELECT url_id, visitors FROM url_visitors "
+            + "WHERE url_id = ANY (?) ORDER BY url_id FOR UPDATE";
+
+    private static final String UPDATE_URL_VISITORS_SQL = "UPDATE url_visitors SET visitors = ? WHERE url_id = ?";
+
+    private static final String FIND_URL_VISITORS_SQL = "SELECT url_id, visitors FROM url_visitors "
+            + "WHERE url_id = ANY (?)";
+
+    private static final String PURGE_SQL = "DELETE FROM %s WHERE bucket_start < ?";
+
+    private static final String PURGE_URL_VISITORS_SQL = "DELETE FROM url_visitors v "
+            + "WHERE NOT EXISTS (SELECT 1 FROM urls WHERE urls.id = v.url_id)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Adds click deltas to the rollups of every granularity in one
+     * transaction, with one JDBC batch per table. Buckets are written in key
+     * order so that concurrent flushes lock rows in the same order.
+     *
+     * @param deltas the number of clicks to add per bucket, by granularity
+     */
+    @Transactional
+    public void addClicks(Map<ClickGranularity, SortedMap<ClickBucket, Long>> deltas) {
+        deltas.forEach((granularity, buckets) -> {
+            List<Object[]> batchArgs = new ArrayList<>(buckets.size());
+            buckets.forEach((bucket, delta) -> batchArgs.add(
+                    new Object[] { bucket.urlId(), Timestamp.from(bucket.start()), delta }));
+            jdbcTemplate.batchUpdate(ADD_CLICKS_SQL.formatted(granularity.table()), batchArgs);
+        });
+    }
+
+    /**
+     * Merges visitor sketches into the hour and day rollups and into the
+     * all-time visitor sketches in one transaction. Missing buckets are
+     * created without clicks. Rows are locked in key order, and a row is only
+     * rewritten if the merge raised one of its registers, which for a busy
+     * link becomes rare once its sketches fill up.
+     *
+     * @param visitors    the visitor sketches to merge per bucket, by
+     *                    granularity (hour and day only)
+     * @param urlVisitors the visitor sketches to merge into the all-time
+     *                    sketches, by URL ID
+     */
+    @Transactional
+    public void mergeVisitors(Map<ClickGranularity, SortedMap<ClickBucket, HyperLogLog>> visitors,
+            SortedMap<Long, HyperLogLog> urlVisitors) {
+        visitors.forEach(this::mergeVisitors);
+        mergeUrlVisitors(urlVisitors);
+    }
+
+    /**
+     * Finds the non-empty buckets of a URL in a time range.
+     * For granularities with visitor sketches, each bucket carries its unique
+     * visitor estimate and the sketches are merged into the given sketch.
+     *
+     * @param granularity the bucket size
+     * @param urlId       the ID of the URL
+     * @param from        the inclusive start of the range
+     * @param to          the exclusive end of the range
+     * @param visitors    the sketch the visitors of the range are merged into
+     * @return the buckets in time order
+     */
+    @Transactional(readOnly = true)
+    public List<ClickBucketDTO> findClicks(ClickGranularity granularity, long urlId, Instant from, Instant to,
+            HyperLogLog visitors) {
+        String sql = (granularity.hasVisitors() ? FIND_CLICKS_WITH_VISITORS_SQL : FIND_CLICKS_SQL)
+                .formatted(granularity.table());
+        return jdbcTemplate.query(sql,
+                (resultSet, rowNum) -> {
+                    ClickBucketDTO bucket = ClickBucketDTO.builder()
+                            .start(resultSet.getTimestamp(1).toInstant())
+                            .clicks(resultSet.getLong(2))
+                            .build();
+                    if (granularity.hasVisitors()) {
+                        byte[] bytes = resultSet.getBytes(3);
+                        HyperLogLog sketch = bytes != null ? HyperLogLog.fromBytes(bytes) : new HyperLogLog();
+                        bucket.setUniqueVisitors(sketch.estimate());
+                        visitors.merge(sketch);
+                    }
+                    return bucket;
+                },
+                urlId, Timestamp.from(from), Timestamp.from(to));
+    }
+
+    /**
+     * Estimates the all-time number of unique visitors of URLs.
+     *
+     * @param urlIds the IDs of the URLs
+     * @return the estimates by URL ID; URLs without recorded visitors are
+     *         absent
+     */
+    @Transactional(readOnly = true)
+    public Map<Long, Long> findUniqueVisitors(Collection<Long> urlIds) {
+        Map<Long, Long> estimates = new HashMap<>();
+        if (urlIds.isEmpty()) {
+            return estimates;
+        }
+        jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(FIND_URL_VISITORS_SQL);
+            statement.setArray(1, connection.createArrayOf("bigint", urlIds.toArray()));
+            return statement;
+        }, resultSet -> {
+            estimates.put(resultSet.getLong(1), HyperLogLog.fromBytes(resultSet.getBytes(2)).estimate());
+        });
+        return estimates;
+    }
+
+    /**
+     * Deletes the buckets of a granularity that start before the given time.
+     *
+     * @param granularity the bucket size
+     * @param before      the exclusive upper bound of the deleted bucket starts
+     * @return the number of deleted buckets
+     */
+    @Transactional
+    public int purge(ClickGranularity granularity, Instant before) {
+        return jdbcTemplate.update(PURGE_SQL.formatted(granularity.table()), Timestamp.from(before));
+    }
+
+    /**
+     * Deletes the all-time visitor sketches of deleted URLs.
+     *
+     * @return the number of deleted sketches
+     */
+    @Transactional
+    public int purgeDeletedUrlVisitors() {
+        return jdbcTemplate.update(PURGE_URL_VISITORS_SQL);
+    }
+
+    private void mergeVisitors(ClickGranularity granularity, SortedMap<ClickBucket, HyperLogLog> sketches) {
+        if (sketches.isEmpty()) {
+            return;
+        }
+        List<Object[]> insertArgs = new ArrayList<>(sketches.size());
+        sketches.keySet().forEach(bucket -> insertArgs.add(
+                new Object[] { bucket.urlId(), Timestamp.from(bucket.start()) }));
+        jdbcTemplate.batchUpdate(INSERT_BUCKET_SQL.formatted(granularity.table()), insertArgs);
+
+        Map<ClickBucket, HyperLogLog> merged = new HashMap<>();
+        jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(
+                    FIND_VISITORS_SQL.formatted(granularity.table()));
+            statement.setArray(1, connection.createArrayOf("bigint",
+                    sketches.keySet().stream().map(ClickBucket::urlId).toArray()));
+            statement.setArray(2, connection.createArrayOf("timestamptz",
+                    sketches.keySet().stream().map(bucket -> Timestamp.from(bucket.start())).toArray()));
+            return statement;
+        }, resultSet -> {
+            ClickBucket bucket = new ClickBucket(resultSet.getLong(1), resultSet.getTimestamp(2).toInstant());
+            byte[] bytes = resultSet.getBytes(3);
+            // Null marks a bucket without a sketch yet, which is always written
+            merged.put(bucket, bytes != null ? HyperLogLog.fromBytes(bytes) : null);
+        });
+
+        List<Object[]> batchArgs = new ArrayList<>(sketches.size());
+        sketches.forEach((bucket, sketch) -> {
+            HyperLogLog current = merged.get(bucket);
+            if (current == null) {
+                batchArgs.add(new Object[] { sketch.toBytes(), bucket.urlId(), Timestamp.from(bucket.start()) });
+            } else if (current.merge(sketch)) {
+                batchArgs.add(new Object[] { current.toBytes(), bucket.urlId(), Timestamp.from(bucket.start()) });
+            }
+        });
+        jdbcTemplate.batchUpdate(UPDATE_VISITORS_SQL.formatted(granularity.table()), batchArgs);
+    }
+
+    private void mergeUrlVisitors(SortedMap<Long, HyperLogLog> sketches) {
+        if (sketches.isEmpty()) {
+            return;
+        }
+        // Sketches are idempotent, so a freshly inserted sketch may be merged with itself below
+        List<Object[]> insertArgs = new ArrayList<>(sketches.size());
+        sketches.forEach((urlId, sketch) -> insertArgs.add(new Object[] { urlId, sketch.toBytes() }));
+        jdbcTemplate.batchUpdate(INSERT_URL_VISITORS_SQL, insertArgs);
+
+        List<Object[]> updateArgs = new ArrayList<>(sketches.size());
+        jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(FIND_URL_VISITORS_FOR_UPDATE_SQL);
+            statement.setArray(1, connection.createArrayOf("bigint", sketches.keySet().toArray()));
+            return statement;
+        }, resultSet -> {
+            long urlId = resultSet.getLong(1);
+            HyperLogLog current = HyperLogLog.fromBytes(resultSet.getBytes(2));
+            if (current.merge(sketches.get(urlId))) {
+                updateArgs.add(new Object[] { current.toBytes(), urlId });
+            }
+        });
+        jdbcTemplate.batchUpdate(UPDATE_URL_VISITORS_SQL, updateArgs);
+    }
+}
@@ -0,0 +1,36 @@
+package com.tinyls.urlshortener.repository;
+
+import com.tinyls.urlshortener.dto.url.RedirectTarget;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Maps rows of the urls table to redirect targets.
+ * Queries must select {@link #COLUMNS}.
+ */
+final class RedirectTargetRowMapper implements RowMapper<RedirectTarget> {
+
+    /**
+     * The columns a redirect target is built from.
+     */
+    static final String COLUMNS = "id, short_code, original_url, redirect_status, cache_max_age, exact_clicks";
+
+    static final RedirectTargetRowMapper INSTANCE = new RedirectTargetRowMapper();
+
+    private RedirectTargetRowMapper() {
+    }
+
+    @Override
+    public RedirectTarget mapRow(ResultSet resultSet, int rowNum) throws SQLException {
+        return RedirectTarget.builder()
+                .id(resultSet.getLong("id"))
+                .shortCode(resultSet.getString("short_code"))
+                .originalUrl(resultSet.getString("original_url"))
+                .redirectStatus(resultSet.getInt("redirect_status"))
+                .cacheMaxAge(resultSet.getInt("cache_max_age"))
+                .exactClicks(resultSet.getBoolean("exact_clicks"))
+                .build();
+    }
+}
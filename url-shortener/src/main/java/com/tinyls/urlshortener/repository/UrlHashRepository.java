@@ -0,0 +1,52 @@
+package com.tinyls.urlshortener.repository;
+
+import com.tinyls.urlshortener.util.UrlHashes;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+/**
+ * Repository for backfilling the url_hash column of URLs created before it
+ * existed.
+ */
+@Repository
+@RequiredArgsConstructor
+public class UrlHashRepository {
+
+    // Served by the partial index idx_urls_url_hash_missing
+    private static final String FIND_MISSING_SQL = "SELECT id, original_url FROM urls "
+            + "WHERE url_hash IS NULL ORDER BY id LIMIT ?";
+
+    // Skips rows whose original URL changed since they were read; updates hash them themselves
+    private static final String UPDATE_HASH_SQL = "UPDATE urls SET url_hash = ? "
+            + "WHERE id = ? AND url_hash IS NULL AND original_url = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Hashes the next batch of URLs without a hash, lowest IDs first.
+     * The batch is written with one JDBC batch; each row is updated on its
+     * own, so no lock is held across the batch.
+     *
+     * @param batchSize the largest number of URLs hashed
+     * @return the number of URLs found without a hash
+     */
+    public int backfill(int batchSize) {
+        List<MissingHash> missing = jdbcTemplate.query(FIND_MISSING_SQL,
+                (resultSet, rowNum) -> new MissingHash(resultSet.getLong(1), resultSet.getString(2)),
+                batchSize);
+        if (!missing.isEmpty()) {
+            jdbcTemplate.batchUpdate(UPDATE_HASH_SQL, missing, missing.size(), (statement, row) -> {
+                statement.setLong(1, UrlHashes.hash(row.originalUrl()));
+                statement.setLong(2, row.id());
+                statement.setString(3, row.originalUrl());
+            });
+        }
+        return missing.size();
+    }
+
+    private record MissingHash(long id, String originalUrl) {
+    }
+}
@@ -0,0 +1,62 @@
+package com.tinyls.urlshortener.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+/**
+ * Repository for leasing blocks of URL IDs from the urls_seq sequence.
+ *
+ * The sequence's increment is the block size: each value it returns is the
+ * first ID of a block of that many IDs reserved for the caller.
+ */
+@Repository
+@RequiredArgsConstructor
+public class UrlIdRepository {
+
+    private static final String FIND_BLOCK_SIZE_SQL = "SELECT increment_by FROM pg_sequences "
+            + "WHERE schemaname = current_schema() AND sequencename = 'urls_seq'";
+
+    private static final String NEXT_BLOCK_SQL = "SELECT nextval('urls_seq')";
+
+    private static final String NEXT_BLOCKS_SQL = "SELECT nextval('urls_seq') FROM generate_series(1, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Returns the number of IDs in each leased block.
+     *
+     * @return the block size
+     */
+    public long findBlockSize() {
+        Long blockSize = jdbcTemplate.queryForObject(FIND_BLOCK_SIZE_SQL, Long.class);
+        return blockSize != null ? blockSize : 1L;
+    }
+
+    /**
+     * Leases the next block of IDs. Sequence values are never rolled back,
+     * so the block is reserved even if the calling transaction fails.
+     *
+     * @return the first ID of the block
+     */
+    public long leaseBlock() {
+        Long start = jdbcTemplate.queryForObject(NEXT_BLOCK_SQL, Long.class);
+        if (start == null) {
+            throw new IllegalStateException("nextval('urls_seq') returned no value");
+        }
+        return start;
+    }
+
+    /**
+     * Leases several blocks of IDs in one round trip. The blocks need not be
+     * adjacent.
+     *
+     * @param count the number of blocks
+     * @return the first ID of each block
+     */
+    public List<Long> leaseBlocks(int count) {
+        return jdbcTemplate.queryForList(NEXT_BLOCKS_SQL, Long.class, count);
+    }
+}
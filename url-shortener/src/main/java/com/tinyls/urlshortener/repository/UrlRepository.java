@@ -2,8 +2,13 @@ package com.tinyls.urlshortener.repository;
 
 import com.tinyls.urlshortener.model.Url;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -53,15 +58,22 @@ public interface UrlRepository extends JpaRepository<Url, Long> {
     void deleteByShortCode(String shortCode);
 
     /**
-     * Find the first URL that matches both the user ID and original URL.
+     * Find the URLs of a user that match the original URL, oldest first.
      * Used to prevent duplicate URLs for the same user.
      * 
+     * Probes the (user_id, url_hash) index and compares the original URL of
+     * hash matches only. Rows not yet backfilled (null hash) are compared as
+     * well.
+     * 
      * @param userId      the ID of the user
+     * @param urlHash     the hash of the original URL
      * @param originalUrl the original URL to search for
-     * @return an Optional containing the first matching URL if found, empty
-     *         otherwise
+     * @return the matching URLs
      */
-    Optional<Url> findFirstByUserIdAndOriginalUrl(UUID userId, String originalUrl);
+    @Query("SELECT u FROM Url u WHERE u.user.id = :userId "
+            + "AND (u.urlHash = :urlHash OR u.urlHash IS NULL) AND u.originalUrl = :originalUrl ORDER BY u.id")
+    List<Url> findByUserIdAndUrl(@Param("userId") UUID userId, @Param("urlHash") long urlHash,
+            @Param("originalUrl") String originalUrl);
 
     /**
      * Find the first URL that matches the original URL.
@@ -74,13 +86,80 @@ public interface UrlRepository extends JpaRepository<Url, Long> {
     Optional<Url> findFirstByOriginalUrl(String originalUrl);
 
     /**
-     * Find the first anonymous URL (no associated user) that matches the original
-     * URL.
-     * Used to check for existing anonymous URLs.
+     * Find the anonymous URLs (no associated user) that match the original
+     * URL, oldest first.
+     * Used to check for existing anonymous URLs, through the same index as
+     * {@link #findByUserIdAndUrl}.
      * 
+     * @param urlHash     the hash of the original URL
      * @param originalUrl the original URL to search for
-     * @return an Optional containing the first matching anonymous URL if found,
-     *         empty otherwise
+     * @return the matching anonymous URLs
+     */
+    @Query("SELECT u FROM Url u WHERE u.user IS NULL "
+            + "AND (u.urlHash = :urlHash OR u.urlHash IS NULL) AND u.originalUrl = :originalUrl ORDER BY u.id")
+    List<Url> findAnonymousByUrl(@Param("urlHash") long urlHash, @Param("originalUrl") String originalUrl);
+
+    /**
+     * Find the URLs of a user that match any of the given original URLs.
+     * Used to resolve duplicates of a bulk creation in one query, through the
+     * (user_id, url_hash) index.
+     * 
+     * @param userId       the ID of the user
+     * @param urlHashes    the hashes of the original URLs
+     * @param originalUrls the original URLs to search for
+     * @return the matching URLs, possibly several per original URL
+     */
+    @Query("SELECT u FROM Url u WHERE u.user.id = :userId "
+            + "AND (u.urlHash IN :urlHashes OR u.urlHash IS NULL) AND u.originalUrl IN :originalUrls")
+    List<Url> findByUserIdAndUrls(@Param("userId") UUID userId, @Param("urlHashes") Collection<Long> urlHashes,
+            @Param("originalUrls") Collection<String> originalUrls);
+
+    /**
+     * Find the anonymous URLs that match any of the given original URLs.
+     * Used to resolve duplicates of an anonymous bulk creation in one query.
+     * 
+     * @param urlHashes    the hashes of the original URLs
+     * @param originalUrls the original URLs to search for
+     * @return the matching URLs, possibly several per original URL
+     */
+    @Query("SELECT u FROM Url u WHERE u.user IS NULL "
+            + "AND (u.urlHash IN :urlHashes OR u.urlHash IS NULL) AND u.originalUrl IN :originalUrls")
+    List<Url> findAnonymousByUrls(@Param("urlHashes") Collection<Long> urlHashes,
+            @Param("originalUrls") Collection<String> originalUrls);
+
+    /**
+     * Increment the click count of a URL in a single UPDATE statement.
+     * Used by the redirect path so that a click does not require loading
+     * the entity. Only one url_stats row of the URL is written.
+     * 
+     * @param shortCode the short code of the URL
+     * @param stripe    the counter stripe to increment (0 unless the URL is
+     *                  striped)
+     * @return the number of updated rows (0 if no URL has the short code)
+     */
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query(value = "UPDATE url_stats SET clicks = url_stats.clicks + 1, last_clicked_at = now() "
+            + "FROM urls WHERE urls.short_code = :shortCode AND url_stats.url_id = urls.id "
+            + "AND url_stats.stripe = :stripe", nativeQuery = true)
+    int incrementClicksByShortCode(@Param("shortCode") String shortCode, @Param("stripe") int stripe);
+
+    /**
+     * Increment the click count of a URL identified by its primary key.
+     * The short code is checked as well so that a code which merely decodes to
+     * the ID of another URL never updates the wrong row.
+     * 
+     * @param id        the ID the short code decodes to
+     * @param shortCode the short code of the URL
+     * @param stripe    the counter stripe to increment (0 unless the URL is
+     *                  striped)
+     * @return the number of updated rows (0 if no such URL exists)
      */
-    Optional<Url> findFirstByOriginalUrlAndUserIsNull(String originalUrl);
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query(value = "UPDATE url_stats SET clicks = url_stats.clicks + 1, last_clicked_at = now() "
+            + "FROM urls WHERE url_stats.url_id = :id AND url_stats.stripe = :stripe "
+            + "AND urls.id = url_stats.url_id AND urls.short_code = :shortCode", nativeQuery = true)
+    int incrementClicksByIdAndShortCode(@Param("id") Long id, @Param("shortCode") String shortCode,
+            @Param("stripe") int stripe);
 }
\ No newline at end of file
@@ -0,0 +1,179 @@
+package com.tinyls.urlshortener.repository;
+
+import com.tinyls.urlshortener.dto.url.RedirectTarget;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Isolation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Repository for streaming scans over the urls table.
+ * Used to build in-memory structures of all issued short codes and redirect
+ * snapshots without materializing entities or whole result sets.
+ *
+ * Changes are tracked by the urls.updated_at column, which is set on insert and
+ * whenever the redirect of a URL changes, and by the url_tombstones table, which
+ * records deleted short codes.
+ */
+@Repository
+@RequiredArgsConstructor
+public class UrlScanRepository {
+
+    private static final int FETCH_SIZE = 10_000;
+
+    private static final String SCAN_SHORT_CODES_SQL = "SELECT id, short_code FROM urls WHERE id > ? ORDER BY id";
+
+    private static final String CURRENT_TIMESTAMP_SQL = "SELECT now()";
+
+    private static final String SCAN_REDIRECT_TARGETS_SQL = "SELECT " + RedirectTargetRowMapper.COLUMNS
+            + " FROM urls";
+
+    private static final String SCAN_CHANGED_REDIRECT_TARGETS_SQL = "SELECT " + RedirectTargetRowMapper.COLUMNS
+            + " FROM urls WHERE id > ? OR updated_at > ?";
+
+    private static final String FIND_REDIRECT_TARGETS_SQL = "SELECT " + RedirectTargetRowMapper.COLUMNS
+            + " FROM urls WHERE short_code = ANY (?)";
+
+    private static final String FIND_DELETED_SHORT_CODES_SQL = "SELECT short_code FROM url_tombstones "
+            + "WHERE deleted_at > ?";
+
+    private static final String PURGE_TOMBSTONES_SQL = "DELETE FROM url_tombstones "
+            + "WHERE deleted_at < now() - ? * INTERVAL '1 second'";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Callback receiving one row of a short code scan.
+     */
+    @FunctionalInterface
+    public interface ShortCodeConsumer {
+        /**
+         * Accepts a scanned row.
+         *
+         * @param id        the URL ID
+         * @param shortCode the URL's short code
+         */
+        void accept(long id, String shortCode);
+    }
+
+    /**
+     * Streams the ID and short code of every URL with an ID greater than the
+     * given one, in ID order. Runs in a read-only transaction so that the
+     * PostgreSQL driver fetches rows in chunks instead of all at once.
+     *
+     * @param afterId  the exclusive lower bound of the scanned IDs
+     * @param consumer the callback receiving each row
+     * @return the highest scanned ID, or afterId if no row was found
+     */
+    @Transactional(readOnly = true)
+    public long scanShortCodes(long afterId, ShortCodeConsumer consumer) {
+        long[] maxId = { afterId };
+        jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(SCAN_SHORT_CODES_SQL);
+            statement.setFetchSize(FETCH_SIZE);
+            statement.setLong(1, afterId);
+            return statement;
+        }, resultSet -> {
+            long id = resultSet.getLong(1);
+            consumer.accept(id, resultSet.getString(2));
+            maxId[0] = Math.max(maxId[0], id);
+        });
+        return maxId[0];
+    }
+
+    /**
+     * Streams the redirect target of every URL. Runs in a repeatable read
+     * transaction so that all rows reflect the same point in time, which is
+     * returned as the change marker of the scan.
+     *
+     * @param consumer the callback receiving each redirect target
+     * @return the database time the scan reflects
+     */
+    @Transactional(readOnly = true, isolation = Isolation.REPEATABLE_READ)
+    public Instant scanRedirectTargets(Consumer<RedirectTarget> consumer) {
+        Instant scannedAt = currentTimestamp();
+        jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(SCAN_REDIRECT_TARGETS_SQL);
+            statement.setFetchSize(FETCH_SIZE);
+            return statement;
+        }, resultSet -> {
+            consumer.accept(RedirectTargetRowMapper.INSTANCE.mapRow(resultSet, resultSet.getRow()));
+        });
+        return scannedAt;
+    }
+
+    /**
+     * Streams the redirect target of every URL created after the given ID or
+     * changed after the given time.
+     *
+     * @param afterId  the exclusive lower bound of the IDs of new URLs
+     * @param since    the exclusive lower bound of the change times
+     * @param consumer the callback receiving each redirect target
+     * @return the database time at the start of the scan
+     */
+    @Transactional(readOnly = true)
+    public Instant scanChangedRedirectTargets(long afterId, Instant since, Consumer<RedirectTarget> consumer) {
+        Instant scannedAt = currentTimestamp();
+        jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(SCAN_CHANGED_REDIRECT_TARGETS_SQL);
+            statement.setFetchSize(FETCH_SIZE);
+            statement.setLong(1, afterId);
+            statement.setTimestamp(2, Timestamp.from(since));
+            return statement;
+        }, resultSet -> {
+            consumer.accept(RedirectTargetRowMapper.INSTANCE.mapRow(resultSet, resultSet.getRow()));
+        });
+        return scannedAt;
+    }
+
+    /**
+     * Finds the redirect targets of the given short codes in one query.
+     * Short codes without a URL are left out.
+     *
+     * @param shortCodes the short codes to look up
+     * @return the redirect targets found
+     */
+    @Transactional(readOnly = true)
+    public List<RedirectTarget> findRedirectTargets(Collection<String> shortCodes) {
+        return jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(FIND_REDIRECT_TARGETS_SQL);
+            statement.setArray(1, connection.createArrayOf("varchar", shortCodes.toArray()));
+            return statement;
+        }, RedirectTargetRowMapper.INSTANCE);
+    }
+
+    /**
+     * Finds the short codes of URLs deleted after the given time.
+     *
+     * @param since the exclusive lower bound of the deletion times
+     * @return the deleted short codes
+     */
+    @Transactional(readOnly = true)
+    public List<String> findDeletedShortCodes(Instant since) {
+        return jdbcTemplate.queryForList(FIND_DELETED_SHORT_CODES_SQL, String.class, Timestamp.from(since));
+    }
+
+    /**
+     * Removes tombstones of URLs deleted longer ago than the retention period.
+     *
+     * @param retention how long tombstones are kept
+     * @return the number of removed tombstones
+     */
+    @Transactional
+    public int purgeTombstones(Duration retention) {
+        return jdbcTemplate.update(PURGE_TOMBSTONES_SQL, retention.toSeconds());
+    }
+
+    private Instant currentTimestamp() {
+        return jdbcTemplate.queryForObject(CURRENT_TIMESTAMP_SQL, Timestamp.class).toInstant();
+    }
+}
@@ -1,5 +1,6 @@
 package com.tinyls.urlshortener.security.config;
 
+import com.tinyls.urlshortener.model.Role;
 import com.tinyls.urlshortener.security.CustomUserDetailsService;
 import com.tinyls.urlshortener.security.CustomOAuth2UserService;
 import com.tinyls.urlshortener.security.jwt.JwtAuthenticationFilter;
@@ -116,9 +117,11 @@ public class SecurityConfig {
                                                                 "/api-docs/**", // API documentation
                                                                 "/swagger-ui/**", // Swagger UI
                                                                 "/swagger-ui.html", // Swagger UI entry point
-                                                                "/actuator/**", // Actuator endpoints
+                                                                "/actuator/health", // Health check
                                                                 "/actuator/health/**" // Health check endpoints
                                                 ).permitAll()
+                                                // Metrics, hot links and thread dumps are for operators only
+                                                .requestMatchers("/actuator/**").hasAuthority(Role.ADMIN.name())
                                                 .anyRequest().authenticated())
                                 .oauth2Login(oauth2 -> oauth2
                                                 .authorizationEndpoint(authorization -> authorization
@@ -0,0 +1,218 @@
+package com.tinyls.urlshortener.service;
+
+import com.tinyls.urlshortener.dto.url.BulkUrlItemDTO;
+import com.tinyls.urlshortener.dto.url.BulkUrlStatus;
+import com.tinyls.urlshortener.dto.url.UrlDTO;
+import com.tinyls.urlshortener.exception.InvalidRequestException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Group commit for single URL creations.
+ *
+ * When enabled, concurrent create requests are collected for a short window
+ * and created together in one transaction: the first request of a window
+ * waits for the window to pass (or for the batch to fill up), then creates
+ * the whole batch through {@link UrlService#createUrls}, which resolves
+ * duplicates with one query per user and inserts the new URLs with one JDBC
+ * batch, and completes every waiting request from the shared result. A burst
+ * of creations thus costs one commit and one connection checkout per window
+ * instead of one per request, for at most one window of added latency.
+ *
+ * Requests wait outside any transaction, so they hold no connection while
+ * queued. If the batch transaction fails, each request of the batch is
+ * retried on its own, so that an error is only reported to the request that
+ * caused it.
+ */
+@Slf4j
+@Component
+public class UrlCreationBatcher {
+
+    private final UrlService urlService;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+    private final long windowNanos;
+    private final int maxBatchSize;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final DistributionSummary batchSizes;
+    private final Counter fallbacks;
+
+    private Batch open;
+
+    /**
+     * Creates the batcher.
+     *
+     * @param urlService          the service URLs are created with
+     * @param transactionTemplate the template batches are run in
+     * @param enabled             whether concurrent creations are batched
+     * @param window              how long a batch collects requests
+     * @param maxBatchSize        the number of requests that closes a batch
+     *                            before the window passes
+     * @param meterRegistry       the registry used to publish statistics
+     */
+    public UrlCreationBatcher(
+            UrlService urlService,
+            TransactionTemplate transactionTemplate,
+            @Value("${app.urls.group-commit.enabled:false}") boolean enabled,
+            @Value("${app.urls.group-commit.window:500us}") Duration window,
+            @Value("${app.urls.group-commit.max-batch-size:100}") int maxBatchSize,
+            MeterRegistry meterRegistry) {
+        this.urlService = urlService;
+        this.transactionTemplate = transactionTemplate;
+        this.enabled = enabled;
+        this.windowNanos = window.toNanos();
+        this.maxBatchSize = maxBatchSize;
+        this.batchSizes = DistributionSummary.builder("tinyls.urls.group-commit.batch-size")
+                .description("URL creations committed together")
+                .register(meterRegistry);
+        this.fallbacks = Counter.builder("tinyls.urls.group-commit.fallbacks")
+                .description("Batches of URL creations retried one by one after the batch failed")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Creates a URL or returns the existing URL, like
+     * {@link UrlService#createUrl}, committing it together with concurrent
+     * creations if group commit is enabled.
+     *
+     * @param urlDTO URL data
+     * @param userId ID of the user creating the URL (null for anonymous users)
+     * @return created URL with generated short code or existing URL if found
+     */
+    public UrlDTO create(UrlDTO urlDTO, UUID userId) {
+        if (!enabled) {
+            return urlService.createUrl(urlDTO, userId);
+        }
+        PendingCreation creation = new PendingCreation(urlDTO, userId, new CompletableFuture<>());
+        Batch batch;
+        boolean leader;
+        boolean full;
+        lock.lock();
+        try {
+            leader = open == null;
+            if (leader) {
+                open = new Batch();
+            }
+            batch = open;
+            batch.creations.add(creation);
+            full = batch.creations.size() >= maxBatchSize;
+            if (full) {
+                batch.closed = true;
+                open = null;
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        if (full) {
+            run(batch);
+        } else if (leader) {
+            LockSupport.parkNanos(windowNanos);
+            if (close(batch)) {
+                run(batch);
+            }
+        }
+        try {
+            return creation.result().join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Closes a batch at the end of its window.
+     *
+     * @return false if the batch was already closed because it filled up
+     */
+    private boolean close(Batch batch) {
+        lock.lock();
+        try {
+            if (open == batch) {
+                open = null;
+            }
+            boolean wasClosed = batch.closed;
+            batch.closed = true;
+            return !wasClosed;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Creates the URLs of a batch in one transaction, one bulk creation per
+     * user, and completes the requests once it has committed.
+     */
+    private void run(Batch batch) {
+        List<PendingCreation> creations = batch.creations;
+        batchSizes.record(creations.size());
+        Map<UUID, List<PendingCreation>> creationsByUser = new LinkedHashMap<>();
+        creations.forEach(creation -> creationsByUser
+                .computeIfAbsent(creation.userId(), userId -> new ArrayList<>()).add(creation));
+
+        Map<PendingCreation, BulkUrlItemDTO> items = new LinkedHashMap<>();
+        try {
+            transactionTemplate.executeWithoutResult(status -> creationsByUser.forEach((userId, userCreations) -> {
+                List<BulkUrlItemDTO> results = urlService.createUrls(
+                        userCreations.stream().map(PendingCreation::urlDTO).toList(), userId).getItems();
+                for (int i = 0; i < userCreations.size(); i++) {
+                    items.put(userCreations.get(i), results.get(i));
+                }
+            }));
+        } catch (RuntimeException e) {
+            log.warn("Group commit of {} URL creations failed, creating them one by one", creations.size(), e);
+            fallbacks.increment();
+            creations.forEach(this::createAlone);
+            return;
+        }
+
+        items.forEach((creation, item) -> {
+            if (item.getStatus() == BulkUrlStatus.INVALID) {
+                creation.result().completeExceptionally(new InvalidRequestException(item.getError()));
+            } else {
+                creation.result().complete(item.getUrl());
+            }
+        });
+    }
+
+    private void createAlone(PendingCreation creation) {
+        try {
+            creation.result().complete(urlService.createUrl(creation.urlDTO(), creation.userId()));
+        } catch (RuntimeException e) {
+            creation.result().completeExceptionally(e);
+        }
+    }
+
+    /**
+     * A create request waiting for its batch. Requests with equal data are
+     * still distinct, since futures are compared by identity.
+     */
+    private record PendingCreation(UrlDTO urlDTO, UUID userId, CompletableFuture<UrlDTO> result) {
+    }
+
+    /**
+     * The requests collected in one window.
+     */
+    private static final class Batch {
+        private final List<PendingCreation> creations = new ArrayList<>();
+        private boolean closed;
+    }
+}
@@ -0,0 +1,66 @@
+package com.tinyls.urlshortener.service;
+
+import com.tinyls.urlshortener.repository.UrlHashRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Hashes the original URLs of rows created before the url_hash column
+ * existed, online and in small batches.
+ *
+ * Each run hashes one batch, so the backfill adds a small, steady load
+ * instead of one long transaction over the whole table. Rows without a hash
+ * are found through a partial index that only holds them, so once the
+ * backfill is done a run costs one lookup in an empty index; runs continue
+ * after that to pick up rows inserted by instances that predate the column.
+ * Until a row is hashed, duplicate checks still find it by its original URL.
+ *
+ * All instances run the backfill; a row hashed twice gets the same hash.
+ */
+@Slf4j
+@Component
+public class UrlHashBackfill {
+
+    private final UrlHashRepository urlHashRepository;
+    private final int batchSize;
+    private final Counter hashed;
+    private boolean done;
+
+    /**
+     * Creates the backfill.
+     *
+     * @param urlHashRepository the repository rows are hashed with
+     * @param batchSize         the largest number of rows hashed per run
+     * @param meterRegistry     the registry used to publish statistics
+     */
+    public UrlHashBackfill(
+            UrlHashRepository urlHashRepository,
+            @Value("${app.urls.hash-backfill.batch-size:1000}") int batchSize,
+            MeterRegistry meterRegistry) {
+        this.urlHashRepository = urlHashRepository;
+        this.batchSize = batchSize;
+        this.hashed = Counter.builder("tinyls.urls.hash-backfill.rows")
+                .description("Existing URLs whose url_hash was backfilled")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Hashes the next batch of rows without a hash.
+     */
+    @Scheduled(fixedDelayString = "${app.urls.hash-backfill.interval:1s}")
+    public void backfill() {
+        int found = urlHashRepository.backfill(batchSize);
+        hashed.increment(found);
+        if (found > 0) {
+            log.debug("Backfilled url_hash of {} URLs", found);
+            done = false;
+        } else if (!done) {
+            log.info("All URLs have a url_hash");
+            done = true;
+        }
+    }
+}
@@ -1,6 +1,15 @@
 package com.tinyls.urlshortener.service;
 
+import com.tinyls.urlshortener.clicks.ClickContext;
+import com.tinyls.urlshortener.clicks.ClickDimension;
+import com.tinyls.urlshortener.clicks.ClickGranularity;
+import com.tinyls.urlshortener.dto.stats.ClickBreakdownDTO;
+import com.tinyls.urlshortener.dto.stats.ClickEventDTO;
+import com.tinyls.urlshortener.dto.stats.ClickStatsDTO;
+import com.tinyls.urlshortener.dto.url.BulkUrlResultDTO;
+import com.tinyls.urlshortener.dto.url.RedirectTarget;
 import com.tinyls.urlshortener.dto.url.UrlDTO;
+import java.time.Instant;
 import java.util.List;
 import java.util.UUID;
 
@@ -16,6 +25,19 @@ public interface UrlService {
      */
     UrlDTO createUrl(UrlDTO urlDTO, UUID userId);
 
+    /**
+     * Create many URLs at once, returning existing URLs for original URLs that
+     * were already shortened
+     * 
+     * @param urlDTOs URL data of each item
+     * @param userId  ID of the user creating the URLs (null for anonymous users)
+     * @return the result of each item
+     * @throws com.tinyls.urlshortener.exception.InvalidRequestException if there
+     *                                                                   are too
+     *                                                                   many items
+     */
+    BulkUrlResultDTO createUrls(List<UrlDTO> urlDTOs, UUID userId);
+
     /**
      * Get URL by short code
      * 
@@ -100,11 +122,72 @@ public interface UrlService {
     UrlDTO incrementClicks(String shortCode, UUID userId);
 
     /**
-     * Get original URL and increment click count
+     * Get redirect target (original URL and redirect policy), increment click
+     * count and record the click event
      * 
      * @param shortCode URL short code
-     * @return original URL
+     * @param context   request details recorded with the click
+     * @return redirect target
      * @throws jakarta.persistence.EntityNotFoundException if URL not found
      */
-    String getAndIncrementClicks(String shortCode);
+    RedirectTarget getAndIncrementClicks(String shortCode, ClickContext context);
+
+    /**
+     * Get click counts of a URL per time bucket, read from the click rollups
+     * 
+     * @param shortCode   URL short code
+     * @param granularity bucket size
+     * @param from        inclusive start of the range (null for the
+     *                    granularity's default range before to)
+     * @param to          exclusive end of the range (null for now)
+     * @param userId      ID of the user requesting the statistics
+     * @return click statistics
+     * @throws jakarta.persistence.EntityNotFoundException              if URL not
+     *                                                                   found
+     * @throws com.tinyls.urlshortener.exception.UnauthorizedException   if user is
+     *                                                                   not the owner
+     * @throws com.tinyls.urlshortener.exception.InvalidRequestException if the range
+     *                                                                   is empty or
+     *                                                                   too large
+     */
+    ClickStatsDTO getClickStats(String shortCode, ClickGranularity granularity, Instant from, Instant to,
+            UUID userId);
+
+    /**
+     * Get the most recent individual clicks of a URL in a time range
+     * 
+     * @param shortCode URL short code
+     * @param from      inclusive start of the range (null for one day before
+     *                  to)
+     * @param to        exclusive end of the range (null for now)
+     * @param limit     maximum number of clicks returned
+     * @param userId    ID of the user requesting the clicks
+     * @return clicks, most recent first
+     * @throws jakarta.persistence.EntityNotFoundException              if URL not
+     *                                                                   found
+     * @throws com.tinyls.urlshortener.exception.UnauthorizedException   if user is
+     *                                                                   not the owner
+     * @throws com.tinyls.urlshortener.exception.InvalidRequestException if the range
+     *                                                                   or limit is
+     *                                                                   invalid
+     */
+    List<ClickEventDTO> getClickHistory(String shortCode, Instant from, Instant to, int limit, UUID userId);
+
+    /**
+     * Get the all-time clicks of a URL broken down by a dimension, most clicked
+     * values first
+     * 
+     * @param shortCode URL short code
+     * @param dimension dimension to break the clicks down by
+     * @param limit     maximum number of values returned
+     * @param userId    ID of the user requesting the breakdown
+     * @return click breakdown
+     * @throws jakarta.persistence.EntityNotFoundException              if URL not
+     *                                                                   found
+     * @throws com.tinyls.urlshortener.exception.UnauthorizedException   if user is
+     *                                                                   not the owner
+     * @throws com.tinyls.urlshortener.exception.InvalidRequestException if the limit
+     *                                                                   is invalid
+     */
+    ClickBreakdownDTO getClickBreakdown(String shortCode, ClickDimension dimension, int limit, UUID userId);
 }
\ No newline at end of file
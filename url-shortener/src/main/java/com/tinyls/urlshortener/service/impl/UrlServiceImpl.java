@@ -1,23 +1,75 @@
 package com.tinyls.urlshortener.service.impl;
 
+import com.tinyls.urlshortener.cache.AnonymousLinkCache;
+import com.tinyls.urlshortener.cache.HotLinks;
+import com.tinyls.urlshortener.cache.RedirectCache;
+import com.tinyls.urlshortener.cache.ShortCodeFilter;
+import com.tinyls.urlshortener.clicks.ClickAccumulator;
+import com.tinyls.urlshortener.clicks.ClickContext;
+import com.tinyls.urlshortener.clicks.ClickCountingMode;
+import com.tinyls.urlshortener.clicks.ClickDimension;
+import com.tinyls.urlshortener.clicks.ClickDimensionAccumulator;
+import com.tinyls.urlshortener.clicks.ClickEventLog;
+import com.tinyls.urlshortener.clicks.ClickGranularity;
+import com.tinyls.urlshortener.clicks.ClickRollupAccumulator;
+import com.tinyls.urlshortener.clicks.ClickStripes;
+import com.tinyls.urlshortener.clicks.DuplicateClickFilter;
+import com.tinyls.urlshortener.clicks.UserAgentClass;
+import com.tinyls.urlshortener.clicks.UserAgentClassifier;
+import com.tinyls.urlshortener.dto.stats.ClickBreakdownDTO;
+import com.tinyls.urlshortener.dto.stats.ClickBucketDTO;
+import com.tinyls.urlshortener.dto.stats.ClickEventDTO;
+import com.tinyls.urlshortener.dto.stats.ClickStatsDTO;
+import com.tinyls.urlshortener.dto.url.BulkUrlItemDTO;
+import com.tinyls.urlshortener.dto.url.BulkUrlResultDTO;
+import com.tinyls.urlshortener.dto.url.BulkUrlStatus;
+import com.tinyls.urlshortener.dto.url.RedirectTarget;
 import com.tinyls.urlshortener.dto.url.UrlDTO;
+import com.tinyls.urlshortener.dto.validation.ValidationGroups;
+import com.tinyls.urlshortener.exception.InvalidRequestException;
 import com.tinyls.urlshortener.exception.ResourceNotFoundException;
 import com.tinyls.urlshortener.exception.UnauthorizedException;
+import com.tinyls.urlshortener.geo.IpCountryResolver;
+import com.tinyls.urlshortener.ids.UrlIdAllocator;
 import com.tinyls.urlshortener.mapper.UrlMapper;
 import com.tinyls.urlshortener.model.Url;
 import com.tinyls.urlshortener.model.User;
+import com.tinyls.urlshortener.repository.ClickCountRepository;
+import com.tinyls.urlshortener.repository.ClickDimensionRepository;
+import com.tinyls.urlshortener.repository.ClickEventRepository;
+import com.tinyls.urlshortener.repository.ClickRollupRepository;
 import com.tinyls.urlshortener.repository.UrlRepository;
 import com.tinyls.urlshortener.repository.UserRepository;
 import com.tinyls.urlshortener.service.UrlService;
+import com.tinyls.urlshortener.util.Base62;
+import com.tinyls.urlshortener.util.HyperLogLog;
+import com.tinyls.urlshortener.util.Transactions;
+import com.tinyls.urlshortener.util.UrlHashes;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import jakarta.validation.groups.Default;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
+import java.util.stream.Collectors;
 
 /**
  * Implementation of the UrlService interface.
@@ -30,31 +82,110 @@ import java.util.UUID;
 @Transactional
 public class UrlServiceImpl implements UrlService {
     private final UrlRepository urlRepository;
+    private final ClickCountRepository clickCountRepository;
+    private final ClickRollupRepository clickRollupRepository;
+    private final ClickEventRepository clickEventRepository;
+    private final ClickDimensionRepository clickDimensionRepository;
     private final UserRepository userRepository;
     private final UrlMapper urlMapper;
+    private final RedirectCache redirectCache;
+    private final HotLinks hotLinks;
+    private final ShortCodeFilter shortCodeFilter;
+    private final AnonymousLinkCache anonymousLinkCache;
+    private final ClickAccumulator clickAccumulator;
+    private final ClickEventLog clickEventLog;
+    private final ClickRollupAccumulator clickRollupAccumulator;
+    private final ClickStripes clickStripes;
+    private final ClickDimensionAccumulator clickDimensionAccumulator;
+    private final IpCountryResolver ipCountryResolver;
+    private final UserAgentClassifier userAgentClassifier;
+    private final DuplicateClickFilter duplicateClickFilter;
+    private final UrlIdAllocator urlIdAllocator;
+    private final Validator validator;
+
+    /**
+     * Whether redirects resolve generated short codes by decoding them to the
+     * primary key instead of probing the short code index.
+     */
+    @Value("${app.redirect.lookup-by-id:true}")
+    private boolean lookupById;
+
+    /**
+     * Whether redirects requested by bots are left out of click counts,
+     * rollups and the click event log.
+     */
+    @Value("${app.clicks.bot-filter.enabled:true}")
+    private boolean filterBots;
+
+    /**
+     * How redirects update click counts.
+     */
+    @Value("${app.clicks.mode:buffered}")
+    private ClickCountingMode clickCountingMode;
+
+    /**
+     * Maximum number of buckets a statistics request may span.
+     */
+    @Value("${app.clicks.rollups.max-buckets:10000}")
+    private long maxStatsBuckets;
+
+    /**
+     * Longest time range of a click history request.
+     */
+    @Value("${app.clicks.events.max-history-range:31d}")
+    private Duration maxHistoryRange;
+
+    /**
+     * Maximum number of clicks returned by a click history request.
+     */
+    @Value("${app.clicks.events.max-history-limit:1000}")
+    private int maxHistoryLimit;
+
+    /**
+     * Maximum number of values returned by a click breakdown request.
+     */
+    @Value("${app.clicks.dimensions.max-limit:100}")
+    private int maxBreakdownLimit;
+
+    /**
+     * Maximum number of URLs created by one bulk request.
+     */
+    @Value("${app.urls.bulk.max-items:1000}")
+    private int maxBulkItems;
 
     @Override
     public UrlDTO createUrl(UrlDTO urlDTO, UUID userId) {
         log.info("Creating new URL for user: {}", userId);
 
         // For authenticated users, check if they already have this URL
+        long urlHash = UrlHashes.hash(urlDTO.getOriginalUrl());
         if (userId != null) {
-            Optional<Url> existingUrl = urlRepository.findFirstByUserIdAndOriginalUrl(userId, urlDTO.getOriginalUrl());
+            Optional<Url> existingUrl = urlRepository
+                    .findByUserIdAndUrl(userId, urlHash, urlDTO.getOriginalUrl()).stream().findFirst();
             if (existingUrl.isPresent()) {
                 log.debug("Found existing URL for user: {}", userId);
-                return urlMapper.toDTO(existingUrl.get());
+                return toDTO(existingUrl.get(), null);
             }
         } else {
-            // For anonymous users, check if this URL exists without a user
-            Optional<Url> existingUrl = urlRepository.findFirstByOriginalUrlAndUserIsNull(urlDTO.getOriginalUrl());
+            // For anonymous users, check if this URL exists without a user, in memory first
+            Optional<UrlDTO> cachedUrl = anonymousLinkCache.get(urlDTO.getOriginalUrl());
+            if (cachedUrl.isPresent()) {
+                log.debug("Found cached anonymous URL");
+                return cachedUrl.get();
+            }
+            Optional<Url> existingUrl = urlRepository
+                    .findAnonymousByUrl(urlHash, urlDTO.getOriginalUrl()).stream().findFirst();
             if (existingUrl.isPresent()) {
                 log.debug("Found existing anonymous URL");
-                return urlMapper.toDTO(existingUrl.get());
+                UrlDTO existingDTO = toDTO(existingUrl.get(), null);
+                anonymousLinkCache.put(existingDTO);
+                return existingDTO;
             }
         }
 
         // Create new URL
         Url url = urlMapper.toEntity(urlDTO);
+        url.setId(urlIdAllocator.nextId());
         url.setClicks(0L);
 
         // Set user if authenticated
@@ -64,7 +195,110 @@ public class UrlServiceImpl implements UrlService {
         }
 
         Url savedUrl = urlRepository.saveAndFlush(url);
-        return urlMapper.toDTO(savedUrl);
+        publishCreated(savedUrl);
+        UrlDTO savedDTO = toDTO(savedUrl, 0L);
+        if (userId == null) {
+            anonymousLinkCache.put(savedDTO);
+        }
+        return savedDTO;
+    }
+
+    /**
+     * Validates every item, finds the already shortened original URLs with one
+     * query and inserts the new URLs with JDBC batches, in ID order. Items
+     * repeating an original URL of an earlier item get the earlier item's URL;
+     * the settings of the first item win, as with single creation. Anonymous
+     * URLs in the anonymous link cache are not looked up.
+     */
+    @Override
+    public BulkUrlResultDTO createUrls(List<UrlDTO> urlDTOs, UUID userId) {
+        log.info("Creating {} URLs in bulk for user: {}", urlDTOs.size(), userId);
+        if (urlDTOs.size() > maxBulkItems) {
+            throw new InvalidRequestException("At most " + maxBulkItems + " URLs can be created at once");
+        }
+
+        BulkUrlItemDTO[] items = new BulkUrlItemDTO[urlDTOs.size()];
+        Map<String, List<Integer>> indexesByUrl = new LinkedHashMap<>();
+        for (int i = 0; i < urlDTOs.size(); i++) {
+            UrlDTO urlDTO = urlDTOs.get(i);
+            String error = validateForCreate(urlDTO);
+            if (error != null) {
+                items[i] = BulkUrlItemDTO.builder().index(i).status(BulkUrlStatus.INVALID).error(error).build();
+            } else {
+                indexesByUrl.computeIfAbsent(urlDTO.getOriginalUrl(), url -> new ArrayList<>()).add(i);
+            }
+        }
+
+        // Anonymous URLs known in memory need no lookup
+        Map<String, UrlDTO> cachedUrls = new HashMap<>();
+        if (userId == null) {
+            indexesByUrl.keySet().forEach(originalUrl -> anonymousLinkCache.get(originalUrl)
+                    .ifPresent(url -> cachedUrls.put(originalUrl, url)));
+        }
+        Set<String> lookedUpUrls = indexesByUrl.keySet().stream()
+                .filter(originalUrl -> !cachedUrls.containsKey(originalUrl))
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+
+        // Existing URLs, oldest first if an original URL was shortened more than once
+        Map<String, Url> urlsByOriginalUrl = new HashMap<>();
+        if (!lookedUpUrls.isEmpty()) {
+            Set<Long> urlHashes = lookedUpUrls.stream().map(UrlHashes::hash).collect(Collectors.toSet());
+            List<Url> existingUrls = userId != null
+                    ? urlRepository.findByUserIdAndUrls(userId, urlHashes, lookedUpUrls)
+                    : urlRepository.findAnonymousByUrls(urlHashes, lookedUpUrls);
+            existingUrls.stream()
+                    .sorted(Comparator.comparing(Url::getId))
+                    .forEach(url -> urlsByOriginalUrl.putIfAbsent(url.getOriginalUrl(), url));
+        }
+        List<String> newOriginalUrls = lookedUpUrls.stream()
+                .filter(originalUrl -> !urlsByOriginalUrl.containsKey(originalUrl))
+                .toList();
+        if (!newOriginalUrls.isEmpty()) {
+            User user = userId != null ? getUserById(userId) : null;
+            long[] ids = urlIdAllocator.nextIds(newOriginalUrls.size());
+            List<Url> newUrls = new ArrayList<>(newOriginalUrls.size());
+            for (int i = 0; i < newOriginalUrls.size(); i++) {
+                Url url = urlMapper.toEntity(urlDTOs.get(indexesByUrl.get(newOriginalUrls.get(i)).get(0)));
+                url.setId(ids[i]);
+                url.setClicks(0L);
+                url.setUser(user);
+                newUrls.add(url);
+            }
+            urlRepository.saveAllAndFlush(newUrls);
+            for (Url url : newUrls) {
+                publishCreated(url);
+                urlsByOriginalUrl.put(url.getOriginalUrl(), url);
+            }
+        }
+        Set<String> createdUrls = new HashSet<>(newOriginalUrls);
+
+        int created = 0;
+        int existing = 0;
+        for (Map.Entry<String, List<Integer>> entry : indexesByUrl.entrySet()) {
+            boolean isNew = createdUrls.contains(entry.getKey());
+            UrlDTO urlDTO = cachedUrls.get(entry.getKey());
+            if (urlDTO == null) {
+                Url url = urlsByOriginalUrl.get(entry.getKey());
+                urlDTO = toDTO(url, isNew ? 0L : null);
+                if (userId == null) {
+                    anonymousLinkCache.put(urlDTO);
+                }
+            }
+            for (int index : entry.getValue()) {
+                BulkUrlStatus status = isNew && index == entry.getValue().get(0)
+                        ? BulkUrlStatus.CREATED : BulkUrlStatus.EXISTING;
+                items[index] = BulkUrlItemDTO.builder().index(index).status(status).url(urlDTO).build();
+            }
+            created += isNew ? 1 : 0;
+            existing += entry.getValue().size() - (isNew ? 1 : 0);
+        }
+
+        return BulkUrlResultDTO.builder()
+                .created(created)
+                .existing(existing)
+                .invalid(urlDTOs.size() - created - existing)
+                .items(List.of(items))
+                .build();
     }
 
     @Override
@@ -89,7 +323,7 @@ public class UrlServiceImpl implements UrlService {
             }
         }
 
-        return urlMapper.toDTO(url);
+        return toDTO(url, findUniqueVisitors(url));
     }
 
     @Override
@@ -97,26 +331,140 @@ public class UrlServiceImpl implements UrlService {
         log.info("Deleting URL with short code: {} for user: {}", shortCode, userId);
         Url url = getUrlByShortCodeAndCheckOwnership(shortCode, userId);
         urlRepository.delete(url);
+        publishDeleted(url);
     }
 
     @Override
     public UrlDTO incrementClicks(String shortCode, UUID userId) {
         log.debug("Incrementing clicks for URL with short code: {} for user: {}", shortCode, userId);
-        Url url = getUrlByShortCodeAndCheckOwnership(shortCode, userId);
-        url.setClicks(url.getClicks() + 1);
-        Url updatedUrl = urlRepository.save(url);
-        return urlMapper.toDTO(updatedUrl);
+        getUrlByShortCodeAndCheckOwnership(shortCode, userId);
+        countClick(shortCode);
+        return urlRepository.findByShortCode(shortCode)
+                .map(url -> toDTO(url, null))
+                .orElseThrow(() -> new ResourceNotFoundException("URL", shortCode));
     }
 
+    /**
+     * Resolves the short code through the redirect cache (including the hot-link
+     * and snapshot tiers) before falling back to the database, counts the
+     * request for hot-link detection, appends it to the click event log and
+     * adds it to the click rollups. Redirects requested by bots are only
+     * counted in the click breakdowns, under the "bot" device class, unless
+     * bot filtering is disabled. Repeated clicks of a client within the dedup
+     * window are redirected without being recorded at all. Runs without a
+     * surrounding transaction so that a cache hit does not check out a
+     * connection unless the click is counted directly.
+     */
     @Override
-    public String getAndIncrementClicks(String shortCode) {
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public RedirectTarget getAndIncrementClicks(String shortCode, ClickContext context) {
         log.debug("Getting and incrementing clicks for URL with short code: {}", shortCode);
-        Url url = urlRepository.findByShortCode(shortCode)
-                .orElseThrow(() -> new ResourceNotFoundException("URL", shortCode));
+        if (!shortCodeFilter.mightExist(shortCode)) {
+            throw new ResourceNotFoundException("URL", shortCode);
+        }
+
+        UserAgentClass userAgentClass = userAgentClassifier.classify(context.getUserAgent());
+        boolean bot = filterBots && userAgentClass.isBot();
+        boolean duplicate = !bot && duplicateClickFilter.isDuplicate(shortCode, context);
+        boolean counted = !bot && !duplicate;
+        if (counted && clickCountingMode == ClickCountingMode.ATOMIC) {
+            RedirectTarget target = incrementClicksAndGetRedirectTarget(shortCode)
+                    .orElseThrow(() -> urlNotFoundForRedirect(shortCode));
+            recordClick(target, context, userAgentClass, true);
+            return target;
+        }
+
+        RedirectTarget target = redirectCache.get(shortCode).orElse(null);
+        boolean cached = target != null;
+        if (!cached) {
+            Url url = findUrlForRedirect(shortCode)
+                    .orElseThrow(() -> urlNotFoundForRedirect(shortCode));
+            target = urlMapper.toRedirectTarget(url);
+            redirectCache.put(target);
+        }
+
+        boolean exists = counted ? countClick(shortCode) : !cached || checkExists(target);
+        if (!exists) {
+            // Deleted after it was cached (e.g. by another instance)
+            redirectCache.evict(shortCode);
+            throw new ResourceNotFoundException("URL", shortCode);
+        }
+        if (duplicate) {
+            hotLinks.record(shortCode);
+        } else {
+            recordClick(target, context, userAgentClass, counted);
+        }
+        return target;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public ClickStatsDTO getClickStats(String shortCode, ClickGranularity granularity, Instant from, Instant to,
+            UUID userId) {
+        log.debug("Retrieving {} click stats for URL with short code: {} for user: {}", granularity, shortCode,
+                userId);
+        Url url = getUrlByShortCodeAndCheckOwnership(shortCode, userId);
 
-        url.setClicks(url.getClicks() + 1);
-        urlRepository.save(url);
-        return url.getOriginalUrl();
+        Instant end = to != null ? to : Instant.now();
+        Instant start = granularity.bucketStart(from != null ? from : end.minus(granularity.defaultRange()));
+        if (!start.isBefore(end)) {
+            throw new InvalidRequestException("'from' must be before 'to'");
+        }
+        long buckets = (end.toEpochMilli() - start.toEpochMilli()) / granularity.bucketSize().toMillis() + 1;
+        if (buckets > maxStatsBuckets) {
+            throw new InvalidRequestException(String.format(
+                    "Range spans %d %s buckets, at most %d are allowed", buckets, granularity, maxStatsBuckets));
+        }
+
+        HyperLogLog visitors = new HyperLogLog();
+        List<ClickBucketDTO> clicks = clickRollupRepository.findClicks(granularity, url.getId(), start, end,
+                visitors);
+        return ClickStatsDTO.builder()
+                .shortCode(shortCode)
+                .granularity(granularity)
+                .from(start)
+                .to(end)
+                .totalClicks(clicks.stream().mapToLong(ClickBucketDTO::getClicks).sum())
+                .uniqueVisitors(granularity.hasVisitors() ? visitors.estimate() : null)
+                .buckets(clicks)
+                .build();
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<ClickEventDTO> getClickHistory(String shortCode, Instant from, Instant to, int limit,
+            UUID userId) {
+        log.debug("Retrieving click history for URL with short code: {} for user: {}", shortCode, userId);
+        Url url = getUrlByShortCodeAndCheckOwnership(shortCode, userId);
+
+        Instant end = to != null ? to : Instant.now();
+        Instant start = from != null ? from : end.minus(Duration.ofDays(1));
+        if (!start.isBefore(end)) {
+            throw new InvalidRequestException("'from' must be before 'to'");
+        }
+        if (Duration.between(start, end).compareTo(maxHistoryRange) > 0) {
+            throw new InvalidRequestException("Range must not exceed " + maxHistoryRange.toDays() + " days");
+        }
+        if (limit < 1 || limit > maxHistoryLimit) {
+            throw new InvalidRequestException("Limit must be between 1 and " + maxHistoryLimit);
+        }
+        return clickEventRepository.findClicks(url.getId(), start, end, limit);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public ClickBreakdownDTO getClickBreakdown(String shortCode, ClickDimension dimension, int limit, UUID userId) {
+        log.debug("Retrieving {} click breakdown for URL with short code: {} for user: {}", dimension, shortCode,
+                userId);
+        Url url = getUrlByShortCodeAndCheckOwnership(shortCode, userId);
+        if (limit < 1 || limit > maxBreakdownLimit) {
+            throw new InvalidRequestException("Limit must be between 1 and " + maxBreakdownLimit);
+        }
+        return ClickBreakdownDTO.builder()
+                .shortCode(shortCode)
+                .dimension(dimension)
+                .values(clickDimensionRepository.findTop(url.getId(), dimension, limit))
+                .build();
     }
 
     @Override
@@ -124,7 +472,7 @@ public class UrlServiceImpl implements UrlService {
     public UrlDTO getUrlById(Long id, UUID userId) {
         log.debug("Retrieving URL with ID: {} for user: {}", id, userId);
         Url url = getUrlByIdAndCheckOwnership(id, userId);
-        return urlMapper.toDTO(url);
+        return toDTO(url, findUniqueVisitors(url));
     }
 
     @Override
@@ -133,7 +481,8 @@ public class UrlServiceImpl implements UrlService {
         Url url = getUrlByIdAndCheckOwnership(id, userId);
         urlMapper.updateEntityFromDTO(urlDTO, url);
         Url updatedUrl = urlRepository.save(url);
-        return urlMapper.toDTO(updatedUrl);
+        publishChanged(updatedUrl.getShortCode());
+        return toDTO(updatedUrl, null);
     }
 
     @Override
@@ -141,18 +490,42 @@ public class UrlServiceImpl implements UrlService {
         log.info("Deleting URL with ID: {} for user: {}", id, userId);
         Url url = getUrlByIdAndCheckOwnership(id, userId);
         urlRepository.delete(url);
+        publishDeleted(url);
     }
 
     @Override
     @Transactional(readOnly = true)
     public List<UrlDTO> getUrlsByUser(UUID userId) {
         log.debug("Retrieving all URLs for user: {}", userId);
-        return urlRepository.findByUserId(userId)
-                .stream()
-                .map(urlMapper::toDTO)
+        List<Url> urls = urlRepository.findByUserId(userId);
+        Map<Long, Long> uniqueVisitors = clickRollupRepository.findUniqueVisitors(
+                urls.stream().map(Url::getId).toList());
+        return urls.stream()
+                .map(url -> toDTO(url, uniqueVisitors.getOrDefault(url.getId(), 0L)))
                 .toList();
     }
 
+    /**
+     * Validates a URL DTO for creation, as a single creation request body is.
+     * 
+     * @param urlDTO The URL data
+     * @return the violation messages joined, or null if the DTO is valid
+     */
+    private String validateForCreate(UrlDTO urlDTO) {
+        if (urlDTO == null) {
+            return "URL data is required";
+        }
+        Set<ConstraintViolation<UrlDTO>> violations = validator.validate(urlDTO, Default.class,
+                ValidationGroups.Create.class);
+        if (violations.isEmpty()) {
+            return null;
+        }
+        return violations.stream()
+                .map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
+                .sorted()
+                .collect(Collectors.joining("; "));
+    }
+
     /**
      * Retrieves a user by their ID.
      * 
@@ -165,6 +538,206 @@ public class UrlServiceImpl implements UrlService {
                 .orElseThrow(() -> new ResourceNotFoundException("User", id.toString()));
     }
 
+    /**
+     * Finds a URL for redirection.
+     * Short codes generated from the sequence ID are decoded and looked up by
+     * primary key; anything else (or a code whose row carries a different short
+     * code) falls back to the short code index.
+     * 
+     * @param shortCode The URL's short code
+     * @return an Optional containing the URL if found, empty otherwise
+     */
+    private Optional<Url> findUrlForRedirect(String shortCode) {
+        if (lookupById && Base62.isCanonical(shortCode)) {
+            Optional<Url> url = urlRepository.findById(Base62.decode(shortCode))
+                    .filter(candidate -> shortCode.equals(candidate.getShortCode()));
+            if (url.isPresent()) {
+                return url;
+            }
+        }
+        return urlRepository.findByShortCode(shortCode);
+    }
+
+    /**
+     * Records a redirect lookup that found no URL and creates the exception
+     * reporting it.
+     * 
+     * @param shortCode The short code that was not found
+     * @return the exception to throw
+     */
+    private ResourceNotFoundException urlNotFoundForRedirect(String shortCode) {
+        shortCodeFilter.recordMiss(shortCode);
+        return new ResourceNotFoundException("URL", shortCode);
+    }
+
+    /**
+     * Records a served redirect for hot-link detection, the click event log,
+     * the click rollups and the click breakdowns. The client's country is
+     * resolved from its IP address if the context does not carry one.
+     * 
+     * @param target         The redirect target that was served
+     * @param context        The request details of the redirect
+     * @param userAgentClass The classification of the redirect's User-Agent
+     * @param counted        Whether the click is counted; uncounted (bot)
+     *                       clicks only appear in the click breakdowns
+     */
+    private void recordClick(RedirectTarget target, ClickContext context, UserAgentClass userAgentClass,
+            boolean counted) {
+        hotLinks.record(target.getShortCode());
+        if (counted) {
+            clickEventLog.append(target.getId(), context);
+            clickRollupAccumulator.increment(target.getId(), Instant.now(), context.visitorHash());
+        }
+        ClickContext located = context.getCountry() != null ? context
+                : context.withCountry(ipCountryResolver.resolve(context.getIpAddress()));
+        clickDimensionAccumulator.increment(target.getId(), located, userAgentClass);
+    }
+
+    /**
+     * Counts one click for a short code according to the configured
+     * {@link ClickCountingMode}.
+     * 
+     * @param shortCode The URL's short code
+     * @return false if the click was counted directly and no URL has the short
+     *         code, true otherwise
+     */
+    private boolean countClick(String shortCode) {
+        if (clickCountingMode == ClickCountingMode.BUFFERED) {
+            clickAccumulator.increment(shortCode);
+            return true;
+        }
+        return incrementClicksForRedirect(shortCode) > 0;
+    }
+
+    /**
+     * Checks that the URL of a cached redirect target still exists, for
+     * redirects that are not counted. Counted redirects are checked by
+     * {@link #countClick(String)} instead, so the check is skipped in the same
+     * case: buffered click counting.
+     * 
+     * @param target The cached redirect target
+     * @return false if the click would have been counted directly and no URL
+     *         has the target's ID, true otherwise
+     */
+    private boolean checkExists(RedirectTarget target) {
+        return clickCountingMode == ClickCountingMode.BUFFERED || urlRepository.existsById(target.getId());
+    }
+
+    /**
+     * Increments the click count of the URL behind a short code and returns its
+     * redirect target in a single statement, using the primary key when the
+     * short code can be decoded to one.
+     * 
+     * @param shortCode The URL's short code
+     * @return an Optional containing the redirect target if found, empty
+     *         otherwise
+     */
+    private Optional<RedirectTarget> incrementClicksAndGetRedirectTarget(String shortCode) {
+        int stripe = clickStripes.recordWrite(shortCode);
+        if (lookupById && Base62.isCanonical(shortCode)) {
+            Optional<RedirectTarget> target = clickCountRepository.incrementClicks(Base62.decode(shortCode),
+                    shortCode, stripe);
+            if (target.isPresent()) {
+                return target;
+            }
+        }
+        return clickCountRepository.incrementClicks(shortCode, stripe);
+    }
+
+    /**
+     * Loads the unique visitor estimate of a URL. Only read endpoints report
+     * the estimate, so that writes need no extra query.
+     * 
+     * @param url The URL entity
+     * @return the estimated all-time unique visitors of the URL
+     */
+    private long findUniqueVisitors(Url url) {
+        return clickRollupRepository.findUniqueVisitors(List.of(url.getId())).getOrDefault(url.getId(), 0L);
+    }
+
+    /**
+     * Maps a URL to a DTO, adding clicks that are buffered but not yet written
+     * to the database and an already loaded unique visitor estimate.
+     * 
+     * @param url            The URL entity
+     * @param uniqueVisitors The estimated all-time unique visitors of the URL
+     *                       (0 for a new URL), or null if not loaded
+     * @return the URL DTO
+     */
+    private UrlDTO toDTO(Url url, Long uniqueVisitors) {
+        UrlDTO urlDTO = urlMapper.toDTO(url);
+        urlDTO.setClicks(urlDTO.getClicks() + clickAccumulator.pending(url.getShortCode()));
+        urlDTO.setUniqueVisitors(uniqueVisitors);
+        return urlDTO;
+    }
+
+    /**
+     * Makes a new URL known to the redirect cache and the short code filter
+     * once the creating transaction has committed, so that a rolled back
+     * creation (e.g. a group commit that fell back to single creations) never
+     * redirects.
+     * 
+     * @param url The saved URL
+     */
+    private void publishCreated(Url url) {
+        RedirectTarget target = urlMapper.toRedirectTarget(url);
+        Transactions.afterCommit(() -> {
+            redirectCache.put(target);
+            shortCodeFilter.add(target.getShortCode());
+        });
+    }
+
+    /**
+     * Evicts a changed URL from the redirect cache, both right away and once
+     * the transaction has committed: until then, a concurrent redirect still
+     * reads the old row and may cache it again.
+     * 
+     * @param shortCode The short code of the changed URL
+     */
+    private void publishChanged(String shortCode) {
+        redirectCache.evict(shortCode);
+        Transactions.afterCommit(() -> redirectCache.evict(shortCode));
+    }
+
+    /**
+     * Evicts a deleted URL from the redirect cache like a changed one, and
+     * once the transaction has committed records its short code as deleted
+     * and, if it is anonymous, removes it from the anonymous link cache.
+     * 
+     * @param url The deleted URL
+     */
+    private void publishDeleted(Url url) {
+        String shortCode = url.getShortCode();
+        String originalUrl = url.getOriginalUrl();
+        boolean anonymous = url.getUser() == null;
+        publishChanged(shortCode);
+        Transactions.afterCommit(() -> {
+            shortCodeFilter.markDeleted(shortCode);
+            if (anonymous) {
+                anonymousLinkCache.evict(originalUrl);
+            }
+        });
+    }
+
+    /**
+     * Increments the click count of the URL behind a short code, using the
+     * primary key when the short code can be decoded to one.
+     * 
+     * @param shortCode The URL's short code
+     * @return the number of updated rows
+     */
+    private int incrementClicksForRedirect(String shortCode) {
+        int stripe = clickStripes.recordWrite(shortCode);
+        if (lookupById && Base62.isCanonical(shortCode)) {
+            int updated = urlRepository.incrementClicksByIdAndShortCode(Base62.decode(shortCode), shortCode,
+                    stripe);
+            if (updated > 0) {
+                return updated;
+            }
+        }
+        return urlRepository.incrementClicksByShortCode(shortCode, stripe);
+    }
+
     /**
      * Retrieves a URL by its short code and verifies ownership.
      * 
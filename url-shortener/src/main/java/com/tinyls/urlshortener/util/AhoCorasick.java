@@ -0,0 +1,165 @@
+package com.tinyls.urlshortener.util;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Queue;
+import java.util.function.IntConsumer;
+
+/**
+ * Aho-Corasick automaton for finding many ASCII patterns in a text in a
+ * single pass, ignoring case.
+ *
+ * The patterns are compiled into a trie whose missing transitions are filled
+ * in from the failure links, giving a deterministic automaton that consumes
+ * one character per step regardless of the number of patterns. Transitions
+ * are stored in one flat table indexed by state and character class; only
+ * characters that occur in a pattern get a class of their own, all others
+ * share class 0, which keeps the table small.
+ *
+ * The automaton is immutable and can be shared between threads.
+ */
+public final class AhoCorasick {
+    private static final int ASCII = 128;
+    private static final int[] NO_MATCHES = new int[0];
+
+    private final byte[] charClasses = new byte[ASCII];
+    private final int alphabetSize;
+    /**
+     * Next state by state and character class, one row per state.
+     */
+    private final int[] transitions;
+    /**
+     * Indexes of the patterns ending in each state, by state number.
+     */
+    private final int[][] matches;
+
+    /**
+     * Compiles patterns into an automaton.
+     *
+     * @param patterns the patterns, non-empty ASCII strings
+     * @throws IllegalArgumentException if a pattern is empty or not ASCII
+     */
+    public AhoCorasick(List<String> patterns) {
+        int classes = 1;
+        for (String pattern : patterns) {
+            if (pattern.isEmpty()) {
+                throw new IllegalArgumentException("Patterns must not be empty");
+            }
+            for (int i = 0; i < pattern.length(); i++) {
+                char c = lowerCase(pattern.charAt(i));
+                if (c >= ASCII) {
+                    throw new IllegalArgumentException("Patterns must be ASCII: " + pattern);
+                }
+                if (charClasses[c] == 0) {
+                    if (classes > Byte.MAX_VALUE) {
+                        throw new IllegalArgumentException("Patterns use too many distinct characters");
+                    }
+                    charClasses[c] = (byte) classes++;
+                }
+            }
+        }
+        for (char c = 'A'; c <= 'Z'; c++) {
+            charClasses[c] = charClasses[lowerCase(c)];
+        }
+        this.alphabetSize = classes;
+
+        // Trie
+        List<int[]> gotos = new ArrayList<>();
+        List<List<Integer>> outputs = new ArrayList<>();
+        gotos.add(newRow());
+        outputs.add(new ArrayList<>());
+        for (int index = 0; index < patterns.size(); index++) {
+            String pattern = patterns.get(index);
+            int state = 0;
+            for (int i = 0; i < pattern.length(); i++) {
+                int c = charClasses[pattern.charAt(i)];
+                if (gotos.get(state)[c] < 0) {
+                    gotos.get(state)[c] = gotos.size();
+                    gotos.add(newRow());
+                    outputs.add(new ArrayList<>());
+                }
+                state = gotos.get(state)[c];
+            }
+            outputs.get(state).add(index);
+        }
+
+        // Failure links, breadth-first so that the failure state of a state
+        // is complete before the state itself
+        int states = gotos.size();
+        int[] failures = new int[states];
+        Queue<Integer> queue = new ArrayDeque<>();
+        int[] root = gotos.get(0);
+        for (int c = 0; c < alphabetSize; c++) {
+            if (root[c] < 0) {
+                root[c] = 0;
+            } else {
+                queue.add(root[c]);
+            }
+        }
+        while (!queue.isEmpty()) {
+            int state = queue.poll();
+            int[] row = gotos.get(state);
+            outputs.get(state).addAll(outputs.get(failures[state]));
+            for (int c = 0; c < alphabetSize; c++) {
+                int failureNext = gotos.get(failures[state])[c];
+                if (row[c] < 0) {
+                    row[c] = failureNext;
+                } else {
+                    failures[row[c]] = failureNext;
+                    queue.add(row[c]);
+                }
+            }
+        }
+
+        this.transitions = new int[states * alphabetSize];
+        this.matches = new int[states][];
+        for (int state = 0; state < states; state++) {
+            int[] row = gotos.get(state);
+            for (int c = 0; c < alphabetSize; c++) {
+                transitions[state * alphabetSize + c] = row[c];
+            }
+            List<Integer> output = outputs.get(state);
+            matches[state] = output.isEmpty() ? NO_MATCHES
+                    : output.stream().mapToInt(Integer::intValue).sorted().distinct().toArray();
+        }
+    }
+
+    /**
+     * Finds all pattern occurrences in a text, ignoring case.
+     *
+     * @param text    the text
+     * @param matches called with the index of the pattern for every
+     *                occurrence, in the order the occurrences end
+     */
+    public void search(CharSequence text, IntConsumer matches) {
+        int state = 0;
+        for (int i = 0, length = text.length(); i < length; i++) {
+            char c = text.charAt(i);
+            state = transitions[state * alphabetSize + (c < ASCII ? charClasses[c] : 0)];
+            for (int index : this.matches[state]) {
+                matches.accept(index);
+            }
+        }
+    }
+
+    /**
+     * Returns the number of states of the automaton.
+     *
+     * @return the number of states
+     */
+    public int states() {
+        return matches.length;
+    }
+
+    private int[] newRow() {
+        int[] row = new int[alphabetSize];
+        Arrays.fill(row, -1);
+        return row;
+    }
+
+    private static char lowerCase(char c) {
+        return c >= 'A' && c <= 'Z' ? (char) (c + ('a' - 'A')) : c;
+    }
+}
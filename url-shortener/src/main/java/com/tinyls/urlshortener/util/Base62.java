@@ -52,13 +52,15 @@ public class Base62 {
             return String.valueOf(CHARACTERS.charAt(0));
         }
 
-        StringBuilder result = new StringBuilder();
+        // Digits are emitted least-significant first; existing short codes in the
+        // database depend on this order, so decode() reads them back in reverse.
+        StringBuilder result = new StringBuilder(MAX_LENGTH);
         while (number > 0) {
-            result.insert(0, CHARACTERS.charAt((int) (number % BASE)));
+            result.append(CHARACTERS.charAt((int) (number % BASE)));
             number /= BASE;
         }
 
-        String encoded = result.reverse().toString();
+        String encoded = result.toString();
         if (encoded.length() > MAX_LENGTH) {
             throw new IllegalArgumentException("Encoded value exceeds maximum length of " + MAX_LENGTH);
         }
@@ -67,6 +69,8 @@ public class Base62 {
 
     /**
      * Decodes a Base62 string back to a long number.
+     * This is the inverse of {@link #encode(long)}: the first character holds the
+     * least significant digit.
      * 
      * @param str the Base62 encoded string to decode
      * @return the decoded number
@@ -84,7 +88,8 @@ public class Base62 {
         }
 
         long result = 0L;
-        for (char c : str.toCharArray()) {
+        for (int i = str.length() - 1; i >= 0; i--) {
+            char c = str.charAt(i);
             int value = CHARACTERS.indexOf(c);
             if (value == -1) {
                 throw new IllegalArgumentException("Invalid character in string: " + c);
@@ -113,4 +118,19 @@ public class Base62 {
         }
         return true;
     }
+
+    /**
+     * Checks if a string is exactly what {@link #encode(long)} produces for some
+     * number, i.e. it is valid and has no trailing (most significant) zero digit.
+     * For such strings {@code encode(decode(str))} equals {@code str}.
+     * 
+     * @param str the string to check
+     * @return true if the string is a canonical Base62 encoding, false otherwise
+     */
+    public static boolean isCanonical(String str) {
+        if (!isValid(str)) {
+            return false;
+        }
+        return str.length() == 1 || str.charAt(str.length() - 1) != CHARACTERS.charAt(0);
+    }
 }
@@ -0,0 +1,103 @@
+package com.tinyls.urlshortener.util;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Thread-safe Bloom filter for strings.
+ *
+ * A Bloom filter answers set membership queries with no false negatives and a
+ * configurable false positive probability, using a fixed amount of memory
+ * regardless of the length of the stored strings. Elements cannot be removed.
+ *
+ * Bits are kept in an {@link AtomicLongArray}, so concurrent additions and
+ * lookups need no locking. Bit positions are derived from a single 64-bit hash
+ * per element using double hashing.
+ */
+public class BloomFilter {
+    private final AtomicLongArray bits;
+    private final long bitCount;
+    private final int hashCount;
+    private final LongAdder insertions = new LongAdder();
+
+    /**
+     * Creates a Bloom filter sized for the expected number of elements.
+     *
+     * @param expectedInsertions       the number of elements the filter is sized
+     *                                 for
+     * @param falsePositiveProbability the desired false positive probability
+     *                                 at the expected number of elements
+     * @throws IllegalArgumentException if the arguments are out of range
+     */
+    public BloomFilter(long expectedInsertions, double falsePositiveProbability) {
+        if (expectedInsertions <= 0) {
+            throw new IllegalArgumentException("Expected insertions must be positive");
+        }
+        if (falsePositiveProbability <= 0 || falsePositiveProbability >= 1) {
+            throw new IllegalArgumentException("False positive probability must be between 0 and 1");
+        }
+
+        long optimalBits = (long) Math.ceil(
+                -expectedInsertions * Math.log(falsePositiveProbability) / (Math.log(2) * Math.log(2)));
+        int words = (int) Math.min(Integer.MAX_VALUE - 8, Math.max(1, (optimalBits + 63) / 64));
+        this.bits = new AtomicLongArray(words);
+        this.bitCount = (long) words * 64;
+        this.hashCount = Math.max(1, (int) Math.round((double) bitCount / expectedInsertions * Math.log(2)));
+    }
+
+    /**
+     * Adds an element to the filter.
+     *
+     * @param value the element to add
+     */
+    public void add(String value) {
+        long hash1 = Hashing.hash64(value);
+        long hash2 = Hashing.mix64(hash1 ^ 0x9e3779b97f4a7c15L) | 1L;
+        for (int i = 0; i < hashCount; i++) {
+            long index = Math.floorMod(hash1 + i * hash2, bitCount);
+            long mask = 1L << index;
+            int word = (int) (index >>> 6);
+            if ((bits.get(word) & mask) == 0) {
+                bits.accumulateAndGet(word, mask, (current, bit) -> current | bit);
+            }
+        }
+        insertions.increment();
+    }
+
+    /**
+     * Checks if an element might have been added to the filter.
+     *
+     * @param value the element to check
+     * @return false if the element was definitely never added, true otherwise
+     */
+    public boolean mightContain(String value) {
+        long hash1 = Hashing.hash64(value);
+        long hash2 = Hashing.mix64(hash1 ^ 0x9e3779b97f4a7c15L) | 1L;
+        for (int i = 0; i < hashCount; i++) {
+            long index = Math.floorMod(hash1 + i * hash2, bitCount);
+            if ((bits.get((int) (index >>> 6)) & (1L << index)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the number of add operations performed on the filter.
+     *
+     * @return the number of insertions
+     */
+    public long insertions() {
+        return insertions.sum();
+    }
+
+    /**
+     * Returns the size of the filter's bit array.
+     *
+     * @return the number of bits
+     */
+    public long bitCount() {
+        return bitCount;
+    }
+
+}
@@ -0,0 +1,92 @@
+package com.tinyls.urlshortener.util;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Thread-safe Count-Min sketch for estimating the frequency of strings.
+ *
+ * A Count-Min sketch keeps a fixed number of counters in several rows, each row
+ * indexed by a different hash. An element increments one counter per row and
+ * its frequency is estimated as the minimum of those counters. Estimates never
+ * undercount; they overcount by at most a small fraction of the total count
+ * with high probability, which makes the sketch suitable for finding heavy
+ * hitters among many rare elements using constant memory.
+ *
+ * Counters are kept in an {@link AtomicLongArray}, so concurrent updates need
+ * no locking. {@link #halve()} ages all counters, so that estimates reflect
+ * recent rather than all-time frequencies.
+ */
+public class CountMinSketch {
+    private final AtomicLongArray counters;
+    private final int depth;
+    private final int widthMask;
+
+    /**
+     * Creates a Count-Min sketch.
+     *
+     * @param width the number of counters per row, rounded up to a power of two
+     * @param depth the number of rows
+     * @throws IllegalArgumentException if the arguments are out of range
+     */
+    public CountMinSketch(int width, int depth) {
+        if (width <= 0 || width > (1 << 24)) {
+            throw new IllegalArgumentException("Width must be between 1 and 2^24");
+        }
+        if (depth <= 0 || depth > 16) {
+            throw new IllegalArgumentException("Depth must be between 1 and 16");
+        }
+        int roundedWidth = width == 1 ? 1 : Integer.highestOneBit(width - 1) << 1;
+        this.counters = new AtomicLongArray(roundedWidth * depth);
+        this.depth = depth;
+        this.widthMask = roundedWidth - 1;
+    }
+
+    /**
+     * Counts one occurrence of an element.
+     *
+     * @param value the element
+     * @return the estimated frequency of the element including this occurrence
+     */
+    public long add(String value) {
+        long hash1 = Hashing.hash64(value);
+        long hash2 = Hashing.mix64(hash1 ^ 0x9e3779b97f4a7c15L) | 1L;
+        long estimate = Long.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            estimate = Math.min(estimate, counters.incrementAndGet(index(row, hash1, hash2)));
+        }
+        return estimate;
+    }
+
+    /**
+     * Estimates the frequency of an element.
+     *
+     * @param value the element
+     * @return the estimated frequency, never less than the actual one
+     */
+    public long estimate(String value) {
+        long hash1 = Hashing.hash64(value);
+        long hash2 = Hashing.mix64(hash1 ^ 0x9e3779b97f4a7c15L) | 1L;
+        long estimate = Long.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            estimate = Math.min(estimate, counters.get(index(row, hash1, hash2)));
+        }
+        return estimate;
+    }
+
+    /**
+     * Halves all counters. Occurrences counted concurrently may be halved as
+     * well.
+     */
+    public void halve() {
+        for (int i = 0; i < counters.length(); i++) {
+            if (counters.get(i) != 0) {
+                counters.getAndUpdate(i, count -> count >>> 1);
+            }
+        }
+    }
+
+    private int index(int row, long hash1, long hash2) {
+        return row * (widthMask + 1) + (int) ((hash1 + row * hash2) & widthMask);
+    }
+
+}
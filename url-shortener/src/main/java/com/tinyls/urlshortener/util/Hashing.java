@@ -0,0 +1,86 @@
+package com.tinyls.urlshortener.util;
+
+/**
+ * The 64-bit string hash shared by the sketches, filters and stored hashes.
+ *
+ * Strings are hashed with FNV-1a over their UTF-16 chars, which is cheap and
+ * allocation-free, and finalized with the MurmurHash3 64-bit mixing step,
+ * which spreads FNV-1a's weak low and high bits over the whole word.
+ *
+ * Some of these hashes are persisted (url_hash of urls, the click event
+ * User-Agent hash and the visitor sketches), so the functions must never
+ * change.
+ */
+public final class Hashing {
+
+    /**
+     * The initial value of a 64-bit FNV-1a hash, the hash of the empty string.
+     */
+    public static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private Hashing() {
+    }
+
+    /**
+     * Computes the mixed 64-bit hash of a string: {@code mix64(fnv1a64(value))}.
+     *
+     * @param value the string
+     * @return the hash
+     */
+    public static long hash64(CharSequence value) {
+        return mix64(fnv1a64(value));
+    }
+
+    /**
+     * Computes the 64-bit FNV-1a hash of a string, one step per char.
+     *
+     * @param value the string
+     * @return the unmixed hash
+     */
+    public static long fnv1a64(CharSequence value) {
+        return fnv1a64(FNV_OFFSET_BASIS, value);
+    }
+
+    /**
+     * Continues a 64-bit FNV-1a hash with the chars of a string, so that
+     * several values can be hashed together.
+     *
+     * @param hash  the hash so far, {@link #FNV_OFFSET_BASIS} to start
+     * @param value the string
+     * @return the unmixed hash
+     */
+    public static long fnv1a64(long hash, CharSequence value) {
+        for (int i = 0, length = value.length(); i < length; i++) {
+            hash = fnv1a64Step(hash, value.charAt(i));
+        }
+        return hash;
+    }
+
+    /**
+     * Continues a 64-bit FNV-1a hash with one value, usually a byte or char.
+     *
+     * @param hash  the hash so far
+     * @param value the value
+     * @return the unmixed hash
+     */
+    public static long fnv1a64Step(long hash, int value) {
+        return (hash ^ value) * FNV_PRIME;
+    }
+
+    /**
+     * Applies the MurmurHash3 64-bit finalizer.
+     *
+     * @param hash the hash
+     * @return the mixed hash
+     */
+    public static long mix64(long hash) {
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
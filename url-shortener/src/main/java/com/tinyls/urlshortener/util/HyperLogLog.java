@@ -0,0 +1,151 @@
+package com.tinyls.urlshortener.util;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+/**
+ * Thread-safe HyperLogLog sketch for estimating the number of distinct
+ * elements.
+ *
+ * Each element is hashed to 64 bits; the first bits select one of a fixed
+ * number of registers and the register keeps the highest position of the
+ * first one bit seen in the remaining bits. The number of distinct elements is
+ * estimated from the harmonic mean of the registers, with linear counting for
+ * small cardinalities. With 4096 one-byte registers the standard error is
+ * about 1.6%, whatever the number of elements.
+ *
+ * Two sketches are merged by taking the maximum of each register, which gives
+ * exactly the sketch of the union of both element sets. Merging is idempotent,
+ * so sketches of overlapping time buckets or of several instances can be
+ * combined freely. The registers are serialized as-is, one byte each.
+ *
+ * Registers are only ever raised, with compare-and-set, so concurrent updates
+ * need no locking.
+ */
+public class HyperLogLog {
+    /**
+     * The number of index bits.
+     */
+    public static final int PRECISION = 12;
+
+    /**
+     * The number of registers, which is also the serialized size in bytes.
+     */
+    public static final int REGISTERS = 1 << PRECISION;
+
+    private static final int MAX_RANK = Long.SIZE - PRECISION + 1;
+    private static final double ALPHA = 0.7213 / (1.0 + 1.079 / REGISTERS);
+    private static final VarHandle REGISTER = MethodHandles.arrayElementVarHandle(byte[].class);
+
+    private final byte[] registers;
+
+    /**
+     * Creates an empty sketch.
+     */
+    public HyperLogLog() {
+        this.registers = new byte[REGISTERS];
+    }
+
+    private HyperLogLog(byte[] registers) {
+        this.registers = registers;
+    }
+
+    /**
+     * Restores a sketch from its serialized registers.
+     *
+     * @param bytes the serialized registers, as returned by {@link #toBytes()}
+     * @return the sketch
+     * @throws IllegalArgumentException if the bytes are not a serialized sketch
+     */
+    public static HyperLogLog fromBytes(byte[] bytes) {
+        if (bytes.length != REGISTERS) {
+            throw new IllegalArgumentException("Expected " + REGISTERS + " registers, got " + bytes.length);
+        }
+        return new HyperLogLog(bytes.clone());
+    }
+
+    /**
+     * Computes the 64-bit hash of a string used to add it to a sketch.
+     *
+     * @param value the element
+     * @return the hash
+     */
+    public static long hash(String value) {
+        return Hashing.hash64(value);
+    }
+
+    /**
+     * Adds an element given its hash.
+     *
+     * @param hash the 64-bit hash of the element, see {@link #hash(String)}
+     */
+    public void addHash(long hash) {
+        int index = (int) (hash >>> (Long.SIZE - PRECISION));
+        int rank = Math.min(Long.numberOfLeadingZeros(hash << PRECISION) + 1, MAX_RANK);
+        raise(index, (byte) rank);
+    }
+
+    /**
+     * Adds all elements of another sketch to this one.
+     *
+     * @param other the sketch to merge
+     * @return true if any register was raised, false if this sketch already
+     *         covered the other one
+     */
+    public boolean merge(HyperLogLog other) {
+        boolean raised = false;
+        for (int i = 0; i < REGISTERS; i++) {
+            byte rank = (byte) REGISTER.getVolatile(other.registers, i);
+            if (rank != 0) {
+                raised |= raise(i, rank);
+            }
+        }
+        return raised;
+    }
+
+    /**
+     * Estimates the number of distinct elements added.
+     *
+     * @return the estimated cardinality
+     */
+    public long estimate() {
+        double sum = 0;
+        int zeros = 0;
+        for (int i = 0; i < REGISTERS; i++) {
+            byte rank = (byte) REGISTER.getVolatile(registers, i);
+            sum += Math.scalb(1.0, -rank);
+            if (rank == 0) {
+                zeros++;
+            }
+        }
+        double estimate = ALPHA * REGISTERS * REGISTERS / sum;
+        if (estimate <= 2.5 * REGISTERS && zeros > 0) {
+            estimate = REGISTERS * Math.log((double) REGISTERS / zeros);
+        }
+        return Math.round(estimate);
+    }
+
+    /**
+     * Serializes the registers.
+     *
+     * @return a copy of the registers, one byte each
+     */
+    public byte[] toBytes() {
+        byte[] bytes = new byte[REGISTERS];
+        for (int i = 0; i < REGISTERS; i++) {
+            bytes[i] = (byte) REGISTER.getVolatile(registers, i);
+        }
+        return bytes;
+    }
+
+    private boolean raise(int index, byte rank) {
+        byte current;
+        do {
+            current = (byte) REGISTER.getVolatile(registers, index);
+            if (current >= rank) {
+                return false;
+            }
+        } while (!REGISTER.compareAndSet(registers, index, current, rank));
+        return true;
+    }
+}
@@ -0,0 +1,186 @@
+package com.tinyls.urlshortener.util;
+
+/**
+ * Allocation-free parsing of textual IP addresses into numbers.
+ *
+ * Unlike {@link java.net.InetAddress#getByName(String)}, these methods never
+ * resolve host names and never allocate, so they can run on every request.
+ */
+public final class IpAddresses {
+    /**
+     * Returned when a string is not an address of the requested family.
+     */
+    public static final long INVALID = -1L;
+
+    private IpAddresses() {
+    }
+
+    /**
+     * Parses a dotted-quad IPv4 address, or an IPv4-mapped IPv6 address
+     * ("::ffff:1.2.3.4").
+     *
+     * @param address the address
+     * @return the address as an unsigned 32-bit value, or {@link #INVALID}
+     */
+    public static long parseIpv4(String address) {
+        if (address == null) {
+            return INVALID;
+        }
+        if (address.regionMatches(true, 0, "::ffff:", 0, 7) && address.indexOf('.') > 0) {
+            return parseIpv4(address, 7, address.length());
+        }
+        return parseIpv4(address, 0, address.length());
+    }
+
+    /**
+     * Parses the upper 64 bits (the network prefix) of an IPv6 address.
+     * Zone IDs ("%eth0") and surrounding brackets are ignored.
+     *
+     * @param address the address
+     * @return the upper 64 bits, or {@link #INVALID} if the string is not an
+     *         IPv6 address; note that ffff:ffff:ffff:ffff::/64 also yields -1
+     */
+    public static long parseIpv6Prefix(String address) {
+        if (address == null || address.indexOf(':') < 0) {
+            return INVALID;
+        }
+        int start = 0;
+        int end = address.length();
+        if (end > 1 && address.charAt(0) == '[' && address.charAt(end - 1) == ']') {
+            start = 1;
+            end--;
+        }
+        int zone = address.indexOf('%', start);
+        if (zone >= 0 && zone < end) {
+            end = zone;
+        }
+
+        // First pass: validate the groups and count them before and after "::"
+        int compression = -1;
+        int groupsBefore = 0;
+        int groupsAfter = 0;
+        int i = start;
+        if (address.startsWith("::", start)) {
+            compression = start;
+            i = start + 2;
+        }
+        while (i < end) {
+            int groupEnd = i;
+            while (groupEnd < end && address.charAt(groupEnd) != ':') {
+                groupEnd++;
+            }
+            if (groupEnd == i) {
+                return INVALID;
+            }
+            boolean ipv4 = address.indexOf('.', i) >= 0 && address.indexOf('.', i) < groupEnd;
+            if (ipv4 ? groupEnd != end || parseIpv4(address, i, groupEnd) == INVALID
+                    : parseHexGroup(address, i, groupEnd) < 0) {
+                // An embedded IPv4 address is only valid as the last two groups
+                return INVALID;
+            }
+            int groups = ipv4 ? 2 : 1;
+            if (compression >= 0) {
+                groupsAfter += groups;
+            } else {
+                groupsBefore += groups;
+            }
+            i = groupEnd;
+            if (i < end) {
+                if (address.startsWith("::", i)) {
+                    if (compression >= 0) {
+                        return INVALID;
+                    }
+                    compression = i;
+                    i += 2;
+                } else {
+                    i++;
+                    if (i == end) {
+                        return INVALID;
+                    }
+                }
+            }
+        }
+        int total = groupsBefore + groupsAfter;
+        if (compression < 0 ? total != 8 : total > 7) {
+            return INVALID;
+        }
+
+        // Second pass: place the groups that fall into the upper 64 bits
+        long prefix = 0;
+        int index = 0;
+        i = start;
+        if (compression == start) {
+            index = 8 - groupsAfter;
+            i = start + 2;
+        }
+        while (i < end && index < 4) {
+            int groupEnd = i;
+            while (groupEnd < end && address.charAt(groupEnd) != ':') {
+                groupEnd++;
+            }
+            if (address.indexOf('.', i) >= 0 && address.indexOf('.', i) < groupEnd) {
+                // Embedded IPv4 address, in the lower 64 bits
+                break;
+            }
+            long group = parseHexGroup(address, i, groupEnd);
+            prefix |= group << (16 * (3 - index));
+            index++;
+            i = groupEnd;
+            if (i < end) {
+                if (i == compression) {
+                    index = 8 - groupsAfter;
+                    i += 2;
+                } else {
+                    i++;
+                }
+            }
+        }
+        return prefix;
+    }
+
+    private static long parseIpv4(String address, int start, int end) {
+        long value = 0;
+        int octets = 0;
+        int i = start;
+        while (i < end) {
+            int octet = 0;
+            int digits = 0;
+            while (i < end && address.charAt(i) != '.') {
+                char c = address.charAt(i);
+                if (c < '0' || c > '9' || digits == 3) {
+                    return INVALID;
+                }
+                octet = octet * 10 + (c - '0');
+                digits++;
+                i++;
+            }
+            if (digits == 0 || octet > 255) {
+                return INVALID;
+            }
+            value = (value << 8) | octet;
+            octets++;
+            if (i < end) {
+                i++;
+                if (i == end) {
+                    return INVALID;
+                }
+            }
+        }
+        return octets == 4 ? value : INVALID;
+    }
+
+    private static long parseHexGroup(String address, int start, int end) {
+        if (end - start > 4) {
+            return -1;
+        }
+        long group = 0;
+        for (int i = start; i < end; i++) {
+            int digit = Character.digit(address.charAt(i), 16);
+            if (digit < 0) {
+                return -1;
+            }
+            group = (group << 4) | digit;
+        }
+        return group;
+    }
+}
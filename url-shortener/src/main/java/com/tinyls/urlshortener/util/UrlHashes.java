@@ -0,0 +1,28 @@
+package com.tinyls.urlshortener.util;
+
+/**
+ * Computes the url_hash of original URLs.
+ *
+ * The hash is {@link Hashing#hash64(CharSequence)} of the URL's characters.
+ * URLs are hashed exactly as stored: duplicate checks compare original URLs
+ * for equality, so the hash must not identify URLs that compare unequal. A hash match only selects candidates; the
+ * original URLs are always compared as well.
+ *
+ * Stored hashes are only ever computed here, so the function must not change
+ * without rehashing all rows.
+ */
+public final class UrlHashes {
+
+    private UrlHashes() {
+    }
+
+    /**
+     * Hashes an original URL.
+     *
+     * @param originalUrl the original URL
+     * @return the hash
+     */
+    public static long hash(String originalUrl) {
+        return Hashing.hash64(originalUrl);
+    }
+}
@@ -0,0 +1,12 @@
+-- Striped click counters: a URL with heavy write traffic gets several url_stats rows (stripes 1..n-1
+-- next to the base row 0), so concurrent click writers update different rows instead of queueing
+-- on one row lock. Counts are the sum over all stripes of a URL.
+ALTER TABLE url_stats
+    ADD COLUMN stripe SMALLINT NOT NULL DEFAULT 0;
+
+ALTER TABLE url_stats
+    DROP CONSTRAINT pk_url_stats,
+    ADD CONSTRAINT pk_url_stats PRIMARY KEY (url_id, stripe);
+
+-- Finds striped URLs without scanning all stats rows; stripe is never updated, so updates stay HOT
+CREATE INDEX idx_url_stats_striped ON url_stats (url_id) WHERE stripe = 1;
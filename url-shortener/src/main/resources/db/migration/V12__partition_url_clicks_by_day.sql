@@ -0,0 +1,71 @@
+-- url_clicks becomes range-partitioned by UTC day, so that per-link history queries only scan the
+-- days they ask for and retention drops whole partitions instead of deleting rows.
+ALTER TABLE url_clicks RENAME TO url_clicks_unpartitioned;
+ALTER INDEX idx_url_clicks_url_id_clicked_at RENAME TO idx_url_clicks_unpartitioned_url_id_clicked_at;
+
+CREATE TABLE url_clicks
+(
+    url_id          BIGINT                   NOT NULL,
+    clicked_at      TIMESTAMP WITH TIME ZONE NOT NULL,
+    referrer        VARCHAR(512),
+    user_agent_hash BIGINT,
+    ip_prefix       INET
+) PARTITION BY RANGE (clicked_at);
+
+CREATE INDEX idx_url_clicks_url_id_clicked_at ON url_clicks (url_id, clicked_at);
+
+COMMENT ON COLUMN url_clicks.ip_prefix IS 'Client network (IPv4 /24, IPv6 /48); full addresses are never stored.';
+
+-- Catches events of days without a partition (e.g. a click log replayed after a long outage)
+CREATE TABLE url_clicks_default PARTITION OF url_clicks DEFAULT;
+
+-- Creates the daily partitions url_clicks_YYYYMMDD for the given days, UTC, if missing.
+-- Rows of those days already in the default partition are moved into the new partition.
+-- Returns the number of created partitions.
+-- Called once below and then periodically by the application to stay ahead of time.
+CREATE FUNCTION ensure_url_clicks_partitions(first_day DATE, days INTEGER) RETURNS INTEGER AS
+$$
+DECLARE
+    partition_day  DATE;
+    day_start      TIMESTAMP WITH TIME ZONE;
+    day_end        TIMESTAMP WITH TIME ZONE;
+    partition_name TEXT;
+    created        INTEGER := 0;
+BEGIN
+    FOR i IN 0..days - 1
+        LOOP
+            partition_day := first_day + i;
+            partition_name := 'url_clicks_' || to_char(partition_day, 'YYYYMMDD');
+            CONTINUE WHEN to_regclass(partition_name) IS NOT NULL;
+
+            day_start := partition_day::TIMESTAMP AT TIME ZONE 'UTC';
+            day_end := (partition_day + 1)::TIMESTAMP AT TIME ZONE 'UTC';
+            IF EXISTS (SELECT 1 FROM url_clicks_default WHERE clicked_at >= day_start AND clicked_at < day_end) THEN
+                -- A partition cannot be created while the default partition holds rows for its range
+                ALTER TABLE url_clicks DETACH PARTITION url_clicks_default;
+                EXECUTE format('CREATE TABLE %I PARTITION OF url_clicks FOR VALUES FROM (%L) TO (%L)',
+                               partition_name, day_start, day_end);
+                WITH moved AS (
+                    DELETE FROM url_clicks_default WHERE clicked_at >= day_start AND clicked_at < day_end RETURNING *)
+                INSERT INTO url_clicks SELECT * FROM moved;
+                ALTER TABLE url_clicks ATTACH PARTITION url_clicks_default DEFAULT;
+            ELSE
+                EXECUTE format('CREATE TABLE %I PARTITION OF url_clicks FOR VALUES FROM (%L) TO (%L)',
+                               partition_name, day_start, day_end);
+            END IF;
+            created := created + 1;
+        END LOOP;
+    RETURN created;
+END;
+$$ LANGUAGE plpgsql;
+
+-- Partitions for the existing events and the coming week
+SELECT ensure_url_clicks_partitions(first_day, (now() AT TIME ZONE 'UTC')::DATE - first_day + 8)
+FROM (SELECT COALESCE(min(clicked_at) AT TIME ZONE 'UTC', now() AT TIME ZONE 'UTC')::DATE AS first_day
+      FROM url_clicks_unpartitioned) AS existing;
+
+INSERT INTO url_clicks
+SELECT url_id, clicked_at, referrer, user_agent_hash, ip_prefix
+FROM url_clicks_unpartitioned;
+
+DROP TABLE url_clicks_unpartitioned;
@@ -0,0 +1,24 @@
+-- Dictionary of click dimension values (referrer hosts, device classes, countries), each interned
+-- once to a small integer ID. dimension: 0 = referrer host, 1 = device class, 2 = country.
+CREATE TABLE click_dimension_values
+(
+    id        SERIAL       NOT NULL,
+    dimension SMALLINT     NOT NULL,
+    value     VARCHAR(255) NOT NULL,
+    CONSTRAINT pk_click_dimension_values PRIMARY KEY (id),
+    CONSTRAINT uk_click_dimension_values UNIQUE (dimension, value)
+);
+
+-- Clicks per URL and dimension value, maintained incrementally by batched upserts.
+-- No foreign key to urls, like the rollups; rows of deleted URLs are purged periodically.
+CREATE TABLE url_click_dimensions
+(
+    url_id    BIGINT   NOT NULL,
+    dimension SMALLINT NOT NULL,
+    value_id  INTEGER  NOT NULL,
+    clicks    BIGINT   NOT NULL,
+    CONSTRAINT pk_url_click_dimensions PRIMARY KEY (url_id, dimension, value_id)
+);
+
+-- Top values of a URL's dimension are read from the front of this index
+CREATE INDEX idx_url_click_dimensions_top ON url_click_dimensions (url_id, dimension, clicks DESC) INCLUDE (value_id);
@@ -0,0 +1,5 @@
+-- URL IDs are leased in blocks: each nextval('urls_seq') reserves the block of
+-- IDs [value, value + increment), which an instance hands out from memory.
+-- Values stay unique across instances, and the column default still takes a
+-- single ID, the first of its own block.
+ALTER SEQUENCE urls_seq INCREMENT BY 50;
@@ -0,0 +1,7 @@
+-- Duplicate checks on creation compare original_url, an unindexed VARCHAR(2048). url_hash is a
+-- 64-bit hash of original_url (computed by the application), indexed together with user_id in V16,
+-- so that duplicate checks probe the index and compare original_url only on hash matches.
+-- The column is nullable and has no default, so adding it does not rewrite the table; existing rows
+-- are hashed in small batches by the running application (UrlHashBackfill).
+ALTER TABLE urls
+    ADD COLUMN url_hash BIGINT;
@@ -0,0 +1,11 @@
+-- Built concurrently, so that URL creation is not blocked while the indexes are built on a large
+-- table. Flyway runs migrations containing CREATE INDEX CONCURRENTLY outside a transaction.
+-- CONCURRENTLY waits for all open transactions, including the one that holds Flyway's default
+-- transactional advisory lock, so spring.flyway.postgresql.transactional-lock must be false
+-- (set in application.properties); otherwise the migration never finishes.
+
+-- Duplicate checks: (user_id, url_hash) for users, (NULL, url_hash) for anonymous URLs
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_urls_user_id_url_hash ON urls (user_id, url_hash);
+
+-- Rows still to be backfilled; empty (and free to maintain) once the backfill is done
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_urls_url_hash_missing ON urls (id) WHERE url_hash IS NULL;
@@ -0,0 +1,11 @@
+-- Per-link redirect policy: status code, cache lifetime and whether clicks must be counted exactly
+ALTER TABLE urls
+    ADD COLUMN redirect_status INTEGER NOT NULL DEFAULT 302,
+    ADD COLUMN cache_max_age INTEGER NOT NULL DEFAULT 0,
+    ADD COLUMN exact_clicks BOOLEAN NOT NULL DEFAULT TRUE;
+
+ALTER TABLE urls
+    ADD CONSTRAINT check_redirect_status CHECK (redirect_status IN (301, 302, 307, 308)),
+    ADD CONSTRAINT check_cache_max_age CHECK (cache_max_age >= 0);
+
+COMMENT ON COLUMN urls.cache_max_age IS 'Seconds browsers and proxies may cache the redirect. Ignored while exact_clicks is set.';
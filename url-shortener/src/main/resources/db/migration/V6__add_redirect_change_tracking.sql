@@ -0,0 +1,50 @@
+-- Change tracking for incremental catch-up of redirect snapshots:
+-- updated_at is set on insert and whenever the redirect of a URL changes (not on click updates),
+-- deleted short codes are recorded as tombstones
+ALTER TABLE urls
+    ADD COLUMN updated_at TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT now();
+
+CREATE INDEX idx_urls_updated_at ON urls (updated_at);
+
+CREATE FUNCTION urls_touch_updated_at() RETURNS TRIGGER AS
+$$
+BEGIN
+    NEW.updated_at := now();
+    RETURN NEW;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER trg_urls_touch_updated_at
+    BEFORE UPDATE OF original_url, redirect_status, cache_max_age, exact_clicks
+    ON urls
+    FOR EACH ROW
+    WHEN (OLD.original_url IS DISTINCT FROM NEW.original_url
+        OR OLD.redirect_status IS DISTINCT FROM NEW.redirect_status
+        OR OLD.cache_max_age IS DISTINCT FROM NEW.cache_max_age
+        OR OLD.exact_clicks IS DISTINCT FROM NEW.exact_clicks)
+EXECUTE FUNCTION urls_touch_updated_at();
+
+CREATE TABLE url_tombstones
+(
+    short_code VARCHAR(8)               NOT NULL,
+    deleted_at TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT now(),
+    CONSTRAINT pk_url_tombstones PRIMARY KEY (short_code)
+);
+
+CREATE INDEX idx_url_tombstones_deleted_at ON url_tombstones (deleted_at);
+
+CREATE FUNCTION urls_record_tombstone() RETURNS TRIGGER AS
+$$
+BEGIN
+    INSERT INTO url_tombstones (short_code, deleted_at)
+    VALUES (OLD.short_code, now())
+    ON CONFLICT (short_code) DO UPDATE SET deleted_at = EXCLUDED.deleted_at;
+    RETURN OLD;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER trg_urls_record_tombstone
+    AFTER DELETE
+    ON urls
+    FOR EACH ROW
+EXECUTE FUNCTION urls_record_tombstone();
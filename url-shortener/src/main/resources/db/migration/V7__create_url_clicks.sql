@@ -0,0 +1,24 @@
+-- Per-click events, bulk-inserted from the click event log of each instance.
+-- No primary key or foreign key, so that the table can be partitioned by clicked_at.
+CREATE TABLE url_clicks
+(
+    url_id          BIGINT                   NOT NULL,
+    clicked_at      TIMESTAMP WITH TIME ZONE NOT NULL,
+    referrer        VARCHAR(512),
+    user_agent_hash BIGINT,
+    ip_prefix       INET
+);
+
+CREATE INDEX idx_url_clicks_url_id_clicked_at ON url_clicks (url_id, clicked_at);
+
+COMMENT ON COLUMN url_clicks.ip_prefix IS 'Client network (IPv4 /24, IPv6 /48); full addresses are never stored.';
+
+-- How far each instance's click event log has been ingested into url_clicks
+CREATE TABLE click_log_checkpoints
+(
+    log_id     UUID                     NOT NULL,
+    segment    BIGINT                   NOT NULL,
+    position   INTEGER                  NOT NULL,
+    updated_at TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT now(),
+    CONSTRAINT pk_click_log_checkpoints PRIMARY KEY (log_id)
+);
@@ -0,0 +1,29 @@
+-- Click counts per URL and time bucket (UTC), maintained incrementally by batched upserts.
+-- No foreign key to urls: rollups of deleted URLs are harmless and expire with retention.
+CREATE TABLE url_clicks_minute
+(
+    url_id       BIGINT                   NOT NULL,
+    bucket_start TIMESTAMP WITH TIME ZONE NOT NULL,
+    clicks       BIGINT                   NOT NULL,
+    CONSTRAINT pk_url_clicks_minute PRIMARY KEY (url_id, bucket_start)
+);
+
+CREATE TABLE url_clicks_hour
+(
+    url_id       BIGINT                   NOT NULL,
+    bucket_start TIMESTAMP WITH TIME ZONE NOT NULL,
+    clicks       BIGINT                   NOT NULL,
+    CONSTRAINT pk_url_clicks_hour PRIMARY KEY (url_id, bucket_start)
+);
+
+CREATE TABLE url_clicks_day
+(
+    url_id       BIGINT                   NOT NULL,
+    bucket_start TIMESTAMP WITH TIME ZONE NOT NULL,
+    clicks       BIGINT                   NOT NULL,
+    CONSTRAINT pk_url_clicks_day PRIMARY KEY (url_id, bucket_start)
+);
+
+-- Retention purges scan by time across all URLs
+CREATE INDEX idx_url_clicks_minute_bucket_start ON url_clicks_minute (bucket_start);
+CREATE INDEX idx_url_clicks_hour_bucket_start ON url_clicks_hour (bucket_start);
@@ -0,0 +1,12 @@
+-- HyperLogLog sketches of distinct visitors (client IP and User-Agent), 4096 one-byte registers each.
+-- Sketches are merged register-wise by the application while holding the row lock.
+ALTER TABLE url_clicks_hour ADD COLUMN visitors BYTEA;
+ALTER TABLE url_clicks_day ADD COLUMN visitors BYTEA;
+
+-- All-time sketch per URL. No foreign key, like the rollups; rows of deleted URLs are purged periodically.
+CREATE TABLE url_visitors
+(
+    url_id   BIGINT NOT NULL,
+    visitors BYTEA  NOT NULL,
+    CONSTRAINT pk_url_visitors PRIMARY KEY (url_id)
+);
@@ -0,0 +1,165 @@
+package com.tinyls.urlshortener.cache;
+
+import com.tinyls.urlshortener.dto.url.RedirectTarget;
+import com.tinyls.urlshortener.util.Base62;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class RedirectSnapshotFileTest {
+
+    private static final Instant CHANGE_MARKER = Instant.parse("2026-03-01T10:15:30.123Z");
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void resolvesEveryWrittenTarget() throws IOException {
+        Path path = directory.resolve("snapshot.bin");
+        List<RedirectTarget> targets = targets(5_000);
+
+        write(path, targets);
+        RedirectSnapshotFile snapshot = RedirectSnapshotFile.open(path);
+
+        assertThat(snapshot.entryCount()).isEqualTo(targets.size());
+        assertThat(snapshot.lastId()).isEqualTo(targets.size());
+        assertThat(snapshot.changeMarker()).isEqualTo(CHANGE_MARKER);
+        for (RedirectTarget target : targets) {
+            assertThat(snapshot.get(target.getShortCode())).isEqualTo(target);
+        }
+        assertThat(snapshot.get("missing")).isNull();
+        assertThat(snapshot.get(Base62.encode(targets.size() + 1))).isNull();
+        assertThat(Files.exists(path.resolveSibling("snapshot.bin.tmp"))).isFalse();
+    }
+
+    @Test
+    void resolvesNothingFromEmptySnapshot() throws IOException {
+        Path path = directory.resolve("snapshot.bin");
+
+        write(path, List.of());
+        RedirectSnapshotFile snapshot = RedirectSnapshotFile.open(path);
+
+        assertThat(snapshot.entryCount()).isZero();
+        assertThat(snapshot.lastId()).isZero();
+        assertThat(snapshot.get("abc")).isNull();
+    }
+
+    @Test
+    void replacesPreviousSnapshot() throws IOException {
+        Path path = directory.resolve("snapshot.bin");
+        write(path, targets(10));
+        RedirectSnapshotFile previous = RedirectSnapshotFile.open(path);
+
+        write(path, targets(3));
+        RedirectSnapshotFile snapshot = RedirectSnapshotFile.open(path);
+
+        assertThat(snapshot.entryCount()).isEqualTo(3);
+        assertThat(snapshot.get(Base62.encode(10))).isNull();
+        assertThat(previous.get(Base62.encode(10))).isNotNull();
+    }
+
+    @Test
+    void discardsUncommittedSnapshot() throws IOException {
+        Path path = directory.resolve("snapshot.bin");
+
+        try (RedirectSnapshotFile.Writer writer = new RedirectSnapshotFile.Writer(path)) {
+            targets(10).forEach(target -> add(writer, target));
+        }
+
+        assertThat(directory).isEmptyDirectory();
+    }
+
+    @Test
+    void rejectsCorruptHeader() throws IOException {
+        Path path = directory.resolve("snapshot.bin");
+        write(path, targets(10));
+
+        overwriteInt(path, 0, 0x12345678);
+        assertThatThrownBy(() -> RedirectSnapshotFile.open(path))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("unsupported version");
+
+        write(path, targets(10));
+        overwriteInt(path, 4, 2);
+        assertThatThrownBy(() -> RedirectSnapshotFile.open(path))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("unsupported version");
+
+        write(path, targets(10));
+        overwriteInt(path, 12, 15);
+        assertThatThrownBy(() -> RedirectSnapshotFile.open(path))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("slot table");
+
+        write(path, targets(10));
+        overwriteInt(path, 16, (int) Files.size(path));
+        assertThatThrownBy(() -> RedirectSnapshotFile.open(path))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("slot table");
+    }
+
+    @Test
+    void rejectsTruncatedFile() throws IOException {
+        Path path = directory.resolve("snapshot.bin");
+        Files.write(path, new byte[39]);
+
+        assertThatThrownBy(() -> RedirectSnapshotFile.open(path))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("size");
+    }
+
+    /**
+     * Creates targets with IDs 1 to count, their canonical short codes and
+     * varying redirect policies and URL lengths.
+     */
+    static List<RedirectTarget> targets(int count) {
+        List<RedirectTarget> targets = new ArrayList<>(count);
+        int[] statuses = { 301, 302, 307, 308 };
+        for (int id = 1; id <= count; id++) {
+            targets.add(RedirectTarget.builder()
+                    .id((long) id)
+                    .shortCode(Base62.encode(id))
+                    .originalUrl("https://例え.example/" + "p".repeat(id % 50) + "?id=" + id)
+                    .redirectStatus(statuses[id % statuses.length])
+                    .cacheMaxAge(id % 3 == 0 ? 0 : id * 60)
+                    .exactClicks(id % 2 == 0)
+                    .build());
+        }
+        return targets;
+    }
+
+    private static void write(Path path, List<RedirectTarget> targets) throws IOException {
+        try (RedirectSnapshotFile.Writer writer = new RedirectSnapshotFile.Writer(path)) {
+            for (RedirectTarget target : targets) {
+                writer.add(target);
+            }
+            writer.commit(CHANGE_MARKER);
+        }
+    }
+
+    private static void add(RedirectSnapshotFile.Writer writer, RedirectTarget target) {
+        try {
+            writer.add(target);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void overwriteInt(Path path, int offset, int value) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.allocate(4).putInt(0, value), offset);
+        }
+    }
+}
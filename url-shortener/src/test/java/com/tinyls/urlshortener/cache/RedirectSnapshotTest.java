@@ -0,0 +1,115 @@
+package com.tinyls.urlshortener.cache;
+
+import com.tinyls.urlshortener.dto.url.RedirectTarget;
+import com.tinyls.urlshortener.repository.UrlScanRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class RedirectSnapshotTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final List<RedirectTarget> targets = RedirectSnapshotFileTest.targets(1_000);
+    private UrlScanRepository urlScanRepository;
+    private Path path;
+
+    @TempDir
+    Path directory;
+
+    @BeforeEach
+    void setUp() {
+        path = directory.resolve("redirect-snapshot.bin");
+        urlScanRepository = mock(UrlScanRepository.class);
+        scanAt(Instant.now());
+        when(urlScanRepository.scanChangedRedirectTargets(anyLong(), any(), any())).thenReturn(Instant.now());
+    }
+
+    @Test
+    void loadsSnapshotWrittenByPreviousRun() {
+        snapshot().write();
+
+        RedirectSnapshot snapshot = snapshot();
+        snapshot.load();
+
+        for (RedirectTarget target : targets) {
+            assertThat(snapshot.get(target.getShortCode())).contains(target);
+        }
+        assertThat(snapshot.get("missing")).isEmpty();
+        assertThat(meterRegistry.get("tinyls.redirect.snapshot.hits").counter().count())
+                .isEqualTo(targets.size());
+    }
+
+    @Test
+    void ignoresSnapshotOlderThanMaxAge() {
+        scanAt(Instant.now().minus(Duration.ofDays(8)));
+        snapshot().write();
+
+        RedirectSnapshot snapshot = snapshot();
+        snapshot.load();
+
+        assertThat(snapshot.get(targets.get(0).getShortCode())).isEmpty();
+    }
+
+    @Test
+    void ignoresCorruptSnapshot() throws IOException {
+        Files.write(path, new byte[64]);
+
+        RedirectSnapshot snapshot = snapshot();
+        snapshot.load();
+
+        assertThat(snapshot.get(targets.get(0).getShortCode())).isEmpty();
+    }
+
+    @Test
+    void appliesChangesOnTopOfSnapshot() {
+        RedirectSnapshot snapshot = snapshot();
+        snapshot.write();
+        RedirectTarget changed = RedirectTarget.builder()
+                .id(targets.get(1).getId())
+                .shortCode(targets.get(1).getShortCode())
+                .originalUrl("https://changed.example/")
+                .redirectStatus(301)
+                .build();
+        doAnswer(invocation -> {
+            invocation.<Consumer<RedirectTarget>>getArgument(2).accept(changed);
+            return Instant.now();
+        }).when(urlScanRepository).scanChangedRedirectTargets(anyLong(), any(), any());
+        when(urlScanRepository.findDeletedShortCodes(any())).thenReturn(List.of(targets.get(2).getShortCode()));
+
+        snapshot.catchUp();
+        snapshot.evict(targets.get(3).getShortCode());
+
+        assertThat(snapshot.get(targets.get(0).getShortCode())).contains(targets.get(0));
+        assertThat(snapshot.get(changed.getShortCode())).contains(changed);
+        assertThat(snapshot.get(targets.get(2).getShortCode())).isEmpty();
+        assertThat(snapshot.get(targets.get(3).getShortCode())).isEmpty();
+    }
+
+    private void scanAt(Instant changeMarker) {
+        doAnswer(invocation -> {
+            targets.forEach(invocation.<Consumer<RedirectTarget>>getArgument(0));
+            return changeMarker;
+        }).when(urlScanRepository).scanRedirectTargets(any());
+    }
+
+    private RedirectSnapshot snapshot() {
+        return new RedirectSnapshot(urlScanRepository, true, path, Duration.ofDays(7), Duration.ofMinutes(1),
+                meterRegistry);
+    }
+}
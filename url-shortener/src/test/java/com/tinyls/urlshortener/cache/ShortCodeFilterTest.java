@@ -0,0 +1,113 @@
+package com.tinyls.urlshortener.cache;
+
+import com.tinyls.urlshortener.ids.UrlIdAllocator;
+import com.tinyls.urlshortener.repository.UrlScanRepository;
+import com.tinyls.urlshortener.util.Base62;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ShortCodeFilterTest {
+
+    private static final Duration LEASE = Duration.ofMillis(10);
+    private static final Duration MAX_TRANSACTION = Duration.ofMillis(200);
+
+    /**
+     * Committed rows, by ID.
+     */
+    private final ConcurrentSkipListMap<Long, String> committed = new ConcurrentSkipListMap<>();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private ShortCodeFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        UrlScanRepository urlScanRepository = mock(UrlScanRepository.class);
+        when(urlScanRepository.scanShortCodes(anyLong(), any())).thenAnswer(invocation -> {
+            long afterId = invocation.getArgument(0);
+            UrlScanRepository.ShortCodeConsumer consumer = invocation.getArgument(1);
+            long highest = afterId;
+            for (Map.Entry<Long, String> row : committed.tailMap(afterId, false).entrySet()) {
+                consumer.accept(row.getKey(), row.getValue());
+                highest = row.getKey();
+            }
+            return highest;
+        });
+        UrlIdAllocator urlIdAllocator = mock(UrlIdAllocator.class);
+        when(urlIdAllocator.leaseDuration()).thenReturn(LEASE);
+        filter = new ShortCodeFilter(urlScanRepository, 1000, 0.001, 100, Duration.ofMinutes(1),
+                urlIdAllocator, MAX_TRANSACTION, meterRegistry);
+    }
+
+    @Test
+    void letsEverythingThroughUntilTheFirstScan() {
+        assertThat(filter.mightExist(Base62.encode(42))).isTrue();
+        assertThat(filter.mightExist("not valid!")).isFalse();
+    }
+
+    @Test
+    void findsRowCommittedAfterAScanThatSawHigherIds() throws InterruptedException {
+        for (long id = 1; id <= 10; id++) {
+            if (id != 5) {
+                commit(id);
+            }
+        }
+        filter.refresh();
+        // Longer than a lease, shorter than a lease plus a transaction
+        Thread.sleep(LEASE.multipliedBy(3).toMillis());
+        filter.refresh();
+
+        // ID 5 was taken before the scans but its transaction commits only now
+        commit(5);
+        filter.refresh();
+
+        assertThat(filter.mightExist(Base62.encode(5))).isTrue();
+    }
+
+    @Test
+    void rejectsUnknownCodesOnceScannedRangeIsSettled() throws InterruptedException {
+        for (long id = 1; id <= 10; id++) {
+            if (id != 7) {
+                commit(id);
+            }
+        }
+        filter.refresh();
+        Thread.sleep(LEASE.plus(MAX_TRANSACTION).multipliedBy(2).toMillis());
+        filter.refresh();
+
+        assertThat(filter.mightExist(Base62.encode(3))).isTrue();
+        assertThat(filter.mightExist(Base62.encode(7))).isFalse();
+        // Above the settled ceiling, may still be created elsewhere
+        assertThat(filter.mightExist(Base62.encode(11))).isTrue();
+    }
+
+    @Test
+    void rejectsDeletedCodes() throws InterruptedException {
+        commit(1);
+        filter.refresh();
+        Thread.sleep(LEASE.plus(MAX_TRANSACTION).multipliedBy(2).toMillis());
+        filter.refresh();
+
+        assertThat(filter.isKnownDeleted(Base62.encode(1))).isFalse();
+        filter.markDeleted(Base62.encode(1));
+
+        // Checking for deletion is not a redirect and is not counted
+        assertThat(filter.isKnownDeleted(Base62.encode(1))).isTrue();
+        assertThat(meterRegistry.get("tinyls.redirect.rejections").counter().count()).isZero();
+        assertThat(filter.mightExist(Base62.encode(1))).isFalse();
+        assertThat(meterRegistry.get("tinyls.redirect.rejections").counter().count()).isEqualTo(1);
+    }
+
+    private void commit(long id) {
+        committed.put(id, Base62.encode(id));
+    }
+}
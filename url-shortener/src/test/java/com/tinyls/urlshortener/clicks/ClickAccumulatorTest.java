@@ -0,0 +1,72 @@
+package com.tinyls.urlshortener.clicks;
+
+import com.tinyls.urlshortener.repository.ClickCountRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+class ClickAccumulatorTest {
+
+    private final List<Map<String, Long>> flushedDeltas = new ArrayList<>();
+    private ClickCountRepository repository;
+    private ClickAccumulator accumulator;
+
+    @BeforeEach
+    void setUp() {
+        repository = mock(ClickCountRepository.class);
+        doAnswer(invocation -> flushedDeltas.add(Map.copyOf(invocation.getArgument(0))))
+                .when(repository).addClicks(any(), any());
+        accumulator = new ClickAccumulator(repository, mock(ClickStripes.class));
+    }
+
+    @Test
+    void flushesPendingClicksOnce() {
+        accumulator.increment("abc");
+        accumulator.increment("abc");
+        accumulator.increment("xyz");
+        assertThat(accumulator.pending("abc")).isEqualTo(2);
+
+        accumulator.flush();
+        accumulator.flush();
+
+        assertThat(flushedDeltas).containsExactly(Map.of("abc", 2L, "xyz", 1L));
+        assertThat(accumulator.pending("abc")).isZero();
+        assertThat(accumulator.pending("xyz")).isZero();
+    }
+
+    @Test
+    void requeuesClicksOfFailedFlush() {
+        accumulator.increment("abc");
+        doThrow(new IllegalStateException("database down")).when(repository).addClicks(any(), any());
+
+        accumulator.flush();
+
+        assertThat(accumulator.pending("abc")).isEqualTo(1);
+
+        doAnswer(invocation -> flushedDeltas.add(Map.copyOf(invocation.getArgument(0))))
+                .when(repository).addClicks(any(), any());
+        accumulator.increment("abc");
+        accumulator.flush();
+
+        assertThat(flushedDeltas).containsExactly(Map.of("abc", 2L));
+        assertThat(accumulator.pending("abc")).isZero();
+    }
+
+    @Test
+    void skipsFlushWithoutClicks() {
+        accumulator.flush();
+
+        verify(repository, never()).addClicks(any(), any());
+    }
+}
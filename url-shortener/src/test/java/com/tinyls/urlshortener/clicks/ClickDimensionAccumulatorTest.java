@@ -0,0 +1,105 @@
+package com.tinyls.urlshortener.clicks;
+
+import com.tinyls.urlshortener.repository.ClickDimensionRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ClickDimensionAccumulatorTest {
+
+    private static final long URL_ID = 1L;
+
+    private final Map<String, Integer> dictionary = new HashMap<>();
+    private ClickDimensionRepository repository;
+    private ClickDimensionAccumulator accumulator;
+
+    @BeforeEach
+    void setUp() {
+        repository = mock(ClickDimensionRepository.class);
+        when(repository.intern(any(), anyCollection())).thenAnswer(invocation -> {
+            Collection<String> values = invocation.getArgument(1);
+            return values.stream().collect(Collectors.toMap(value -> value,
+                    value -> dictionary.computeIfAbsent(value, v -> dictionary.size() + 1)));
+        });
+        when(repository.findValues(eq(ClickDimension.REFERRER), anyCollection())).thenReturn(Map.of());
+        ClickDictionary clickDictionary = new ClickDictionary(repository, 1000, new SimpleMeterRegistry());
+        accumulator = new ClickDimensionAccumulator(repository, clickDictionary, true, 2);
+    }
+
+    @Test
+    void foldsHostsToRegistrableDomain() {
+        assertThat(ClickDimensionAccumulator.referrerHost("https://l.Facebook.com/l.php?u=x")).isEqualTo("facebook.com");
+        assertThat(ClickDimensionAccumulator.referrerHost("https://news.bbc.co.uk/a")).isEqualTo("bbc.co.uk");
+        assertThat(ClickDimensionAccumulator.referrerHost("https://t.co/abc")).isEqualTo("t.co");
+        assertThat(ClickDimensionAccumulator.referrerHost("http://192.168.1.10:8080/")).isEqualTo("192.168.1.10");
+        assertThat(ClickDimensionAccumulator.referrerHost("http://localhost/")).isEqualTo("localhost");
+        assertThat(ClickDimensionAccumulator.referrerHost(null)).isEqualTo(ClickDimensionAccumulator.DIRECT);
+        assertThat(ClickDimensionAccumulator.referrerHost("not a uri"))
+                .isEqualTo(ClickDimensionAccumulator.UNKNOWN_REFERRER);
+    }
+
+    @Test
+    void countsReferrersBeyondTheLimitAsOther() {
+        click("https://a.example.com/", 3);
+        click("https://b.example.org/", 2);
+        click("https://c.example.net/", 1);
+        click("https://d.example.io/", 1);
+
+        Map<String, Long> referrers = flushReferrers();
+
+        assertThat(referrers).containsOnly(
+                Map.entry("example.com", 3L),
+                Map.entry("example.org", 2L),
+                Map.entry(ClickDimensionAccumulator.OTHER_REFERRER, 2L));
+    }
+
+    @Test
+    void keepsCountingReferrersAlreadyStored() {
+        dictionary.put("example.com", 1);
+        dictionary.put("example.org", 2);
+        when(repository.findValues(eq(ClickDimension.REFERRER), anyCollection()))
+                .thenReturn(Map.of(URL_ID, Map.of(1, "example.com", 2, "example.org")));
+        click("https://example.org/", 1);
+        click("https://example.net/", 1);
+
+        Map<String, Long> referrers = flushReferrers();
+
+        assertThat(referrers).containsOnly(
+                Map.entry("example.org", 1L),
+                Map.entry(ClickDimensionAccumulator.OTHER_REFERRER, 1L));
+    }
+
+    private void click(String referrer, int times) {
+        ClickContext context = ClickContext.builder().referrer(referrer).build();
+        for (int i = 0; i < times; i++) {
+            accumulator.increment(URL_ID, context, UserAgentClass.UNKNOWN);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, Long> flushReferrers() {
+        accumulator.flush();
+        ArgumentCaptor<SortedMap<ClickDimensionKey, Long>> deltas = ArgumentCaptor.forClass(SortedMap.class);
+        verify(repository).addClicks(deltas.capture());
+        Map<Integer, String> values = dictionary.entrySet().stream()
+                .collect(Collectors.toMap(Map.Entry::getValue, Map.Entry::getKey));
+        return deltas.getValue().entrySet().stream()
+                .filter(entry -> entry.getKey().dimension() == ClickDimension.REFERRER)
+                .collect(Collectors.toMap(entry -> values.get(entry.getKey().valueId()), Map.Entry::getValue));
+    }
+}
@@ -0,0 +1,154 @@
+package com.tinyls.urlshortener.clicks;
+
+import com.tinyls.urlshortener.repository.ClickEventRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ClickEventLogTest {
+
+    @TempDir
+    Path directory;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final List<ClickEvent> inserted = new ArrayList<>();
+    private ClickLogPosition checkpoint;
+    private ClickEventRepository repository;
+
+    @BeforeEach
+    void setUp() {
+        // Keeps the inserted events and the checkpoint like the database would
+        repository = mock(ClickEventRepository.class);
+        doAnswer(invocation -> {
+            inserted.addAll(invocation.getArgument(0));
+            checkpoint = invocation.getArgument(2);
+            return null;
+        }).when(repository).insert(any(), any(), any());
+        when(repository.findCheckpoint(any())).thenAnswer(invocation -> Optional.ofNullable(checkpoint));
+    }
+
+    @Test
+    void drainsAppendedEventsOnce() {
+        ClickEventLog log = open(DataSize.ofKilobytes(64), 8);
+        log.append(1L, ClickContext.builder()
+                .referrer("https://example.com/")
+                .userAgent("curl/8.5.0")
+                .ipAddress("203.0.113.7")
+                .build());
+        log.append(2L, ClickContext.builder().ipAddress("2001:db8:1:2::10").build());
+
+        log.drain();
+        log.drain();
+
+        assertThat(inserted).extracting(ClickEvent::getUrlId).containsExactly(1L, 2L);
+        assertThat(inserted.get(0).getReferrer()).isEqualTo("https://example.com/");
+        assertThat(inserted.get(0).getIpPrefix()).isEqualTo("203.0.113.0/24");
+        assertThat(inserted.get(0).getUserAgentHash()).isNotZero();
+        assertThat(inserted.get(1).getReferrer()).isNull();
+        assertThat(inserted.get(1).getIpPrefix()).isEqualTo("2001:db8:1:0:0:0:0:0/48");
+        assertThat(inserted.get(1).getUserAgentHash()).isZero();
+    }
+
+    @Test
+    void rollsOverToNewSegmentsAndDeletesDrainedOnes() throws IOException {
+        ClickEventLog log = open(DataSize.ofBytes(256), 64);
+        for (long urlId = 1; urlId <= 20; urlId++) {
+            log.append(urlId, ClickContext.builder().build());
+        }
+        assertThat(segments()).hasSizeGreaterThan(2);
+
+        log.drain();
+
+        assertThat(inserted).extracting(ClickEvent::getUrlId)
+                .containsExactlyElementsOf(List.of(1L, 2L, 3L, 4L, 5L, 6L, 7L, 8L, 9L, 10L, 11L, 12L, 13L, 14L,
+                        15L, 16L, 17L, 18L, 19L, 20L));
+        assertThat(segments()).hasSize(1);
+    }
+
+    @Test
+    void dropsEventsWhenAllSegmentsAreInUse() {
+        ClickEventLog log = open(DataSize.ofBytes(256), 2);
+        for (long urlId = 1; urlId <= 50; urlId++) {
+            log.append(urlId, ClickContext.builder().build());
+        }
+
+        double appended = meterRegistry.get("tinyls.clicks.events.appended").counter().count();
+        assertThat(appended).isBetween(2.0, 49.0);
+        assertThat(meterRegistry.get("tinyls.clicks.events.dropped").counter().count()).isEqualTo(50 - appended);
+
+        log.drain();
+        assertThat(inserted).hasSize((int) appended);
+    }
+
+    @Test
+    void replaysSegmentsOfPreviousRunFromCheckpoint() {
+        ClickEventLog first = open(DataSize.ofKilobytes(64), 8);
+        first.append(1L, ClickContext.builder().build());
+        first.drain();
+        first.append(2L, ClickContext.builder().build());
+        first.append(3L, ClickContext.builder().build());
+        // The process dies without draining again
+
+        ClickEventLog second = open(DataSize.ofKilobytes(64), 8);
+        second.append(4L, ClickContext.builder().build());
+        second.drain();
+
+        assertThat(inserted).extracting(ClickEvent::getUrlId).containsExactly(1L, 2L, 3L, 4L);
+    }
+
+    @Test
+    void stopsAtTornRecordAndMovesOnToNextSegment() throws IOException {
+        ClickEventLog first = open(DataSize.ofKilobytes(64), 8);
+        first.append(1L, ClickContext.builder().build());
+        first.append(2L, ClickContext.builder().build());
+        first.sync();
+        // A third record whose payload was not completely written
+        try (RandomAccessFile file = new RandomAccessFile(segments().get(0).toFile(), "rw")) {
+            int position = 0;
+            for (int record = 0; record < 2; record++) {
+                file.seek(position);
+                position += 8 + file.readInt();
+            }
+            file.seek(position);
+            file.writeInt(40);
+            file.writeInt(0x12345678);
+            file.writeLong(3L);
+        }
+
+        ClickEventLog second = open(DataSize.ofKilobytes(64), 8);
+        second.append(4L, ClickContext.builder().build());
+        second.drain();
+
+        assertThat(inserted).extracting(ClickEvent::getUrlId).containsExactly(1L, 2L, 4L);
+    }
+
+    private ClickEventLog open(DataSize segmentSize, int maxSegments) {
+        ClickEventLog log = new ClickEventLog(repository, true, directory, segmentSize, maxSegments, 1000,
+                meterRegistry);
+        log.open();
+        return log;
+    }
+
+    private List<Path> segments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> file.getFileName().toString().startsWith("segment-")).sorted().toList();
+        }
+    }
+}
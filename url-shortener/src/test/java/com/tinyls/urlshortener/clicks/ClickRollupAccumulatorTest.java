@@ -0,0 +1,101 @@
+package com.tinyls.urlshortener.clicks;
+
+import com.tinyls.urlshortener.repository.ClickRollupRepository;
+import com.tinyls.urlshortener.util.HyperLogLog;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+class ClickRollupAccumulatorTest {
+
+    private static final long URL_ID = 1L;
+    private static final Instant CLICKED_AT = Instant.parse("2026-03-01T10:15:30Z");
+
+    private final List<Map<ClickGranularity, SortedMap<ClickBucket, Long>>> flushedDeltas = new ArrayList<>();
+    private final List<Map<ClickGranularity, SortedMap<ClickBucket, HyperLogLog>>> flushedVisitors =
+            new ArrayList<>();
+    private final List<SortedMap<Long, HyperLogLog>> flushedUrlVisitors = new ArrayList<>();
+    private ClickRollupRepository repository;
+    private ClickRollupAccumulator accumulator;
+
+    @BeforeEach
+    void setUp() {
+        repository = mock(ClickRollupRepository.class);
+        doAnswer(invocation -> flushedDeltas.add(invocation.getArgument(0))).when(repository).addClicks(any());
+        doAnswer(invocation -> {
+            flushedVisitors.add(invocation.getArgument(0));
+            return flushedUrlVisitors.add(invocation.getArgument(1));
+        }).when(repository).mergeVisitors(any(), any());
+        accumulator = new ClickRollupAccumulator(repository, Duration.ofDays(7), Duration.ofDays(90));
+    }
+
+    @Test
+    void flushesClickDeltasWithoutVisitorSketches() {
+        accumulator.increment(URL_ID, CLICKED_AT, 11L);
+        accumulator.increment(URL_ID, CLICKED_AT.plusSeconds(60), 12L);
+
+        accumulator.flush();
+
+        verify(repository, never()).mergeVisitors(any(), any());
+        Map<ClickGranularity, SortedMap<ClickBucket, Long>> deltas = flushedDeltas.get(0);
+        assertThat(deltas.get(ClickGranularity.MINUTE)).hasSize(2).containsValues(1L);
+        assertThat(deltas.get(ClickGranularity.HOUR))
+                .containsExactly(Map.entry(bucket(ClickGranularity.HOUR), 2L));
+        assertThat(deltas.get(ClickGranularity.DAY))
+                .containsExactly(Map.entry(bucket(ClickGranularity.DAY), 2L));
+    }
+
+    @Test
+    void mergesVisitorSketchesOnTheirOwnFlush() {
+        accumulator.increment(URL_ID, CLICKED_AT, HyperLogLog.hash("a"));
+        accumulator.increment(URL_ID, CLICKED_AT, HyperLogLog.hash("a"));
+        accumulator.increment(URL_ID, CLICKED_AT, HyperLogLog.hash("b"));
+
+        accumulator.flushVisitors();
+
+        verify(repository, never()).addClicks(any());
+        Map<ClickGranularity, SortedMap<ClickBucket, HyperLogLog>> visitors = flushedVisitors.get(0);
+        assertThat(visitors.get(ClickGranularity.HOUR).get(bucket(ClickGranularity.HOUR)).estimate()).isEqualTo(2);
+        assertThat(visitors.get(ClickGranularity.DAY).get(bucket(ClickGranularity.DAY)).estimate()).isEqualTo(2);
+        assertThat(flushedUrlVisitors.get(0).get(URL_ID).estimate()).isEqualTo(2);
+    }
+
+    @Test
+    void retriesFailedFlushes() {
+        doThrow(new IllegalStateException("database down")).doAnswer(invocation ->
+                flushedDeltas.add(invocation.getArgument(0))).when(repository).addClicks(any());
+        doThrow(new IllegalStateException("database down")).doAnswer(invocation ->
+                flushedUrlVisitors.add(invocation.getArgument(1))).when(repository).mergeVisitors(any(), any());
+        accumulator.increment(URL_ID, CLICKED_AT, HyperLogLog.hash("a"));
+
+        accumulator.flush();
+        accumulator.flushVisitors();
+        accumulator.increment(URL_ID, CLICKED_AT, HyperLogLog.hash("b"));
+        accumulator.flush();
+        accumulator.flushVisitors();
+
+        assertThat(flushedDeltas).hasSize(1);
+        assertThat(flushedDeltas.get(0).get(ClickGranularity.HOUR))
+                .containsExactly(Map.entry(bucket(ClickGranularity.HOUR), 2L));
+        assertThat(flushedUrlVisitors).hasSize(1);
+        assertThat(flushedUrlVisitors.get(0).get(URL_ID).estimate()).isEqualTo(2);
+    }
+
+    private static ClickBucket bucket(ClickGranularity granularity) {
+        return new ClickBucket(URL_ID, granularity.bucketStart(CLICKED_AT));
+    }
+}
@@ -0,0 +1,94 @@
+package com.tinyls.urlshortener.clicks;
+
+import com.tinyls.urlshortener.repository.ClickCountRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class ClickStripesTest {
+
+    private static final int STRIPES = 4;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private ClickCountRepository repository;
+
+    @BeforeEach
+    void setUp() {
+        repository = mock(ClickCountRepository.class);
+        when(repository.findStripedShortCodes()).thenReturn(Set.of());
+    }
+
+    @Test
+    void promotesLinksAboveWriteRateOnRefresh() {
+        ClickStripes clickStripes = clickStripes(true);
+
+        // 5 writes per second over a 2 second refresh interval
+        for (int i = 0; i < 9; i++) {
+            assertThat(clickStripes.recordWrite("hot")).isZero();
+        }
+        clickStripes.refresh();
+
+        verify(repository, never()).addStripes(any(), anyInt());
+
+        for (int i = 0; i < 10; i++) {
+            assertThat(clickStripes.recordWrite("hot")).isZero();
+        }
+        when(repository.findStripedShortCodes()).thenReturn(Set.of("hot"));
+        clickStripes.refresh();
+
+        verify(repository).addStripes(List.of("hot"), STRIPES);
+        assertThat(meterRegistry.get("tinyls.clicks.striped-urls").gauge().value()).isEqualTo(1);
+    }
+
+    @Test
+    void spreadsWritesOfStripedLinksOverStripesByThread() throws InterruptedException {
+        when(repository.findStripedShortCodes()).thenReturn(Set.of("hot"));
+        ClickStripes clickStripes = clickStripes(true);
+        clickStripes.refresh();
+
+        int stripe = clickStripes.recordWrite("hot");
+        assertThat(stripe).isBetween(0, STRIPES - 1);
+        assertThat(clickStripes.recordWrite("hot")).isEqualTo(stripe);
+        assertThat(clickStripes.stripe("hot")).isEqualTo(stripe);
+        assertThat(clickStripes.recordWrite("cold")).isZero();
+        assertThat(clickStripes.stripe("cold")).isZero();
+
+        Set<Integer> stripes = ConcurrentHashMap.newKeySet();
+        for (int i = 0; i < 64; i++) {
+            Thread thread = Thread.ofPlatform().start(() -> stripes.add(clickStripes.recordWrite("hot")));
+            thread.join();
+        }
+        assertThat(stripes).hasSizeGreaterThan(1).allSatisfy(s -> assertThat(s).isBetween(0, STRIPES - 1));
+    }
+
+    @Test
+    void writesBaseRowWhenDisabled() {
+        ClickStripes clickStripes = clickStripes(false);
+
+        for (int i = 0; i < 100; i++) {
+            assertThat(clickStripes.recordWrite("hot")).isZero();
+        }
+        clickStripes.refresh();
+
+        assertThat(clickStripes.stripe("hot")).isZero();
+        verifyNoInteractions(repository);
+    }
+
+    private ClickStripes clickStripes(boolean enabled) {
+        return new ClickStripes(repository, enabled, STRIPES, 5, Duration.ofSeconds(2), meterRegistry);
+    }
+}
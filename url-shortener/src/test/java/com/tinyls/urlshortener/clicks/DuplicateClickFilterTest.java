@@ -0,0 +1,76 @@
+package com.tinyls.urlshortener.clicks;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DuplicateClickFilterTest {
+
+    private static final String USER_AGENT = "Mozilla/5.0 (X11; Linux x86_64) Firefox/128.0";
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void suppressesRepeatedClicksOfSameClientOnSameLink() {
+        DuplicateClickFilter filter = filter(true, Duration.ofMinutes(1), 100_000);
+
+        assertThat(filter.isDuplicate("abc", click("203.0.113.7", USER_AGENT))).isFalse();
+        assertThat(filter.isDuplicate("abc", click("203.0.113.7", USER_AGENT))).isTrue();
+        assertThat(filter.isDuplicate("abd", click("203.0.113.7", USER_AGENT))).isFalse();
+        assertThat(filter.isDuplicate("abc", click("203.0.113.8", USER_AGENT))).isFalse();
+        assertThat(filter.isDuplicate("abc", click("203.0.113.7", "curl/8.5.0"))).isFalse();
+        assertThat(filter.isDuplicate("abc", click(null, null))).isFalse();
+        assertThat(filter.isDuplicate("abc", click(null, null))).isTrue();
+
+        assertThat(meterRegistry.get("tinyls.clicks.duplicates").counter().count()).isEqualTo(2);
+    }
+
+    @Test
+    void identifiesIpv6ClientsByNetwork() {
+        DuplicateClickFilter filter = filter(true, Duration.ofMinutes(1), 100_000);
+
+        assertThat(filter.isDuplicate("abc", click("2001:db8:1:2::10", USER_AGENT))).isFalse();
+        assertThat(filter.isDuplicate("abc", click("2001:db8:1:2:aaaa::1", USER_AGENT))).isTrue();
+        assertThat(filter.isDuplicate("abc", click("2001:db8:1:3::10", USER_AGENT))).isFalse();
+    }
+
+    @Test
+    void forgetsClicksAfterWindow() throws InterruptedException {
+        DuplicateClickFilter filter = filter(true, Duration.ofMillis(200), 100_000);
+
+        assertThat(filter.isDuplicate("abc", click("203.0.113.7", USER_AGENT))).isFalse();
+        assertThat(filter.isDuplicate("abc", click("203.0.113.7", USER_AGENT))).isTrue();
+        Thread.sleep(250);
+        assertThat(filter.isDuplicate("abc", click("203.0.113.7", USER_AGENT))).isFalse();
+    }
+
+    @Test
+    void countsClicksWhenWindowIsFull() {
+        DuplicateClickFilter filter = filter(true, Duration.ofMinutes(1), 1);
+
+        for (int i = 0; i < 1_000; i++) {
+            assertThat(filter.isDuplicate("abc", click("10.0." + i / 256 + "." + i % 256, USER_AGENT))).isFalse();
+        }
+
+        assertThat(meterRegistry.get("tinyls.clicks.dedup.overflows").counter().count()).isPositive();
+    }
+
+    @Test
+    void countsAllClicksWhenDisabled() {
+        DuplicateClickFilter filter = filter(false, Duration.ofMinutes(1), 100_000);
+
+        assertThat(filter.isDuplicate("abc", click("203.0.113.7", USER_AGENT))).isFalse();
+        assertThat(filter.isDuplicate("abc", click("203.0.113.7", USER_AGENT))).isFalse();
+    }
+
+    private DuplicateClickFilter filter(boolean enabled, Duration window, int maxEntries) {
+        return new DuplicateClickFilter(enabled, window, 4, maxEntries, meterRegistry);
+    }
+
+    private static ClickContext click(String ipAddress, String userAgent) {
+        return ClickContext.builder().ipAddress(ipAddress).userAgent(userAgent).build();
+    }
+}
@@ -0,0 +1,59 @@
+package com.tinyls.urlshortener.clicks;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class UserAgentClassifierTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final UserAgentClassifier classifier = new UserAgentClassifier(100, meterRegistry);
+
+    @Test
+    void classifiesBrowsersByPriority() {
+        assertThat(classifier.classify("Mozilla/5.0 (Windows NT 10.0; Win64; x64) AppleWebKit/537.36 "
+                + "(KHTML, like Gecko) Chrome/126.0.0.0 Safari/537.36 Edg/126.0.0.0"))
+                .isEqualTo(new UserAgentClass(DeviceClass.DESKTOP, Browser.EDGE));
+        assertThat(classifier.classify("Mozilla/5.0 (Linux; Android 14; Pixel 8) AppleWebKit/537.36 "
+                + "(KHTML, like Gecko) Chrome/126.0.0.0 Mobile Safari/537.36"))
+                .isEqualTo(new UserAgentClass(DeviceClass.MOBILE, Browser.CHROME));
+        assertThat(classifier.classify("Mozilla/5.0 (Linux; Android 14; SM-X710) AppleWebKit/537.36 "
+                + "(KHTML, like Gecko) Chrome/126.0.0.0 Safari/537.36"))
+                .isEqualTo(new UserAgentClass(DeviceClass.TABLET, Browser.CHROME));
+    }
+
+    @Test
+    void classifiesBotsAndCountsThem() {
+        assertThat(classifier.classify("Mozilla/5.0 (compatible; Googlebot/2.1; +http://www.google.com/bot.html)")
+                .isBot()).isTrue();
+        assertThat(classifier.classify("Pinterestbot/1.0 (+http://www.pinterest.com/bot.html)").isBot()).isTrue();
+        assertThat(classifier.classify("Slackbot-LinkExpanding 1.0 (+https://api.slack.com/robots)").isBot()).isTrue();
+        assertThat(classifier.classify("TelegramBot (like TwitterBot)").isBot()).isTrue();
+        assertThat(classifier.classify("Facebot").isBot()).isTrue();
+        assertThat(classifier.classify("Mozilla/5.0 (compatible; Google Web Preview)").isBot()).isTrue();
+        assertThat(classifier.classify("curl/8.5.0").isBot()).isTrue();
+        assertThat(classifier.classify(null)).isEqualTo(UserAgentClass.UNKNOWN);
+
+        assertThat(meterRegistry.get("tinyls.redirect.bots").counter().count()).isEqualTo(7);
+    }
+
+    @Test
+    void doesNotTreatDeviceNamesContainingBotAsBots() {
+        assertThat(classifier.classify("Mozilla/5.0 (Linux; Android 10; CUBOT_X30) AppleWebKit/537.36 "
+                + "(KHTML, like Gecko) Chrome/120.0.0.0 Mobile Safari/537.36"))
+                .isEqualTo(new UserAgentClass(DeviceClass.MOBILE, Browser.CHROME));
+        assertThat(classifier.classify("Mozilla/5.0 (Linux; Android 9; CUBOT P30 Build/PPR1.180610.011) "
+                + "AppleWebKit/537.36 (KHTML, like Gecko) Chrome/120.0.0.0 Mobile Safari/537.36"))
+                .isEqualTo(new UserAgentClass(DeviceClass.MOBILE, Browser.CHROME));
+    }
+
+    @Test
+    void doesNotTreatPinterestInAppBrowserAsBot() {
+        UserAgentClass userAgentClass = classifier.classify("Mozilla/5.0 (iPhone; CPU iPhone OS 17_5 like Mac OS X) "
+                + "AppleWebKit/605.1.15 (KHTML, like Gecko) Mobile/15E148 [Pinterest/iOS]");
+
+        assertThat(userAgentClass.isBot()).isFalse();
+        assertThat(userAgentClass.deviceClass()).isEqualTo(DeviceClass.MOBILE);
+    }
+}
@@ -0,0 +1,114 @@
+package com.tinyls.urlshortener.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tinyls.urlshortener.dto.url.BulkUrlResultDTO;
+import com.tinyls.urlshortener.dto.url.UrlDTO;
+import com.tinyls.urlshortener.exception.InvalidRequestException;
+import com.tinyls.urlshortener.service.UrlCreationBatcher;
+import com.tinyls.urlshortener.service.UrlService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class UrlControllerTest {
+
+    private UrlService urlService;
+    private UrlController urlController;
+
+    @BeforeEach
+    void setUp() {
+        urlService = mock(UrlService.class);
+        when(urlService.createUrls(any(), any())).thenReturn(new BulkUrlResultDTO());
+        urlController = new UrlController(urlService, mock(UrlCreationBatcher.class), new ObjectMapper());
+        ReflectionTestUtils.setField(urlController, "maxBulkItems", 2);
+    }
+
+    @Test
+    void readsJsonArray() throws IOException {
+        urlController.createUrls(body("[{\"originalUrl\": \"https://a.example/\"}, null]"), null);
+
+        assertThat(createdUrls()).extracting(url -> url != null ? url.getOriginalUrl() : null)
+                .containsExactly("https://a.example/", null);
+    }
+
+    @Test
+    void readsNdjson() throws IOException {
+        urlController.createUrlsFromNdjson(
+                body("{\"originalUrl\": \"https://a.example/\"}\n{\"originalUrl\": \"https://b.example/\"}\n"),
+                null);
+
+        assertThat(createdUrls()).extracting(UrlDTO::getOriginalUrl)
+                .containsExactly("https://a.example/", "https://b.example/");
+    }
+
+    @Test
+    void rejectsNdjsonPostedAsJson() {
+        assertThatThrownBy(() -> urlController.createUrls(
+                body("{\"originalUrl\": \"https://a.example/\"}\n{\"originalUrl\": \"https://b.example/\"}\n"),
+                null))
+                .isInstanceOf(InvalidRequestException.class)
+                .hasMessageContaining("expected an array");
+        assertThatThrownBy(() -> urlController.createUrls(body("[{\"originalUrl\": \"https://a.example/\"}] {}"),
+                null))
+                .isInstanceOf(InvalidRequestException.class)
+                .hasMessageContaining("after the array");
+        verifyNoInteractions(urlService);
+    }
+
+    @Test
+    void rejectsJsonArrayPostedAsNdjson() {
+        assertThatThrownBy(() -> urlController.createUrlsFromNdjson(
+                body("[{\"originalUrl\": \"https://a.example/\"}]"), null))
+                .isInstanceOf(InvalidRequestException.class)
+                .hasMessageContaining("Invalid NDJSON");
+        verifyNoInteractions(urlService);
+    }
+
+    @Test
+    void rejectsMoreItemsThanAllowed() {
+        assertThatThrownBy(() -> urlController.createUrls(body("[{}, {}, {}]"), null))
+                .isInstanceOf(InvalidRequestException.class)
+                .hasMessageContaining("At most 2");
+        assertThatThrownBy(() -> urlController.createUrlsFromNdjson(body("{}\n{}\n{}\n"), null))
+                .isInstanceOf(InvalidRequestException.class)
+                .hasMessageContaining("At most 2");
+        verifyNoInteractions(urlService);
+    }
+
+    @Test
+    void rejectsMalformedItems() {
+        assertThatThrownBy(() -> urlController.createUrls(body("[{\"originalUrl\": "), null))
+                .isInstanceOf(InvalidRequestException.class)
+                .hasMessageStartingWith("Invalid JSON");
+        assertThatThrownBy(() -> urlController.createUrlsFromNdjson(body("\"https://a.example/\"\n"), null))
+                .isInstanceOf(InvalidRequestException.class)
+                .hasMessageStartingWith("Invalid NDJSON");
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<UrlDTO> createdUrls() {
+        ArgumentCaptor<List<UrlDTO>> urlDTOs = ArgumentCaptor.forClass(List.class);
+        verify(urlService).createUrls(urlDTOs.capture(), eq(null));
+        return urlDTOs.getValue();
+    }
+
+    private static InputStream body(String body) {
+        return new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8));
+    }
+}
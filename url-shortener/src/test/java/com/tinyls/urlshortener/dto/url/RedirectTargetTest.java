@@ -0,0 +1,35 @@
+package com.tinyls.urlshortener.dto.url;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RedirectTargetTest {
+
+    @Test
+    void exactClicksAreNeverCached() {
+        assertThat(target(301, 3600, true).cacheControl()).isEqualTo("no-store");
+    }
+
+    @Test
+    void cachesForMaxAge() {
+        assertThat(target(302, 3600, false).cacheControl()).isEqualTo("public, max-age=3600");
+    }
+
+    @Test
+    void permanentRedirectWithoutMaxAgeIsRevalidated() {
+        assertThat(target(301, 0, false).cacheControl()).isEqualTo("no-cache");
+        assertThat(target(308, 0, false).cacheControl()).isEqualTo("no-cache");
+    }
+
+    private static RedirectTarget target(int redirectStatus, int cacheMaxAge, boolean exactClicks) {
+        return RedirectTarget.builder()
+                .id(1L)
+                .shortCode("1")
+                .originalUrl("https://example.com")
+                .redirectStatus(redirectStatus)
+                .cacheMaxAge(cacheMaxAge)
+                .exactClicks(exactClicks)
+                .build();
+    }
+}
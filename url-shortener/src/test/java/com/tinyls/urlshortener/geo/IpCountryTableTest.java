@@ -0,0 +1,69 @@
+package com.tinyls.urlshortener.geo;
+
+import com.tinyls.urlshortener.util.IpAddresses;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class IpCountryTableTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void findsIpv4Ranges() throws IOException {
+        IpCountryTable table = load("""
+                first,last,country
+                # comment
+                "1.0.0.0","1.0.0.255","au"
+                16777472,16778239,CN
+                200.0.0.0,255.255.255.255,BR
+
+                10.0.0.0,9.0.0.0,XX
+                """);
+
+        assertThat(table.size()).isEqualTo(3);
+        assertThat(table.skippedLines()).isEqualTo(2);
+        assertThat(table.findIpv4(IpAddresses.parseIpv4("1.0.0.0"))).isEqualTo("AU");
+        assertThat(table.findIpv4(IpAddresses.parseIpv4("1.0.0.255"))).isEqualTo("AU");
+        assertThat(table.findIpv4(IpAddresses.parseIpv4("1.0.1.7"))).isEqualTo("CN");
+        assertThat(table.findIpv4(IpAddresses.parseIpv4("1.0.4.0"))).isNull();
+        assertThat(table.findIpv4(IpAddresses.parseIpv4("0.255.255.255"))).isNull();
+        // Above 2^31, ordered correctly despite the signed storage
+        assertThat(table.findIpv4(IpAddresses.parseIpv4("255.255.255.255"))).isEqualTo("BR");
+        assertThat(table.findIpv4(IpAddresses.parseIpv4("199.255.255.255"))).isNull();
+    }
+
+    @Test
+    void findsIpv6Ranges() throws IOException {
+        IpCountryTable table = load("""
+                2001:db8::,2001:db8:ffff:ffff:ffff:ffff:ffff:ffff,DE
+                2a00::,2a00:ffff:ffff:ffff:ffff:ffff:ffff:ffff,FR
+                fc00::,ffff:ffff:ffff:ffff:ffff:ffff:ffff:ffff,ZZ
+                """);
+
+        assertThat(table.size()).isEqualTo(3);
+        assertThat(table.findIpv6(IpAddresses.parseIpv6Prefix("2001:db8:1::1"))).isEqualTo("DE");
+        assertThat(table.findIpv6(IpAddresses.parseIpv6Prefix("2a00:1450::200e"))).isEqualTo("FR");
+        assertThat(table.findIpv6(IpAddresses.parseIpv6Prefix("2001:db9::1"))).isNull();
+        assertThat(table.findIpv6(IpAddresses.parseIpv6Prefix("fe80::1"))).isEqualTo("ZZ");
+        assertThat(table.findIpv4(IpAddresses.parseIpv4("1.2.3.4"))).isNull();
+    }
+
+    @Test
+    void emptyTableFindsNothing() {
+        assertThat(IpCountryTable.EMPTY.findIpv4(0)).isNull();
+        assertThat(IpCountryTable.EMPTY.findIpv6(0)).isNull();
+    }
+
+    private IpCountryTable load(String csv) throws IOException {
+        Path path = directory.resolve("ip-countries.csv");
+        Files.writeString(path, csv);
+        return IpCountryTable.load(path);
+    }
+}
@@ -0,0 +1,82 @@
+package com.tinyls.urlshortener.ids;
+
+import com.tinyls.urlshortener.repository.UrlIdRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class UrlIdAllocatorTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private UrlIdRepository repository;
+
+    @BeforeEach
+    void setUp() {
+        repository = mock(UrlIdRepository.class);
+        when(repository.findBlockSize()).thenReturn(10L);
+    }
+
+    @Test
+    void handsOutIdsFromLeasedBlocks() {
+        when(repository.leaseBlock()).thenReturn(100L, 300L);
+        UrlIdAllocator allocator = allocator(Duration.ofMinutes(1));
+
+        long[] ids = LongStream.range(0, 12).map(i -> allocator.nextId()).toArray();
+
+        assertThat(ids).containsExactly(100, 101, 102, 103, 104, 105, 106, 107, 108, 109, 300, 301);
+        verify(repository, times(2)).leaseBlock();
+        verify(repository, times(1)).findBlockSize();
+        assertThat(meterRegistry.get("tinyls.urls.id-blocks.leases").counter().count()).isEqualTo(2);
+    }
+
+    @Test
+    void discardsRestOfBlockWhenLeaseExpires() throws InterruptedException {
+        when(repository.leaseBlock()).thenReturn(100L, 300L);
+        UrlIdAllocator allocator = allocator(Duration.ofMillis(20));
+
+        assertThat(allocator.nextId()).isEqualTo(100);
+        assertThat(allocator.nextId()).isEqualTo(101);
+        Thread.sleep(50);
+        assertThat(allocator.nextId()).isEqualTo(300);
+
+        assertThat(meterRegistry.get("tinyls.urls.id-blocks.discarded").counter().count()).isEqualTo(8);
+    }
+
+    @Test
+    void leasesAllBlocksForBatchInOneCall() {
+        when(repository.leaseBlock()).thenReturn(100L);
+        when(repository.leaseBlocks(2)).thenReturn(List.of(500L, 200L));
+        UrlIdAllocator allocator = allocator(Duration.ofMinutes(1));
+
+        assertThat(allocator.nextId()).isEqualTo(100);
+        long[] ids = allocator.nextIds(25);
+
+        // 9 left in the first block, then 16 from two new blocks, sorted
+        assertThat(ids).containsExactly(101, 102, 103, 104, 105, 106, 107, 108, 109, 200, 201, 202, 203, 204,
+                205, 500, 501, 502, 503, 504, 505, 506, 507, 508, 509);
+    }
+
+    @Test
+    void keepsLastBatchBlockLeased() {
+        when(repository.leaseBlocks(1)).thenReturn(List.of(700L));
+        UrlIdAllocator allocator = allocator(Duration.ofMinutes(1));
+
+        assertThat(allocator.nextIds(3)).containsExactly(700, 701, 702);
+        assertThat(allocator.nextId()).isEqualTo(703);
+        verify(repository, times(0)).leaseBlock();
+    }
+
+    private UrlIdAllocator allocator(Duration leaseDuration) {
+        return new UrlIdAllocator(repository, leaseDuration, meterRegistry);
+    }
+}
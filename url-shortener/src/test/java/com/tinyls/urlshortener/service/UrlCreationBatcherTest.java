@@ -0,0 +1,201 @@
+package com.tinyls.urlshortener.service;
+
+import com.tinyls.urlshortener.dto.url.BulkUrlItemDTO;
+import com.tinyls.urlshortener.dto.url.BulkUrlResultDTO;
+import com.tinyls.urlshortener.dto.url.BulkUrlStatus;
+import com.tinyls.urlshortener.dto.url.UrlDTO;
+import com.tinyls.urlshortener.exception.InvalidRequestException;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class UrlCreationBatcherTest {
+
+    private static final int BATCH_SIZE = 4;
+    private static final UUID USER_ID = UUID.randomUUID();
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final ExecutorService executor = Executors.newFixedThreadPool(BATCH_SIZE);
+    private UrlService urlService;
+    private TransactionTemplate transactionTemplate;
+
+    @BeforeEach
+    void setUp() {
+        urlService = mock(UrlService.class);
+        when(urlService.createUrls(any(), any())).thenAnswer(invocation -> created(invocation.getArgument(0)));
+        when(urlService.createUrl(any(), any())).thenAnswer(invocation -> url(invocation.getArgument(0)));
+        transactionTemplate = mock(TransactionTemplate.class);
+        doAnswer(invocation -> {
+            invocation.<Consumer<TransactionStatus>>getArgument(0).accept(mock(TransactionStatus.class));
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void createsConcurrentCreationsInOneBatch() {
+        UrlCreationBatcher batcher = batcher(true);
+
+        List<CompletableFuture<UrlDTO>> results = createConcurrently(batcher,
+                "https://a.example/", "https://b.example/", "https://c.example/", "https://d.example/");
+
+        assertThat(results).extracting(CompletableFuture::join).extracting(UrlDTO::getOriginalUrl).containsExactly(
+                "https://a.example/", "https://b.example/", "https://c.example/", "https://d.example/");
+        verify(transactionTemplate).executeWithoutResult(any());
+        verify(urlService).createUrls(any(), eq(USER_ID));
+        verify(urlService).createUrls(any(), isNull());
+        verify(urlService, never()).createUrl(any(), any());
+        DistributionSummary batchSizes = meterRegistry.get("tinyls.urls.group-commit.batch-size").summary();
+        assertThat(batchSizes.count()).isEqualTo(1);
+        assertThat(batchSizes.totalAmount()).isEqualTo(BATCH_SIZE);
+    }
+
+    @Test
+    void createsPartialBatchWhenWindowPasses() {
+        UrlCreationBatcher batcher = batcher(true);
+
+        List<CompletableFuture<UrlDTO>> results = createConcurrently(batcher,
+                "https://a.example/", "https://b.example/");
+
+        assertThat(results).extracting(CompletableFuture::join).extracting(UrlDTO::getOriginalUrl)
+                .containsExactly("https://a.example/", "https://b.example/");
+        verify(transactionTemplate).executeWithoutResult(any());
+        DistributionSummary batchSizes = meterRegistry.get("tinyls.urls.group-commit.batch-size").summary();
+        assertThat(batchSizes.count()).isEqualTo(1);
+        assertThat(batchSizes.totalAmount()).isEqualTo(2);
+    }
+
+    @Test
+    void reportsInvalidItemOnlyToItsCaller() {
+        UrlCreationBatcher batcher = batcher(true);
+
+        List<CompletableFuture<UrlDTO>> results = createConcurrently(batcher,
+                "https://a.example/", "not a url", "https://c.example/", "https://d.example/");
+
+        assertThatThrownBy(results.get(1)::join)
+                .hasCauseInstanceOf(InvalidRequestException.class)
+                .hasMessageContaining("originalUrl: invalid");
+        assertThat(List.of(results.get(0), results.get(2), results.get(3)))
+                .extracting(CompletableFuture::join).extracting(UrlDTO::getOriginalUrl)
+                .containsExactly("https://a.example/", "https://c.example/", "https://d.example/");
+        verify(urlService, never()).createUrl(any(), any());
+    }
+
+    @Test
+    void retriesFailedBatchOneByOne() {
+        doThrow(new DataIntegrityViolationException("duplicate key")).when(urlService).createUrls(any(), any());
+        doAnswer(invocation -> {
+            UrlDTO urlDTO = invocation.getArgument(0);
+            if (urlDTO.getOriginalUrl().equals("https://b.example/")) {
+                throw new DataIntegrityViolationException("duplicate key");
+            }
+            return url(urlDTO);
+        }).when(urlService).createUrl(any(), any());
+        UrlCreationBatcher batcher = batcher(true);
+
+        List<CompletableFuture<UrlDTO>> results = createConcurrently(batcher,
+                "https://a.example/", "https://b.example/", "https://c.example/", "https://d.example/");
+
+        assertThatThrownBy(results.get(1)::join).hasCauseInstanceOf(DataIntegrityViolationException.class);
+        assertThat(List.of(results.get(0), results.get(2), results.get(3)))
+                .extracting(CompletableFuture::join).extracting(UrlDTO::getOriginalUrl)
+                .containsExactly("https://a.example/", "https://c.example/", "https://d.example/");
+        verify(urlService, times(BATCH_SIZE)).createUrl(any(), any());
+        assertThat(meterRegistry.get("tinyls.urls.group-commit.fallbacks").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void createsAloneWhenDisabled() {
+        UrlCreationBatcher batcher = batcher(false);
+
+        UrlDTO url = batcher.create(UrlDTO.builder().originalUrl("https://a.example/").build(), USER_ID);
+
+        assertThat(url.getOriginalUrl()).isEqualTo("https://a.example/");
+        verify(urlService, never()).createUrls(any(), any());
+        verify(transactionTemplate, never()).executeWithoutResult(any());
+    }
+
+    /**
+     * Creates a batcher with a window long enough for all creations of a test
+     * to end up in one batch.
+     */
+    private UrlCreationBatcher batcher(boolean enabled) {
+        return new UrlCreationBatcher(urlService, transactionTemplate, enabled, Duration.ofMillis(500),
+                BATCH_SIZE, meterRegistry);
+    }
+
+    /**
+     * Starts a creation per original URL at once, alternating between a user
+     * and anonymous creations, and waits for all of them to complete.
+     */
+    private List<CompletableFuture<UrlDTO>> createConcurrently(UrlCreationBatcher batcher, String... originalUrls) {
+        CountDownLatch start = new CountDownLatch(1);
+        List<CompletableFuture<UrlDTO>> results = new ArrayList<>();
+        for (int i = 0; i < originalUrls.length; i++) {
+            UrlDTO urlDTO = UrlDTO.builder().originalUrl(originalUrls[i]).build();
+            UUID userId = i % 2 == 0 ? USER_ID : null;
+            results.add(CompletableFuture.supplyAsync(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    throw new IllegalStateException(e);
+                }
+                return batcher.create(urlDTO, userId);
+            }, executor));
+        }
+        start.countDown();
+        CompletableFuture.allOf(results.toArray(CompletableFuture[]::new)).exceptionally(e -> null).join();
+        return results;
+    }
+
+    private static BulkUrlResultDTO created(List<UrlDTO> urlDTOs) {
+        List<BulkUrlItemDTO> items = new ArrayList<>();
+        for (int i = 0; i < urlDTOs.size(); i++) {
+            UrlDTO urlDTO = urlDTOs.get(i);
+            items.add(urlDTO.getOriginalUrl().startsWith("https://")
+                    ? BulkUrlItemDTO.builder().index(i).status(BulkUrlStatus.CREATED).url(url(urlDTO)).build()
+                    : BulkUrlItemDTO.builder().index(i).status(BulkUrlStatus.INVALID)
+                            .error("originalUrl: invalid URL").build());
+        }
+        return BulkUrlResultDTO.builder().items(items).build();
+    }
+
+    private static UrlDTO url(UrlDTO urlDTO) {
+        return UrlDTO.builder()
+                .shortCode(Integer.toHexString(urlDTO.getOriginalUrl().hashCode()))
+                .originalUrl(urlDTO.getOriginalUrl())
+                .build();
+    }
+}
@@ -0,0 +1,474 @@
+package com.tinyls.urlshortener.service.impl;
+
+import com.tinyls.urlshortener.cache.AnonymousLinkCache;
+import com.tinyls.urlshortener.cache.HotLinks;
+import com.tinyls.urlshortener.cache.RedirectCache;
+import com.tinyls.urlshortener.cache.ShortCodeFilter;
+import com.tinyls.urlshortener.clicks.ClickAccumulator;
+import com.tinyls.urlshortener.clicks.ClickContext;
+import com.tinyls.urlshortener.clicks.ClickCountingMode;
+import com.tinyls.urlshortener.clicks.ClickDimensionAccumulator;
+import com.tinyls.urlshortener.clicks.ClickEventLog;
+import com.tinyls.urlshortener.clicks.ClickRollupAccumulator;
+import com.tinyls.urlshortener.clicks.ClickStripes;
+import com.tinyls.urlshortener.clicks.DuplicateClickFilter;
+import com.tinyls.urlshortener.clicks.UserAgentClassifier;
+import com.tinyls.urlshortener.dto.url.BulkUrlItemDTO;
+import com.tinyls.urlshortener.dto.url.BulkUrlResultDTO;
+import com.tinyls.urlshortener.dto.url.BulkUrlStatus;
+import com.tinyls.urlshortener.dto.url.RedirectTarget;
+import com.tinyls.urlshortener.dto.url.UrlDTO;
+import com.tinyls.urlshortener.exception.InvalidRequestException;
+import com.tinyls.urlshortener.exception.ResourceNotFoundException;
+import com.tinyls.urlshortener.geo.IpCountryResolver;
+import com.tinyls.urlshortener.ids.UrlIdAllocator;
+import com.tinyls.urlshortener.mapper.UrlMapperImpl;
+import com.tinyls.urlshortener.model.Url;
+import com.tinyls.urlshortener.model.User;
+import com.tinyls.urlshortener.repository.ClickCountRepository;
+import com.tinyls.urlshortener.repository.ClickDimensionRepository;
+import com.tinyls.urlshortener.repository.ClickEventRepository;
+import com.tinyls.urlshortener.repository.ClickRollupRepository;
+import com.tinyls.urlshortener.repository.UrlRepository;
+import com.tinyls.urlshortener.repository.UserRepository;
+import com.tinyls.urlshortener.util.Base62;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.ToIntFunction;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class UrlServiceImplTest {
+
+    private static final long URL_ID = 125L;
+    private static final String SHORT_CODE = Base62.encode(URL_ID);
+    private static final String USER_AGENT = "Mozilla/5.0 (X11; Linux x86_64) Firefox/128.0";
+    private static final String BOT_USER_AGENT = "Mozilla/5.0 (compatible; Googlebot/2.1; "
+            + "+http://www.google.com/bot.html)";
+
+    /**
+     * The click counts written to url_stats, by short code.
+     */
+    private final Map<String, Long> urlStats = new HashMap<>();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private UrlRepository urlRepository;
+    private ClickCountRepository clickCountRepository;
+    private ClickStripes clickStripes;
+    private RedirectCache redirectCache;
+    private UserRepository userRepository;
+    private AnonymousLinkCache anonymousLinkCache;
+    private UrlIdAllocator urlIdAllocator;
+    private ClickAccumulator clickAccumulator;
+    private UrlServiceImpl urlService;
+
+    @BeforeEach
+    void setUp() {
+        urlRepository = mock(UrlRepository.class);
+        clickCountRepository = mock(ClickCountRepository.class);
+        clickStripes = mock(ClickStripes.class);
+        clickAccumulator = new ClickAccumulator(clickCountRepository, clickStripes);
+
+        ShortCodeFilter shortCodeFilter = mock(ShortCodeFilter.class);
+        when(shortCodeFilter.mightExist(anyString())).thenReturn(true);
+        redirectCache = mock(RedirectCache.class);
+        when(redirectCache.get(anyString())).thenReturn(Optional.empty());
+        when(urlRepository.findById(URL_ID)).thenAnswer(invocation -> Optional.of(url()));
+        when(urlRepository.findByShortCode(SHORT_CODE)).thenAnswer(invocation -> Optional.of(url()));
+        writeFlushesToUrlStats();
+        userRepository = mock(UserRepository.class);
+        anonymousLinkCache = mock(AnonymousLinkCache.class);
+        urlIdAllocator = mock(UrlIdAllocator.class);
+
+        urlService = new UrlServiceImpl(
+                urlRepository,
+                clickCountRepository,
+                mock(ClickRollupRepository.class),
+                mock(ClickEventRepository.class),
+                mock(ClickDimensionRepository.class),
+                userRepository,
+                new UrlMapperImpl(),
+                redirectCache,
+                mock(HotLinks.class),
+                shortCodeFilter,
+                anonymousLinkCache,
+                clickAccumulator,
+                mock(ClickEventLog.class),
+                mock(ClickRollupAccumulator.class),
+                clickStripes,
+                mock(ClickDimensionAccumulator.class),
+                mock(IpCountryResolver.class),
+                new UserAgentClassifier(100, meterRegistry),
+                new DuplicateClickFilter(true, Duration.ofMinutes(1), 4, 100_000, meterRegistry),
+                urlIdAllocator,
+                Validation.buildDefaultValidatorFactory().getValidator());
+        ReflectionTestUtils.setField(urlService, "lookupById", true);
+        ReflectionTestUtils.setField(urlService, "filterBots", true);
+        ReflectionTestUtils.setField(urlService, "maxBulkItems", 1000);
+    }
+
+    @Test
+    void bufferedModeCountsEachHumanClickOnceOnFlush() {
+        ReflectionTestUtils.setField(urlService, "clickCountingMode", ClickCountingMode.BUFFERED);
+
+        redirectHumanDuplicateAndBot();
+
+        assertThat(urlStats).isEmpty();
+        assertThat(clickAccumulator.pending(SHORT_CODE)).isEqualTo(1);
+
+        clickAccumulator.flush();
+
+        assertThat(urlStats).containsExactly(Map.entry(SHORT_CODE, 1L));
+        assertThat(clickAccumulator.pending(SHORT_CODE)).isZero();
+    }
+
+    @Test
+    void bufferedModeRequeuesClicksOfFailedFlush() {
+        ReflectionTestUtils.setField(urlService, "clickCountingMode", ClickCountingMode.BUFFERED);
+        redirectHumanDuplicateAndBot();
+        Map<String, Long> deltasOfFailedFlush = new HashMap<>();
+        doAnswer(invocation -> {
+            deltasOfFailedFlush.putAll(invocation.getArgument(0));
+            throw new IllegalStateException("database down");
+        }).when(clickCountRepository).addClicks(any(), any());
+
+        clickAccumulator.flush();
+
+        assertThat(deltasOfFailedFlush).containsExactly(Map.entry(SHORT_CODE, 1L));
+        assertThat(urlStats).isEmpty();
+        assertThat(clickAccumulator.pending(SHORT_CODE)).isEqualTo(1);
+
+        writeFlushesToUrlStats();
+        clickAccumulator.flush();
+
+        assertThat(urlStats).containsExactly(Map.entry(SHORT_CODE, 1L));
+    }
+
+    @Test
+    void dtoAddsPendingClicksToStoredClicks() {
+        ReflectionTestUtils.setField(urlService, "clickCountingMode", ClickCountingMode.BUFFERED);
+        urlStats.put(SHORT_CODE, 40L);
+
+        urlService.getAndIncrementClicks(SHORT_CODE, click("203.0.113.7", USER_AGENT));
+        urlService.getAndIncrementClicks(SHORT_CODE, click("203.0.113.8", USER_AGENT));
+
+        assertThat(urlService.getUrlByShortCode(SHORT_CODE, null).getClicks()).isEqualTo(42);
+
+        clickAccumulator.flush();
+
+        assertThat(urlStats).containsExactly(Map.entry(SHORT_CODE, 42L));
+        assertThat(urlService.getUrlByShortCode(SHORT_CODE, null).getClicks()).isEqualTo(42);
+    }
+
+    @Test
+    void dtoKeepsClicksOfFailedFlushPending() {
+        ReflectionTestUtils.setField(urlService, "clickCountingMode", ClickCountingMode.BUFFERED);
+        urlStats.put(SHORT_CODE, 40L);
+        urlService.getAndIncrementClicks(SHORT_CODE, click("203.0.113.7", USER_AGENT));
+        doThrow(new IllegalStateException("database down")).when(clickCountRepository).addClicks(any(), any());
+
+        clickAccumulator.flush();
+
+        assertThat(urlService.getUrlByShortCode(SHORT_CODE, null).getClicks()).isEqualTo(41);
+    }
+
+    @Test
+    void atomicModeCountsEachHumanClickOnceWithRedirect() {
+        ReflectionTestUtils.setField(urlService, "clickCountingMode", ClickCountingMode.ATOMIC);
+        when(clickCountRepository.incrementClicks(anyLong(), anyString(), anyInt())).thenAnswer(invocation -> {
+            urlStats.merge(invocation.getArgument(1), 1L, Long::sum);
+            return Optional.of(new UrlMapperImpl().toRedirectTarget(url()));
+        });
+
+        redirectHumanDuplicateAndBot();
+
+        assertThat(urlStats).containsExactly(Map.entry(SHORT_CODE, 1L));
+        assertThat(clickAccumulator.pending(SHORT_CODE)).isZero();
+        verify(clickCountRepository).incrementClicks(URL_ID, SHORT_CODE, 0);
+        verify(clickCountRepository, never()).incrementClicks(anyString(), anyInt());
+    }
+
+    @Test
+    void atomicModeFallsBackToShortCodeForCustomAliases() {
+        ReflectionTestUtils.setField(urlService, "clickCountingMode", ClickCountingMode.ATOMIC);
+        when(clickCountRepository.incrementClicks(eq("my-link"), anyInt())).thenAnswer(invocation -> {
+            urlStats.merge("my-link", 1L, Long::sum);
+            return Optional.of(RedirectTarget.builder()
+                    .id(URL_ID)
+                    .shortCode("my-link")
+                    .originalUrl("https://example.com/")
+                    .build());
+        });
+
+        urlService.getAndIncrementClicks("my-link", click("203.0.113.7", USER_AGENT));
+
+        assertThat(urlStats).containsExactly(Map.entry("my-link", 1L));
+        verify(clickCountRepository, never()).incrementClicks(anyLong(), anyString(), anyInt());
+    }
+
+    @Test
+    void atomicModeRejectsMissingShortCode() {
+        ReflectionTestUtils.setField(urlService, "clickCountingMode", ClickCountingMode.ATOMIC);
+        when(clickCountRepository.incrementClicks(anyLong(), anyString(), anyInt())).thenReturn(Optional.empty());
+        when(clickCountRepository.incrementClicks(anyString(), anyInt())).thenReturn(Optional.empty());
+
+        assertThatThrownBy(() -> urlService.getAndIncrementClicks(SHORT_CODE, click("203.0.113.7", USER_AGENT)))
+                .isInstanceOf(ResourceNotFoundException.class);
+        assertThat(urlStats).isEmpty();
+    }
+
+    @Test
+    void directModeWritesEachHumanClickOnceToUrlStats() {
+        ReflectionTestUtils.setField(urlService, "clickCountingMode", ClickCountingMode.DIRECT);
+        when(urlRepository.incrementClicksByIdAndShortCode(anyLong(), anyString(), anyInt()))
+                .thenAnswer(invocation -> {
+                    urlStats.merge(invocation.getArgument(1), 1L, Long::sum);
+                    return 1;
+                });
+
+        redirectHumanDuplicateAndBot();
+
+        assertThat(urlStats).containsExactly(Map.entry(SHORT_CODE, 1L));
+        assertThat(clickAccumulator.pending(SHORT_CODE)).isZero();
+        assertThat(urlService.getUrlByShortCode(SHORT_CODE, null).getClicks()).isEqualTo(1);
+        verify(urlRepository).incrementClicksByIdAndShortCode(URL_ID, SHORT_CODE, 0);
+        verify(urlRepository, never()).incrementClicksByShortCode(anyString(), anyInt());
+    }
+
+    @Test
+    void directModeRejectsUrlDeletedAfterLookup() {
+        ReflectionTestUtils.setField(urlService, "clickCountingMode", ClickCountingMode.DIRECT);
+
+        assertThatThrownBy(() -> urlService.getAndIncrementClicks(SHORT_CODE, click("203.0.113.7", USER_AGENT)))
+                .isInstanceOf(ResourceNotFoundException.class);
+        verify(redirectCache).evict(SHORT_CODE);
+        assertThat(urlStats).isEmpty();
+    }
+
+    @Test
+    void countsClicksOfStripedUrlsIntoTheirStripe() {
+        when(clickStripes.recordWrite(SHORT_CODE)).thenReturn(3);
+        when(clickStripes.stripe(SHORT_CODE)).thenReturn(3);
+        when(urlRepository.incrementClicksByIdAndShortCode(anyLong(), anyString(), anyInt())).thenReturn(1);
+        when(clickCountRepository.incrementClicks(anyLong(), anyString(), anyInt()))
+                .thenAnswer(invocation -> Optional.of(new UrlMapperImpl().toRedirectTarget(url())));
+        List<Integer> flushedStripes = new ArrayList<>();
+        doAnswer(invocation -> {
+            ToIntFunction<String> stripes = invocation.getArgument(1);
+            flushedStripes.add(stripes.applyAsInt(SHORT_CODE));
+            return null;
+        }).when(clickCountRepository).addClicks(any(), any());
+
+        ReflectionTestUtils.setField(urlService, "clickCountingMode", ClickCountingMode.DIRECT);
+        urlService.getAndIncrementClicks(SHORT_CODE, click("203.0.113.7", USER_AGENT));
+        ReflectionTestUtils.setField(urlService, "clickCountingMode", ClickCountingMode.ATOMIC);
+        urlService.getAndIncrementClicks(SHORT_CODE, click("203.0.113.8", USER_AGENT));
+        ReflectionTestUtils.setField(urlService, "clickCountingMode", ClickCountingMode.BUFFERED);
+        urlService.getAndIncrementClicks(SHORT_CODE, click("203.0.113.9", USER_AGENT));
+        clickAccumulator.flush();
+
+        verify(urlRepository).incrementClicksByIdAndShortCode(URL_ID, SHORT_CODE, 3);
+        verify(clickCountRepository).incrementClicks(URL_ID, SHORT_CODE, 3);
+        assertThat(flushedStripes).containsExactly(3);
+    }
+
+    @Test
+    void createUrlsReportsInvalidItemsAndCreatesOthers() {
+        List<Url> saved = saveNewUrls();
+
+        BulkUrlResultDTO result = urlService.createUrls(Arrays.asList(
+                urlDTO("https://a.example/"),
+                urlDTO(" "),
+                urlDTO("not a url"),
+                null,
+                UrlDTO.builder().originalUrl("https://b.example/").cacheMaxAge(-1).build()), null);
+
+        assertThat(result.getItems()).extracting(BulkUrlItemDTO::getIndex).containsExactly(0, 1, 2, 3, 4);
+        assertThat(result.getItems()).extracting(BulkUrlItemDTO::getStatus).containsExactly(
+                BulkUrlStatus.CREATED, BulkUrlStatus.INVALID, BulkUrlStatus.INVALID, BulkUrlStatus.INVALID,
+                BulkUrlStatus.INVALID);
+        assertThat(result.getItems().get(1).getError()).contains("originalUrl");
+        assertThat(result.getItems().get(3).getError()).isEqualTo("URL data is required");
+        assertThat(result.getItems().get(4).getError()).contains("cacheMaxAge");
+        assertThat(result.getItems().get(1).getUrl()).isNull();
+        assertThat(result.getCreated()).isEqualTo(1);
+        assertThat(result.getExisting()).isZero();
+        assertThat(result.getInvalid()).isEqualTo(4);
+        assertThat(saved).extracting(Url::getOriginalUrl).containsExactly("https://a.example/");
+    }
+
+    @Test
+    void createUrlsReturnsExistingUrlsOfUser() {
+        UUID userId = UUID.randomUUID();
+        User user = User.builder().id(userId).build();
+        when(userRepository.findById(userId)).thenReturn(Optional.of(user));
+        when(urlRepository.findByUserIdAndUrls(eq(userId), any(), any())).thenReturn(List.of(
+                Url.builder().id(URL_ID + 1).shortCode("newer").originalUrl("https://example.com/").user(user)
+                        .build(),
+                Url.builder().id(URL_ID).shortCode(SHORT_CODE).originalUrl("https://example.com/").user(user)
+                        .build()));
+        List<Url> saved = saveNewUrls();
+
+        BulkUrlResultDTO result = urlService.createUrls(
+                List.of(urlDTO("https://example.com/"), urlDTO("https://a.example/")), userId);
+
+        assertThat(result.getItems()).extracting(BulkUrlItemDTO::getStatus)
+                .containsExactly(BulkUrlStatus.EXISTING, BulkUrlStatus.CREATED);
+        assertThat(result.getItems().get(0).getUrl().getShortCode()).isEqualTo(SHORT_CODE);
+        assertThat(result.getItems().get(1).getUrl().getUserId()).isEqualTo(userId);
+        assertThat(result.getCreated()).isEqualTo(1);
+        assertThat(result.getExisting()).isEqualTo(1);
+        assertThat(saved).extracting(Url::getOriginalUrl).containsExactly("https://a.example/");
+        assertThat(saved).extracting(Url::getUser).containsExactly(user);
+        verify(urlRepository, never()).findAnonymousByUrls(any(), any());
+        verifyNoInteractions(anonymousLinkCache);
+    }
+
+    @Test
+    void createUrlsReturnsExistingAnonymousUrls() {
+        UrlDTO cached = UrlDTO.builder().id(7L).shortCode("cached").originalUrl("https://cached.example/").build();
+        when(anonymousLinkCache.get("https://cached.example/")).thenReturn(Optional.of(cached));
+        when(urlRepository.findAnonymousByUrls(any(), any())).thenReturn(List.of(url()));
+        List<Url> saved = saveNewUrls();
+
+        BulkUrlResultDTO result = urlService.createUrls(List.of(
+                urlDTO("https://cached.example/"),
+                urlDTO("https://example.com/"),
+                urlDTO("https://a.example/")), null);
+
+        assertThat(result.getItems()).extracting(BulkUrlItemDTO::getStatus).containsExactly(
+                BulkUrlStatus.EXISTING, BulkUrlStatus.EXISTING, BulkUrlStatus.CREATED);
+        assertThat(result.getItems().get(0).getUrl()).isSameAs(cached);
+        assertThat(result.getItems().get(1).getUrl().getShortCode()).isEqualTo(SHORT_CODE);
+        assertThat(result.getItems().get(2).getUrl().getUserId()).isNull();
+        assertThat(saved).extracting(Url::getOriginalUrl).containsExactly("https://a.example/");
+        assertThat(saved).extracting(Url::getUser).containsOnlyNulls();
+        ArgumentCaptor<Collection<String>> lookedUpUrls = ArgumentCaptor.forClass(Collection.class);
+        verify(urlRepository).findAnonymousByUrls(any(), lookedUpUrls.capture());
+        assertThat(lookedUpUrls.getValue()).containsExactly("https://example.com/", "https://a.example/");
+        verify(anonymousLinkCache).put(result.getItems().get(1).getUrl());
+        verify(anonymousLinkCache).put(result.getItems().get(2).getUrl());
+        verifyNoInteractions(userRepository);
+    }
+
+    @Test
+    void createUrlsResolvesRepeatedUrlsToFirstItem() {
+        List<Url> saved = saveNewUrls();
+
+        BulkUrlResultDTO result = urlService.createUrls(List.of(
+                UrlDTO.builder().originalUrl("https://a.example/").redirectStatus(301).build(),
+                urlDTO("https://b.example/"),
+                UrlDTO.builder().originalUrl("https://a.example/").redirectStatus(307).build()), null);
+
+        assertThat(result.getItems()).extracting(BulkUrlItemDTO::getStatus).containsExactly(
+                BulkUrlStatus.CREATED, BulkUrlStatus.CREATED, BulkUrlStatus.EXISTING);
+        assertThat(result.getItems().get(2).getUrl()).isSameAs(result.getItems().get(0).getUrl());
+        assertThat(result.getItems().get(2).getUrl().getRedirectStatus()).isEqualTo(301);
+        assertThat(result.getCreated()).isEqualTo(2);
+        assertThat(result.getExisting()).isEqualTo(1);
+        assertThat(saved).extracting(Url::getOriginalUrl).containsExactly("https://a.example/", "https://b.example/");
+        verify(urlIdAllocator).nextIds(2);
+    }
+
+    @Test
+    void createUrlsRejectsMoreItemsThanAllowed() {
+        ReflectionTestUtils.setField(urlService, "maxBulkItems", 2);
+
+        assertThatThrownBy(() -> urlService.createUrls(List.of(
+                urlDTO("https://a.example/"), urlDTO("https://b.example/"), urlDTO("https://c.example/")), null))
+                .isInstanceOf(InvalidRequestException.class)
+                .hasMessageContaining("At most 2");
+        verifyNoInteractions(urlIdAllocator, anonymousLinkCache);
+        verify(urlRepository, never()).saveAllAndFlush(any());
+    }
+
+    /**
+     * Allocates IDs for new URLs and collects the URLs saved in bulk, giving
+     * each the short code its ID encodes to as the database would.
+     */
+    private List<Url> saveNewUrls() {
+        AtomicLong nextId = new AtomicLong(1_000);
+        when(urlIdAllocator.nextIds(anyInt())).thenAnswer(invocation -> LongStream
+                .generate(nextId::getAndIncrement)
+                .limit(invocation.<Integer>getArgument(0))
+                .toArray());
+        List<Url> saved = new ArrayList<>();
+        when(urlRepository.saveAllAndFlush(any())).thenAnswer(invocation -> {
+            List<Url> urls = invocation.getArgument(0);
+            urls.forEach(url -> url.setShortCode(Base62.encode(url.getId())));
+            saved.addAll(urls);
+            return urls;
+        });
+        return saved;
+    }
+
+    private static UrlDTO urlDTO(String originalUrl) {
+        return UrlDTO.builder().originalUrl(originalUrl).build();
+    }
+
+    private void writeFlushesToUrlStats() {
+        doAnswer(invocation -> {
+            Map<String, Long> deltas = invocation.getArgument(0);
+            deltas.forEach((shortCode, delta) -> urlStats.merge(shortCode, delta, Long::sum));
+            return null;
+        }).when(clickCountRepository).addClicks(any(), any());
+    }
+
+    /**
+     * Redirects a first click of a client, a repeated click of the same client
+     * and a click of a crawler, of which only the first is counted.
+     */
+    private void redirectHumanDuplicateAndBot() {
+        for (ClickContext context : new ClickContext[] {
+                click("203.0.113.7", USER_AGENT),
+                click("203.0.113.7", USER_AGENT),
+                click("66.249.66.1", BOT_USER_AGENT) }) {
+            RedirectTarget target = urlService.getAndIncrementClicks(SHORT_CODE, context);
+            assertThat(target.getOriginalUrl()).isEqualTo("https://example.com/");
+        }
+    }
+
+    private Url url() {
+        return Url.builder()
+                .id(URL_ID)
+                .shortCode(SHORT_CODE)
+                .originalUrl("https://example.com/")
+                .clicks(urlStats.getOrDefault(SHORT_CODE, 0L))
+                .build();
+    }
+
+    private static ClickContext click(String ipAddress, String userAgent) {
+        return ClickContext.builder()
+                .ipAddress(ipAddress)
+                .userAgent(userAgent)
+                .build();
+    }
+}
@@ -0,0 +1,49 @@
+package com.tinyls.urlshortener.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class AhoCorasickTest {
+
+    @Test
+    void findsOverlappingPatterns() {
+        // Occurrences are reported in the order they end, by pattern index when they end together
+        AhoCorasick automaton = new AhoCorasick(List.of("he", "she", "his", "hers"));
+
+        assertThat(search(automaton, "ushers")).containsExactly(0, 1, 3);
+        assertThat(search(automaton, "ahishers")).containsExactly(2, 0, 1, 3);
+    }
+
+    @Test
+    void ignoresCaseAndNonAsciiCharacters() {
+        AhoCorasick automaton = new AhoCorasick(List.of("bot", "Chrome/"));
+
+        assertThat(search(automaton, "GoogleBOT/2.1")).containsExactly(0);
+        assertThat(search(automaton, "échrome/126 böt")).containsExactly(1);
+        assertThat(search(automaton, "")).isEmpty();
+    }
+
+    @Test
+    void reportsDuplicatePatternsOnce() {
+        AhoCorasick automaton = new AhoCorasick(List.of("ab", "b", "ab"));
+
+        assertThat(search(automaton, "ab")).containsExactly(0, 1, 2);
+    }
+
+    @Test
+    void rejectsEmptyAndNonAsciiPatterns() {
+        assertThatThrownBy(() -> new AhoCorasick(List.of(""))).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new AhoCorasick(List.of("café"))).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static List<Integer> search(AhoCorasick automaton, String text) {
+        List<Integer> matches = new ArrayList<>();
+        automaton.search(text, matches::add);
+        return matches;
+    }
+}
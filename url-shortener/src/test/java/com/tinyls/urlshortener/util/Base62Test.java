@@ -0,0 +1,49 @@
+package com.tinyls.urlshortener.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class Base62Test {
+
+    @Test
+    void decodeInvertsEncode() {
+        for (long number : new long[] { 0, 1, 61, 62, 3843, 3844, 123_456_789, 218_340_105_584_895L }) {
+            String encoded = Base62.encode(number);
+
+            assertThat(Base62.decode(encoded)).isEqualTo(number);
+            assertThat(Base62.isCanonical(encoded)).isTrue();
+        }
+    }
+
+    @Test
+    void encodesLeastSignificantDigitFirst() {
+        assertThat(Base62.encode(62)).isEqualTo("01");
+        assertThat(Base62.decode("01")).isEqualTo(62);
+    }
+
+    @Test
+    void trailingZeroIsNotCanonical() {
+        // Decodes to the same number as "1", but encode(1) is "1"
+        assertThat(Base62.decode("10")).isEqualTo(1);
+        assertThat(Base62.isCanonical("10")).isFalse();
+        assertThat(Base62.isCanonical("1")).isTrue();
+        assertThat(Base62.isCanonical("0")).isTrue();
+    }
+
+    @Test
+    void invalidStringsAreNotCanonical() {
+        assertThat(Base62.isCanonical(null)).isFalse();
+        assertThat(Base62.isCanonical("")).isFalse();
+        assertThat(Base62.isCanonical("ab-c")).isFalse();
+        assertThat(Base62.isCanonical("123456789")).isFalse();
+    }
+
+    @Test
+    void rejectsInvalidInput() {
+        assertThatThrownBy(() -> Base62.encode(-1)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> Base62.decode("ab-c")).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> Base62.decode("123456789")).isInstanceOf(IllegalArgumentException.class);
+    }
+}
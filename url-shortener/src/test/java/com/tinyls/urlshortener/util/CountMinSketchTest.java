@@ -0,0 +1,47 @@
+package com.tinyls.urlshortener.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CountMinSketchTest {
+
+    @Test
+    void neverUndercounts() {
+        CountMinSketch sketch = new CountMinSketch(256, 4);
+        for (int i = 0; i < 1_000; i++) {
+            sketch.add("rare-" + i);
+        }
+        for (int i = 0; i < 500; i++) {
+            sketch.add("hot");
+        }
+
+        assertThat(sketch.estimate("hot")).isBetween(500L, 600L);
+        for (int i = 0; i < 1_000; i++) {
+            assertThat(sketch.estimate("rare-" + i)).isGreaterThanOrEqualTo(1);
+        }
+        assertThat(sketch.estimate("never-added")).isLessThan(100);
+    }
+
+    @Test
+    void addReturnsEstimateIncludingOccurrence() {
+        CountMinSketch sketch = new CountMinSketch(1024, 4);
+
+        assertThat(sketch.add("a")).isEqualTo(1);
+        assertThat(sketch.add("a")).isEqualTo(2);
+        assertThat(sketch.estimate("a")).isEqualTo(2);
+    }
+
+    @Test
+    void halveAgesCounts() {
+        CountMinSketch sketch = new CountMinSketch(1024, 4);
+        for (int i = 0; i < 100; i++) {
+            sketch.add("a");
+        }
+
+        sketch.halve();
+        assertThat(sketch.estimate("a")).isEqualTo(50);
+        sketch.halve();
+        assertThat(sketch.estimate("a")).isEqualTo(25);
+    }
+}
@@ -0,0 +1,34 @@
+package com.tinyls.urlshortener.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class HashingTest {
+
+    @Test
+    void computesFnv1a64() {
+        // Reference values of 64-bit FNV-1a over ASCII bytes
+        assertThat(Hashing.fnv1a64("")).isEqualTo(Hashing.FNV_OFFSET_BASIS);
+        assertThat(Hashing.fnv1a64("a")).isEqualTo(0xaf63dc4c8601ec8cL);
+        assertThat(Hashing.fnv1a64("foobar")).isEqualTo(0x85944171f73967e8L);
+        assertThat(Hashing.fnv1a64(Hashing.fnv1a64("foo"), "bar")).isEqualTo(Hashing.fnv1a64("foobar"));
+        assertThat(Hashing.fnv1a64Step(Hashing.fnv1a64("fooba"), 'r')).isEqualTo(Hashing.fnv1a64("foobar"));
+    }
+
+    @Test
+    void mixesWithMurmur3Finalizer() {
+        assertThat(Hashing.mix64(0)).isZero();
+        assertThat(Hashing.hash64("a")).isEqualTo(Hashing.mix64(0xaf63dc4c8601ec8cL)).isEqualTo(0x82a2a958a9bece5bL);
+    }
+
+    @Test
+    void keepsPersistedHashesStable() {
+        // Stored in urls.url_hash: these values must never change
+        assertThat(UrlHashes.hash("https://example.com/")).isEqualTo(0x26363d14a74338d9L);
+        assertThat(UrlHashes.hash("https://例え.jp/")).isEqualTo(0x0777482ed114ed7cL);
+        // Visitor sketches stored in url_clicks_hour, url_clicks_day and url_visitors
+        assertThat(HyperLogLog.hash("")).isEqualTo(0xefd01f60ba992926L);
+        assertThat(HyperLogLog.hash("foobar")).isEqualTo(0x2c22194922d1672bL);
+    }
+}
@@ -0,0 +1,64 @@
+package com.tinyls.urlshortener.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class HyperLogLogTest {
+
+    @Test
+    void estimatesSmallCardinalitiesExactly() {
+        HyperLogLog sketch = new HyperLogLog();
+        assertThat(sketch.estimate()).isZero();
+
+        for (int i = 0; i < 100; i++) {
+            sketch.addHash(HyperLogLog.hash("visitor-" + i));
+            sketch.addHash(HyperLogLog.hash("visitor-" + i));
+        }
+        assertThat(sketch.estimate()).isBetween(98L, 102L);
+    }
+
+    @Test
+    void estimatesLargeCardinalitiesWithinFivePercent() {
+        HyperLogLog sketch = new HyperLogLog();
+        for (int i = 0; i < 100_000; i++) {
+            sketch.addHash(HyperLogLog.hash("visitor-" + i));
+        }
+
+        assertThat(sketch.estimate()).isBetween(95_000L, 105_000L);
+    }
+
+    @Test
+    void mergeEstimatesUnion() {
+        HyperLogLog first = new HyperLogLog();
+        HyperLogLog second = new HyperLogLog();
+        for (int i = 0; i < 20_000; i++) {
+            first.addHash(HyperLogLog.hash("visitor-" + i));
+        }
+        for (int i = 10_000; i < 30_000; i++) {
+            second.addHash(HyperLogLog.hash("visitor-" + i));
+        }
+
+        assertThat(first.merge(second)).isTrue();
+        long union = first.estimate();
+        assertThat(first.merge(second)).isFalse();
+
+        assertThat(union).isBetween(28_500L, 31_500L);
+        assertThat(first.estimate()).isEqualTo(union);
+    }
+
+    @Test
+    void roundTripsThroughBytes() {
+        HyperLogLog sketch = new HyperLogLog();
+        for (int i = 0; i < 1_000; i++) {
+            sketch.addHash(HyperLogLog.hash("visitor-" + i));
+        }
+
+        HyperLogLog copy = HyperLogLog.fromBytes(sketch.toBytes());
+
+        assertThat(copy.estimate()).isEqualTo(sketch.estimate());
+        assertThat(copy.toBytes()).isEqualTo(sketch.toBytes());
+        assertThatThrownBy(() -> HyperLogLog.fromBytes(new byte[10])).isInstanceOf(IllegalArgumentException.class);
+    }
+}
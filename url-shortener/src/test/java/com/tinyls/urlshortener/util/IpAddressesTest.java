@@ -0,0 +1,48 @@
+package com.tinyls.urlshortener.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class IpAddressesTest {
+
+    @Test
+    void parsesIpv4() {
+        assertThat(IpAddresses.parseIpv4("0.0.0.0")).isZero();
+        assertThat(IpAddresses.parseIpv4("192.168.1.10")).isEqualTo(0xC0A8010AL);
+        assertThat(IpAddresses.parseIpv4("255.255.255.255")).isEqualTo(0xFFFFFFFFL);
+        assertThat(IpAddresses.parseIpv4("::FFFF:10.0.0.1")).isEqualTo(0x0A000001L);
+    }
+
+    @Test
+    void rejectsInvalidIpv4() {
+        for (String address : new String[] { null, "", "1.2.3", "1.2.3.4.5", "256.0.0.1", "1.2.3.", "1..2.3",
+                "1.2.3.0001", "a.b.c.d", "2001:db8::1" }) {
+            assertThat(IpAddresses.parseIpv4(address)).as(address).isEqualTo(IpAddresses.INVALID);
+        }
+    }
+
+    @Test
+    void parsesIpv6Prefix() {
+        assertThat(IpAddresses.parseIpv6Prefix("2001:db8:85a3:8d3:1319:8a2e:370:7348"))
+                .isEqualTo(0x20010db885a308d3L);
+        assertThat(IpAddresses.parseIpv6Prefix("2001:DB8::1")).isEqualTo(0x20010db800000000L);
+        assertThat(IpAddresses.parseIpv6Prefix("2001:db8:1:2::")).isEqualTo(0x20010db800010002L);
+        assertThat(IpAddresses.parseIpv6Prefix("::")).isZero();
+        assertThat(IpAddresses.parseIpv6Prefix("::1")).isZero();
+        assertThat(IpAddresses.parseIpv6Prefix("::ffff:1.2.3.4")).isZero();
+        assertThat(IpAddresses.parseIpv6Prefix("fe80::1%eth0")).isEqualTo(0xfe80000000000000L);
+        assertThat(IpAddresses.parseIpv6Prefix("[2a00:1450:4001:81b::200e]")).isEqualTo(0x2a0014504001081bL);
+        // The compressed groups end before the lower 64 bits
+        assertThat(IpAddresses.parseIpv6Prefix("1::2:3:4:5:6")).isEqualTo(0x0001000000000002L);
+    }
+
+    @Test
+    void rejectsInvalidIpv6() {
+        for (String address : new String[] { null, "", "1.2.3.4", "2001:db8", "1:2:3:4:5:6:7:8:9", "1::2::3",
+                "2001:db8:::1", "12345::1", "2001:db8::g", "1:2:3:4:5:6:7:", "::1.2.3.4:5",
+                "::ffff:1.2.3.999" }) {
+            assertThat(IpAddresses.parseIpv6Prefix(address)).as(address).isEqualTo(IpAddresses.INVALID);
+        }
+    }
+}